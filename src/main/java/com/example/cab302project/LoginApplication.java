@@ -1,6 +1,8 @@
 package com.example.cab302project;
 
 import com.example.cab302project.controllers.LoginController;
+import com.example.cab302project.models.EventPrefetcher;
+import com.example.cab302project.models.WriteBehindExecutor;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -30,6 +32,13 @@ public class LoginApplication extends Application {
 
     }
 
+    @Override
+    public void stop() {
+        // Make sure changes still queued for the database are written before the JVM exits
+        WriteBehindExecutor.shutdownInstance();
+        EventPrefetcher.shutdownInstance();
+    }
+
     public static void main(String[] args) {
         launch();
     }
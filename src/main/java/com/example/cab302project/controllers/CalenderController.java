@@ -26,6 +26,7 @@ import java.time.LocalTime;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.time.format.TextStyle;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 
@@ -33,8 +34,14 @@ import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 
 import com.example.cab302project.models.Event;
+import com.example.cab302project.models.EventSearchHit;
 
 import com.example.cab302project.models.User;
+import com.example.cab302project.models.EventChange;
+import com.example.cab302project.models.EventChangeBus;
+import com.example.cab302project.models.EventPrefetcher;
+import com.example.cab302project.models.SlotOccupancy;
+import com.example.cab302project.models.WriteBehindExecutor;
 import com.example.cab302project.util.Session;
 
 /**
@@ -76,6 +83,8 @@ public class CalenderController {
     @FXML private VBox responseArea;
     @FXML private Button profileButton;
     @FXML private GridPane miniDayView;
+    @FXML private TextField searchField;
+    @FXML private ListView<EventSearchHit> searchResults;
 
     private List<com.example.cab302project.models.Event> testEvents = new ArrayList<Event>();
     private Event newEvent = new Event("Lunch", "20250314T032000Z","20250314T033000Z","test@test.com");
@@ -88,6 +97,31 @@ public class CalenderController {
     private static final double HEADER_PERCENT = 8;     // header row share
     private static final double SIDEBAR_PERCENT = 10;   // hour-column share
 
+    /**
+     * Patches the shown view when the user's events change. The bus holds it weakly, so this field keeps it
+     * subscribed for as long as the controller is alive.
+     */
+    private final EventChangeBus.Listener changeListener = change -> Platform.runLater(() -> applyEventChange(change));
+    /**
+     * View currently rendered, one of "Day", "Week", "Month" or "Year".
+     */
+    private String shownView = null;
+    /**
+     * Hour cells of the rendered week view, by day then hour, and the Monday they start on.
+     */
+    private Label[][] weekCells;
+    private LocalDate shownWeekStart;
+    /**
+     * Hour slots of the rendered day view, and the day shown.
+     */
+    private Label[] daySlots;
+    private LocalDate shownDay;
+    /**
+     * Day cells of the rendered month view, by day of the month minus one, and the first of the month.
+     */
+    private VBox[] monthCells;
+    private LocalDate shownMonthStart;
+
     // === Initialization ===
     /**
      * Initializes the calendar view, UI elements, and sets default values.
@@ -148,6 +182,8 @@ public class CalenderController {
         monthRadio.setSelected(true); // Default view
         splitPane.setDividerPositions(0.2);
         renderMiniDayView();
+        setUpSearchResults();
+        EventChangeBus.getInstance().subscribe(changeListener);
 
         updateDayComboBox();
         viewToggleGroup.selectedToggleProperty().addListener((obs, oldVal, newVal) -> {
@@ -306,6 +342,77 @@ public class CalenderController {
         currentDate = LocalDate.of(currentDate.getYear(), currentDate.getMonth(), selectedDay);
         updateCalendar();
     }
+    // === Event Search ===
+    /**
+     * Maximum number of search hits listed in the sidebar.
+     */
+    private static final int SEARCH_LIMIT = 20;
+
+    /**
+     * Configures the search result list: each hit shows its snippet and start time,
+     * and selecting one opens the day view on that event.
+     */
+    private void setUpSearchResults() {
+        DateTimeFormatter hitDate = DateTimeFormatter.ofPattern("d MMM yyyy, h:mm a", Locale.ENGLISH);
+        searchResults.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(EventSearchHit hit, boolean empty) {
+                super.updateItem(hit, empty);
+                if (empty || hit == null) {
+                    setText(null);
+                    return;
+                }
+                String snippet = hit.getSnippet()
+                        .replace(EventSearchHit.MATCH_START, "")
+                        .replace(EventSearchHit.MATCH_END, "");
+                LocalDateTime start = hit.getEvent().getStart_Time_LocalDateTime();
+                setText(start != null ? snippet + "\n" + start.format(hitDate) : snippet);
+            }
+        });
+        searchResults.getSelectionModel().selectedItemProperty().addListener((obs, oldHit, hit) -> {
+            if (hit != null) {
+                showSearchHit(hit);
+            }
+        });
+    }
+
+    /**
+     * Handles the search box: lists the logged-in user's events whose name matches the typed words.
+     */
+    @FXML
+    private void onSearchEvents() {
+        User sessionUser = Session.getLoggedInUser();
+        String query = searchField.getText();
+        if (sessionUser == null || query == null || query.isBlank()) {
+            searchResults.getItems().clear();
+            searchResults.setVisible(false);
+            searchResults.setManaged(false);
+            return;
+        }
+
+        List<EventSearchHit> hits = new SqliteUserDAO().searchEvents(sessionUser.getId(), query, SEARCH_LIMIT);
+        searchResults.getItems().setAll(hits);
+        searchResults.setPlaceholder(new Label("No events found"));
+        searchResults.setVisible(true);
+        searchResults.setManaged(true);
+    }
+
+    /**
+     * Opens the day view on the date of a search hit.
+     * @param hit the selected search hit
+     */
+    private void showSearchHit(EventSearchHit hit) {
+        LocalDateTime start = hit.getEvent().getStart_Time_LocalDateTime();
+        if (start == null) {
+            return;
+        }
+        monthComboBox.setValue(start.getMonth().getDisplayName(TextStyle.FULL, Locale.ENGLISH));
+        yearComboBox.setValue(start.getYear());
+        dayComboBox.setValue(start.getDayOfMonth());
+        onMonthYearSelected();
+        onDayView();
+    }
+
     /**
      * Enlarges the logo on mouse hover.
      */
@@ -364,8 +471,17 @@ public class CalenderController {
      */
     @FXML
     private void handleLogOut() {
-        Session.clear();
         System.out.println("Logging out...");
+        // Apply pending changes while the session they belong to is still active, without waiting on them here
+        WriteBehindExecutor.getInstance().flushAsync()
+                .whenComplete((flushed, error) -> Platform.runLater(this::showLoginWindow));
+    }
+
+    /**
+     * Ends the session and replaces this window with the login screen.
+     */
+    private void showLoginWindow() {
+        Session.clear();
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/example/cab302project/login-view.fxml"));
             Parent loginRoot = loader.load();
@@ -446,6 +562,7 @@ public class CalenderController {
         // Determine which view is selected (Day, Week, Month, Year)
         RadioButton selectedView = (RadioButton) viewToggleGroup.getSelectedToggle();
         String view = selectedView != null ? selectedView.getText() : "Month";
+        shownView = view;
 
         // Switch between different views: Day, Week, Month, Year
         switch (view) {
@@ -536,6 +653,8 @@ public class CalenderController {
         int row = 1;
         int col = startCol;
         CalendarDAO dao = new CalendarDAO(first, Period.ofMonths(1), TimeUnit.DAYS);
+        monthCells = new VBox[daysInMonth];
+        shownMonthStart = first;
 
         for (int d = 1; d <= daysInMonth; d++) {
 
@@ -552,17 +671,8 @@ public class CalenderController {
             cell.getChildren().add(dateLbl);
 
             // Events
-            for (Event e : dao.getAllEventsOnDay(date)) {
-                if (e != null) {
-                    Label ev = new Label(e.getName());
-                    ev.setMaxWidth(Double.MAX_VALUE);
-                    ev.setWrapText(true);
-                    ev.setStyle(
-                            "-fx-background-color: #9B59B6; -fx-text-fill: white;" +
-                                    " -fx-font-size: 10px; -fx-padding: 2 4; -fx-background-radius: 4; -fx-font-weight: bold");
-                    cell.getChildren().add(ev);
-                }
-            }
+            fillMonthCell(cell, dao.getAllEventsOnDay(date));
+            monthCells[d - 1] = cell;
 
             // Highlight today
             cell.styleProperty().bind(
@@ -585,6 +695,8 @@ public class CalenderController {
                 row++;
             }
         }
+
+        prefetchAdjacent(first, Period.ofMonths(1));
     }
 
     /**
@@ -629,6 +741,10 @@ public class CalenderController {
 
         LocalDate startOfWeek = currentDate.with(DayOfWeek.MONDAY);
         var eventCalendar = new CalendarDAO(startOfWeek, Period.of(0, 0, 7), TimeUnit.HOURS);
+        // Every hour of the week, filled in one pass so concurrent events all show
+        SlotOccupancy hours = eventCalendar.getSlotOccupancy(startOfWeek.atStartOfDay(), Duration.ofHours(1), 7 * 24);
+        weekCells = new Label[7][24];
+        shownWeekStart = startOfWeek;
 
         // Add day headers (Monday, Tuesday, etc.)
         for (int col = 1; col <= 7; col++) {
@@ -692,34 +808,8 @@ public class CalenderController {
 
                 weekGrid.setMinHeight(Region.USE_PREF_SIZE);
 
-                LocalDate day = startOfWeek.plusDays(col - 1);
-                LocalTime time = LocalTime.of(row - 1, 0);
-                LocalDateTime currentTime = day.atTime(time);
-
-                Event cEvent = eventCalendar.getFirstEventForInterval(currentTime, TimeUnit.HOURS);
-
-                String labelText = "";
-                boolean hasEvent = false;
-                if (cEvent != null) {
-                    labelText = cEvent.getName();
-                    hasEvent = true;
-                }
-
-                cell.setText(labelText);
-
-                // Build base style
-                double fontSize = 16;
-                String borderStyle = "-fx-border-color: #ccc; -fx-border-width: 0.5px;";
-                String fontStyle = String.format(
-                        "-fx-font-size: %.3fpx; -fx-text-fill: white; -fx-font-weight: bold;", fontSize
-                );
-
-                // Use the purple highlight for events
-                String eventHighlightStyle = hasEvent
-                        ? "-fx-background-color: #9B59B6; -fx-font-size: 10px; -fx-padding: 2 4; -fx-background-radius: 4;"
-                        : "";
-
-                cell.setStyle(fontStyle + borderStyle + eventHighlightStyle);
+                fillWeekCell(cell, hours.eventsIn((col - 1) * 24 + (row - 1)));
+                weekCells[col - 1][row - 1] = cell;
                 cell.setAlignment(Pos.CENTER_LEFT);
 
                 GridPane.setHgrow(cell, Priority.ALWAYS);
@@ -727,6 +817,8 @@ public class CalenderController {
                 weekGrid.add(cell, col, row);
             }
         }
+
+        prefetchAdjacent(startOfWeek, Period.of(0, 0, 7));
     }
 
     /**
@@ -759,6 +851,9 @@ public class CalenderController {
         dayGrid.add(dateLabel, 0, 0); // Row 0 = header
 
         var eventCalendar = new CalendarDAO(currentDate, Period.of(0, 0, 1), TimeUnit.HOURS);
+        SlotOccupancy hours = eventCalendar.getSlotOccupancy(currentDate.atStartOfDay(), Duration.ofHours(1), 24);
+        daySlots = new Label[24];
+        shownDay = currentDate;
 
         // Create the hourly rows
         for (int hour = 0; hour < 24; hour++) {
@@ -778,22 +873,8 @@ public class CalenderController {
             eventSlot.setPadding(new Insets(0, 10, 0, 10)); // Padding inside event box
             eventSlot.setWrapText(true);
 
-            // Base and conditional style
-            String baseStyle = "-fx-border-color: #ccc; -fx-border-width: 0 0 1px 0; -fx-font-size: 14px;";
-            String highlightStyle = "";
-
-            var fEvent = eventCalendar.getFirstEventForInterval(currentDate, hour, TimeUnit.HOURS);
-            if (fEvent != null) {
-                eventSlot.setText(fEvent.getName());
-                highlightStyle = "-fx-background-color: #9B59B6; " +
-                        "-fx-text-fill: white; " +
-                        "-fx-font-size: 10px; " +
-                        "-fx-padding: 2 4; " +
-                        "-fx-background-radius: 4; " +
-                        "-fx-font-weight: bold;"; // Light purple
-            }
-
-            eventSlot.setStyle(baseStyle + highlightStyle);
+            fillDaySlot(eventSlot, hours.eventsIn(hour));
+            daySlots[hour] = eventSlot;
 
             // Add to grid (rows shifted by 1 to account for header)
             dayGrid.add(timeLabel, 0, hour + 1);
@@ -801,6 +882,173 @@ public class CalenderController {
 
             GridPane.setHgrow(eventSlot, Priority.ALWAYS); // Let it fill width
         }
+
+        prefetchAdjacent(currentDate, Period.of(0, 0, 1));
+    }
+
+    /**
+     * Shows the events of one day in a month view cell, below its date label.
+     * @param cell      Cell of the month grid
+     * @param events    Events on the cell's day
+     */
+    private static void fillMonthCell(VBox cell, List<Event> events) {
+        // The first child is the date number
+        cell.getChildren().remove(1, cell.getChildren().size());
+        for (Event e : events) {
+            if (e != null) {
+                Label ev = new Label(e.getName());
+                ev.setMaxWidth(Double.MAX_VALUE);
+                ev.setWrapText(true);
+                ev.setStyle(
+                        "-fx-background-color: #9B59B6; -fx-text-fill: white;" +
+                                " -fx-font-size: 10px; -fx-padding: 2 4; -fx-background-radius: 4; -fx-font-weight: bold");
+                cell.getChildren().add(ev);
+            }
+        }
+    }
+
+    /**
+     * Shows the events of one hour in a week view cell.
+     * @param cell      Cell of the week grid
+     * @param events    Events overlapping the cell's hour
+     */
+    private static void fillWeekCell(Label cell, List<Event> events) {
+        cell.setText(slotText(events));
+
+        // Build base style
+        double fontSize = 16;
+        String borderStyle = "-fx-border-color: #ccc; -fx-border-width: 0.5px;";
+        String fontStyle = String.format(
+                "-fx-font-size: %.3fpx; -fx-text-fill: white; -fx-font-weight: bold;", fontSize
+        );
+
+        // Use the purple highlight for events
+        String eventHighlightStyle = !events.isEmpty()
+                ? "-fx-background-color: #9B59B6; -fx-font-size: 10px; -fx-padding: 2 4; -fx-background-radius: 4;"
+                : "";
+
+        cell.setStyle(fontStyle + borderStyle + eventHighlightStyle);
+    }
+
+    /**
+     * Shows the events of one hour in a day view slot.
+     * @param eventSlot Slot of the day grid
+     * @param events    Events overlapping the slot's hour
+     */
+    private static void fillDaySlot(Label eventSlot, List<Event> events) {
+        // Base and conditional style
+        String baseStyle = "-fx-border-color: #ccc; -fx-border-width: 0 0 1px 0; -fx-font-size: 14px;";
+        String highlightStyle = "";
+
+        eventSlot.setText(slotText(events));
+        if (!events.isEmpty()) {
+            highlightStyle = "-fx-background-color: #9B59B6; " +
+                    "-fx-text-fill: white; " +
+                    "-fx-font-size: 10px; " +
+                    "-fx-padding: 2 4; " +
+                    "-fx-background-radius: 4; " +
+                    "-fx-font-weight: bold;"; // Light purple
+        }
+
+        eventSlot.setStyle(baseStyle + highlightStyle);
+    }
+
+    /**
+     * Updates the cells of the shown view that a change to the user's events touches, instead of rendering
+     * the whole grid again. The window is read back through the event cache, which the change has already patched.
+     * @param change Change published by the DAO
+     */
+    private void applyEventChange(EventChange change) {
+        User sessionUser = Session.getLoggedInUser();
+        if (sessionUser == null || shownView == null) {
+            return;
+        }
+        String email = sessionUser.getEmail();
+        switch (shownView) {
+            case "Week":
+                if (weekCells != null && affectsDays(change, email, shownWeekStart, 7)) {
+                    CalendarDAO dao = new CalendarDAO(shownWeekStart, Period.of(0, 0, 7), TimeUnit.HOURS);
+                    SlotOccupancy hours = dao.getSlotOccupancy(shownWeekStart.atStartOfDay(), Duration.ofHours(1), 7 * 24);
+                    int[] days = affectedDays(change, shownWeekStart, 7);
+                    for (int day = days[0]; day <= days[1]; day++) {
+                        for (int hour = 0; hour < 24; hour++) {
+                            fillWeekCell(weekCells[day][hour], hours.eventsIn(day * 24 + hour));
+                        }
+                    }
+                }
+                break;
+            case "Day":
+                if (daySlots != null && affectsDays(change, email, shownDay, 1)) {
+                    CalendarDAO dao = new CalendarDAO(shownDay, Period.of(0, 0, 1), TimeUnit.HOURS);
+                    SlotOccupancy hours = dao.getSlotOccupancy(shownDay.atStartOfDay(), Duration.ofHours(1), 24);
+                    for (int hour = 0; hour < 24; hour++) {
+                        fillDaySlot(daySlots[hour], hours.eventsIn(hour));
+                    }
+                }
+                break;
+            case "Month":
+                if (monthCells != null && affectsDays(change, email, shownMonthStart, monthCells.length)) {
+                    CalendarDAO dao = new CalendarDAO(shownMonthStart, Period.ofMonths(1), TimeUnit.DAYS);
+                    int[] days = affectedDays(change, shownMonthStart, monthCells.length);
+                    for (int day = days[0]; day <= days[1]; day++) {
+                        fillMonthCell(monthCells[day], dao.getAllEventsOnDay(shownMonthStart.plusDays(day)));
+                    }
+                }
+                break;
+            default:
+                // The year view shows no events
+                break;
+        }
+        if (affectsDays(change, email, currentDate, 1)) {
+            renderMiniDayView();
+        }
+    }
+
+    /**
+     * @return True if the change is for the user and overlaps the given days
+     */
+    private static boolean affectsDays(EventChange change, String email, LocalDate firstDay, int days) {
+        return change.affects(email, firstDay.atStartOfDay(), firstDay.plusDays(days).atStartOfDay());
+    }
+
+    /**
+     * @return First and last day, counted from {@code firstDay}, that the change's range covers within the shown days
+     */
+    private static int[] affectedDays(EventChange change, LocalDate firstDay, int days) {
+        int from = 0;
+        int to = days - 1;
+        if (change.getFrom() != null) {
+            from = (int) Math.max(from, ChronoUnit.DAYS.between(firstDay, change.getFrom().toLocalDate()));
+        }
+        if (change.getTo() != null) {
+            to = (int) Math.min(to, ChronoUnit.DAYS.between(firstDay, change.getTo().toLocalDate()));
+        }
+        return new int[]{from, to};
+    }
+
+    /**
+     * @param events    Events overlapping a slot of the week or day view
+     * @return          Their names, one per line, or an empty string if the slot is free
+     */
+    private static String slotText(List<Event> events) {
+        StringJoiner names = new StringJoiner("\n");
+        for (Event e : events) {
+            names.add(e.getName());
+        }
+        return names.toString();
+    }
+
+    /**
+     * Loads the windows before and after the one just rendered in the background,
+     * so stepping to the previous or next month, week or day is served from the event cache.
+     * @param startDate     First date of the rendered window
+     * @param timePeriod    Length of the rendered window
+     */
+    private void prefetchAdjacent(LocalDate startDate, Period timePeriod) {
+        User sessionUser = Session.getLoggedInUser();
+        if (sessionUser != null) {
+            EventPrefetcher.getInstance().prefetchAround(sessionUser.getEmail(), startDate, timePeriod);
+        }
     }
 
     /**
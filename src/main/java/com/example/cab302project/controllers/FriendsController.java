@@ -1,11 +1,15 @@
 package com.example.cab302project.controllers;
 
 import com.example.cab302project.models.Event;
+import com.example.cab302project.models.FriendRequestStatus;
 import com.example.cab302project.models.SqliteConnection;
 import com.example.cab302project.models.SqliteUserDAO;
 import com.example.cab302project.models.User;
+import com.example.cab302project.models.UserSummary;
+import com.example.cab302project.models.WriteBehindExecutor;
 import com.example.cab302project.util.Session;
 import com.fasterxml.jackson.databind.JsonNode;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -22,8 +26,8 @@ import javafx.scene.layout.Priority;
 import javafx.scene.layout.RowConstraints;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
@@ -102,6 +106,10 @@ public class FriendsController {
      * TextField for the user to enter search queries for users.
      */
     @FXML private TextField searchUserField;
+    /**
+     * Button that loads the next page of user search results.
+     */
+    @FXML private Button moreResultsButton;
     /**
      * ListView to display the friend requests sent by the current user that are still pending (outgoing requests).
      */
@@ -115,9 +123,25 @@ public class FriendsController {
      */
     @FXML private ComboBox<String> friendSelector;
     /**
-     * ObservableList holding usernames of all users in the system (excluding the current user) for search.
+     * Number of users fetched per user search page.
+     */
+    private static final int USER_SEARCH_PAGE_SIZE = 20;
+    /**
+     * Delays the user search until typing pauses, so one query runs per burst of keystrokes.
+     */
+    private final PauseTransition userSearchDebounce = new PauseTransition(Duration.millis(250));
+    /**
+     * ObservableList holding the usernames found by the current user search.
+     */
+    private final ObservableList<String> userSearchResults = FXCollections.observableArrayList();
+    /**
+     * Last user of the most recently loaded search page, the cursor for the next page.
+     */
+    private UserSummary lastUserSearchResult = null;
+    /**
+     * Search text the loaded results belong to.
      */
-    private final ObservableList<String> allUsers        = FXCollections.observableArrayList();
+    private String lastUserSearchPrefix = null;
     /**
      * ObservableList holding usernames of users to whom the current user has sent a pending friend request.
      */
@@ -158,6 +182,10 @@ public class FriendsController {
      * An instance of the User Data Access Object for interacting with user data.
      */
     private SqliteUserDAO userDAO; // Using the concrete implementation
+    /**
+     * Applies friend request changes off the JavaFX Application Thread.
+     */
+    private final WriteBehindExecutor writes = WriteBehindExecutor.getInstance();
     /**
      * The email address of the friend whose profile is currently loaded and displayed.
      */
@@ -221,7 +249,6 @@ public class FriendsController {
         logoImage.setImage(logo);
 
         // 4) Load data from DB
-        loadAllUsers();
         refreshFriendList();
         refreshIncomingRequests();
         refreshOutgoingRequests();
@@ -232,6 +259,8 @@ public class FriendsController {
         Label placeholderLabel2 = new Label("Select A User");
         placeholderLabel2.setStyle("-fx-text-fill: #6A4B8B; -fx-font-style: italic;");
         searchResultsList.setPlaceholder(placeholderLabel2);
+        searchResultsList.setItems(userSearchResults);
+        moreResultsButton.setDisable(true);
 
         pendingRequestsList.setItems(pendingOutgoing);
         // if nothing in list show message
@@ -250,16 +279,8 @@ public class FriendsController {
             if (newU != null) loadUserProfile(newU);
         });
 
-        searchUserField.textProperty().addListener((obs, oldText, text) -> {
-            if (text == null || text.isBlank()) {
-                searchResultsList.setItems(FXCollections.observableArrayList());
-            } else {
-                List<String> matches = allUsers.stream()
-                        .filter(u -> u.toLowerCase().contains(text.toLowerCase()))
-                        .collect(Collectors.toList());
-                searchResultsList.setItems(FXCollections.observableArrayList(matches));
-            }
-        });
+        userSearchDebounce.setOnFinished(e -> searchUsers(false));
+        searchUserField.textProperty().addListener((obs, oldText, text) -> userSearchDebounce.playFromStart());
 
         // Show username on the profile button
         try {
@@ -278,42 +299,59 @@ public class FriendsController {
     }
 
     /**
-     * Loads the usernames of all users from the database into the allUsers observable list.
-     * Excludes the currently logged-in user.
+     * Looks up usernames starting with the text in the search field, excluding the current user.
+     * @param nextPage true to append the page after the last loaded result, false to start a new search
      */
-    private void loadAllUsers() {
-        allUsers.clear();
-        String me = Session.getLoggedInUser().getUsername();
+    private void searchUsers(boolean nextPage) {
+        String prefix = searchUserField.getText();
+        if (prefix == null || prefix.isBlank()) {
+            userSearchResults.clear();
+            lastUserSearchResult = null;
+            lastUserSearchPrefix = null;
+            moreResultsButton.setDisable(true);
+            return;
+        }
 
-        String sql = "SELECT username FROM users";
-        try (Statement st = connection.createStatement();
-             ResultSet rs = st.executeQuery(sql)) {
+        // The cursor only makes sense for the text it was found with
+        nextPage = nextPage && prefix.equals(lastUserSearchPrefix);
+        lastUserSearchPrefix = prefix;
 
-            while (rs.next()) {
-                String u = rs.getString("username");
-                if (!u.equals(me)) {
-                    allUsers.add(u);
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
+        int myId = Session.getLoggedInUser().getId();
+        List<UserSummary> page = userDAO.searchUsersByPrefix(
+                prefix, nextPage ? lastUserSearchResult : null, myId, USER_SEARCH_PAGE_SIZE);
+        List<String> usernames = page.stream().map(UserSummary::getUsername).collect(Collectors.toList());
+        if (nextPage) {
+            userSearchResults.addAll(usernames);
+        } else {
+            userSearchResults.setAll(usernames);
+        }
+        if (!page.isEmpty()) {
+            lastUserSearchResult = page.get(page.size() - 1);
         }
+        // A short page means there is nothing left to load
+        moreResultsButton.setDisable(page.size() < USER_SEARCH_PAGE_SIZE);
+    }
+
+    /**
+     * Handles the action for the More button under the user search results.
+     * Loads the next page of matching users.
+     */
+    @FXML
+    private void handleMoreResults() {
+        userSearchDebounce.stop();
+        searchUsers(true);
     }
     /**
      * Refreshes the list of the current user's friends by fetching data from the database
      * and updating the observable list friendList.
      */
     private void refreshFriendList() {
-        try {
-            friendList.setAll(
-                    userDAO.getFriends(Session.getLoggedInUser().getUsername())
-                            .stream()
-                            .map(User::getUsername)
-                            .collect(Collectors.toList())
-            );
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+        friendList.setAll(
+                userDAO.getFriendSummaries(Session.getLoggedInUser().getUsername())
+                        .stream()
+                        .map(UserSummary::getUsername)
+                        .collect(Collectors.toList())
+        );
     }
     /**
      * Refreshes the list of pending friend requests sent to the current user (incoming requests).
@@ -321,43 +359,23 @@ public class FriendsController {
      */
     private void refreshIncomingRequests() {
         incomingReqs.setAll(
-                userDAO.getPendingFriendRequests(Session.getLoggedInUser().getUsername())
+                userDAO.getIncomingRequestSummaries(Session.getLoggedInUser().getUsername())
                         .stream()
-                        .map(User::getUsername)
+                        .map(UserSummary::getUsername)
                         .collect(Collectors.toList())
         );
     }
     /**
      * Refreshes the list of pending friend requests sent by the current user (outgoing requests).
-     * Fetches data directly using a SQL query, then maps receiver emails back to usernames.
+     * Receivers are joined to their usernames in the same query.
      */
     private void refreshOutgoingRequests() {
-        pendingOutgoing.clear();
-
-        String sql = """
-        SELECT receiver_email
-          FROM friend_requests
-         WHERE sender_email = ?
-           AND status = 'pending'
-    """;
-
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            // use the **email** of the logged-in user, not their username
-            ps.setString(1, Session.getLoggedInUser().getEmail());
-
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    String receiverEmail = rs.getString("receiver_email");
-                    // convert the email back to a username for display
-                    User u = userDAO.getUserByEmail(receiverEmail);
-                    if (u != null) {
-                        pendingOutgoing.add(u.getUsername());
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+        pendingOutgoing.setAll(
+                userDAO.getOutgoingRequestSummaries(Session.getLoggedInUser().getUsername())
+                        .stream()
+                        .map(UserSummary::getUsername)
+                        .collect(Collectors.toList())
+        );
     }
 
     /**
@@ -376,11 +394,11 @@ public class FriendsController {
             loadedFriendEmail = u.getEmail();
 
             // Check if user has a profile image
-            byte[] profileImageData = userDAO.getProfileImage(u.getEmail());
+            InputStream profileImageData = userDAO.openProfileImage(u.getEmail());
 
-            if (profileImageData != null && profileImageData.length > 0) {
+            if (profileImageData != null) {
 
-                Image image = new Image(new ByteArrayInputStream(profileImageData));
+                Image image = new Image(profileImageData);
                 profileImage.setImage(image);
             } else {
 
@@ -398,8 +416,18 @@ public class FriendsController {
      */
     @FXML
     private void handleLogOut() {
-        Session.clear();
+        userSearchDebounce.stop();
         System.out.println("Logging out...");
+        // Apply pending changes while the session they belong to is still active, without waiting on them here
+        WriteBehindExecutor.getInstance().flushAsync()
+                .whenComplete((flushed, error) -> Platform.runLater(this::showLoginWindow));
+    }
+
+    /**
+     * Ends the session and replaces this window with the login screen.
+     */
+    private void showLoginWindow() {
+        Session.clear();
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/example/cab302project/login-view.fxml"));
             Parent loginRoot = loader.load();
@@ -426,23 +454,35 @@ public class FriendsController {
     /**
      * Handles the action for the remove friend button.
      * Removes the selected friends from the friends list.
-     * Updates the database via the user DAO and refreshes the friends list on success.
+     * Ends the friendship via the user DAO on the write-behind thread and refreshes the friends list on success.
      */
     @FXML
     private void handleRemoveFriend() {
         String selectedFriend = friendSelector.getSelectionModel().getSelectedItem();
         if (selectedFriend != null && friendList.contains(selectedFriend)) {
-            friendList.remove(selectedFriend);
-            friendSelector.getSelectionModel().clearSelection();
-
-            // Clear profile display
-            profileHeaderLabel.setText("Friend profile");
-            usernameLabel.setText("");
-            nameLabel.setText("");
-            bioLabel.setText("");
-            profileImage.setImage(null);  // Optional: set to a default image instead
-
-            showAlert("Friend Removed", selectedFriend + " has been removed from your friend list.");
+            User currentUser = Session.getLoggedInUser();
+            String me = currentUser.getUsername();
+            writes.submit(() -> userDAO.removeFriend(me, selectedFriend))
+                    .whenComplete((result, error) -> Platform.runLater(() -> {
+                        if (!Session.isCurrent(currentUser)) {
+                            return;
+                        }
+                        if (error != null || !result.isApplied()) {
+                            showAlert("Error", "Could not remove " + selectedFriend + ". Try again.");
+                            return;
+                        }
+                        friendList.remove(selectedFriend);
+                        friendSelector.getSelectionModel().clearSelection();
+
+                        // Clear profile display
+                        profileHeaderLabel.setText("Friend profile");
+                        usernameLabel.setText("");
+                        nameLabel.setText("");
+                        bioLabel.setText("");
+                        profileImage.setImage(null);  // Optional: set to a default image instead
+
+                        showAlert("Friend Removed", selectedFriend + " has been removed from your friend list.");
+                    }));
         } else {
             showAlert("No Selection", "Please select a friend to remove.");
         }
@@ -459,22 +499,34 @@ public class FriendsController {
             showAlert("No Selection","Please select a user to send request.");
             return;
         }
-        String me = Session.getLoggedInUser().getUsername();
+        User currentUser = Session.getLoggedInUser();
+        String me = currentUser.getUsername();
         if (friendList.contains(selected)) {
             showAlert("Already Friends", selected + " is already your friend.");
         } else if (pendingOutgoing.contains(selected)) {
             showAlert("Already Requested","You already sent a request to " + selected + ".");
         } else {
-            boolean ok = userDAO.sendFriendRequest(me, selected);
-            if (ok) {
-                showAlert("Request Sent","Friend request sent to " + selected + ".");
-                refreshOutgoingRequests();
-            } else {
-                showAlert("Error","Could not send request. Ensure user exists and no pending request.");
-            }
+            writes.submit(() -> userDAO.sendFriendRequest(me, selected))
+                    .whenComplete((result, error) -> Platform.runLater(() -> {
+                        if (!Session.isCurrent(currentUser)) {
+                            return;
+                        }
+                        if (error == null && result.isApplied()) {
+                            showAlert("Request Sent","Friend request sent to " + selected + ".");
+                            refreshOutgoingRequests();
+                        } else if (error == null && result.getStatus() == FriendRequestStatus.PENDING) {
+                            // Another window sent the same request first
+                            showAlert("Already Requested","You already sent a request to " + selected + ".");
+                            refreshOutgoingRequests();
+                        } else if (error == null && result.getStatus() == FriendRequestStatus.ACCEPTED) {
+                            showAlert("Already Friends", selected + " is already your friend.");
+                            refreshFriendList();
+                        } else {
+                            showAlert("Error","Could not send request. Ensure user exists and no pending request.");
+                        }
+                    }));
         }
         searchUserField.clear();
-        searchResultsList.setItems(FXCollections.observableArrayList());
     }
     /**
      * Handles the action for the  Accept Request button.
@@ -487,14 +539,21 @@ public class FriendsController {
             showAlert("No Selection","Please select a request to accept.");
             return;
         }
-        String me = Session.getLoggedInUser().getUsername();
-        if (userDAO.acceptFriendRequest(sel, me)) {
-            showAlert("Accepted", sel + " is now your friend!");
-            refreshIncomingRequests();
-            refreshFriendList();
-        } else {
-            showAlert("Error","Could not accept. Try again.");
-        }
+        User currentUser = Session.getLoggedInUser();
+        String me = currentUser.getUsername();
+        writes.submit(() -> userDAO.acceptFriendRequest(sel, me))
+                .whenComplete((result, error) -> Platform.runLater(() -> {
+                    if (!Session.isCurrent(currentUser)) {
+                        return;
+                    }
+                    if (error == null && result.isApplied()) {
+                        showAlert("Accepted", sel + " is now your friend!");
+                        refreshIncomingRequests();
+                        refreshFriendList();
+                    } else {
+                        showAlert("Error","Could not accept. Try again.");
+                    }
+                }));
     }
 
     /**
@@ -508,18 +567,25 @@ public class FriendsController {
             showAlert("No Selection","Please select a request to decline.");
             return;
         }
-        String me = Session.getLoggedInUser().getUsername();
-        if (userDAO.declineFriendRequest(sel, me)) {
-            showAlert("Declined", sel + " has been declined.");
-            refreshIncomingRequests();
-        } else {
-            showAlert("Error","Could not decline. Try again.");
-        }
+        User currentUser = Session.getLoggedInUser();
+        String me = currentUser.getUsername();
+        writes.submit(() -> userDAO.declineFriendRequest(sel, me))
+                .whenComplete((result, error) -> Platform.runLater(() -> {
+                    if (!Session.isCurrent(currentUser)) {
+                        return;
+                    }
+                    if (error == null && result.isApplied()) {
+                        showAlert("Declined", sel + " has been declined.");
+                        refreshIncomingRequests();
+                    } else {
+                        showAlert("Error","Could not decline. Try again.");
+                    }
+                }));
     }
     /**
      * Handles the action for the Delete Request button.
      * Deletes the selected outgoing friend request from the database.
-     * Updates the database directly using SQL and refreshes the outgoing requests list on success.
+     * Removes the request on the write-behind thread and refreshes the outgoing requests list on success.
      */
     @FXML
     private void handleDeleteRequest() {
@@ -529,28 +595,20 @@ public class FriendsController {
             return;
         }
 
-        // Convert the selected username back to an email
-        User selUser = userDAO.getUserByUsername(selUsername);
-        if (selUser == null) {
-            showAlert("Error", "Could not find user: " + selUsername);
-            return;
-        }
-
-        String myEmail   = Session.getLoggedInUser().getEmail();
-        String theirEmail = selUser.getEmail();
-
-        String sql = """
-        DELETE FROM friend_requests
-         WHERE sender_email   = ?
-           AND receiver_email = ?
-    """;
-
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, myEmail);
-            ps.setString(2, theirEmail);
-            int rows = ps.executeUpdate();
+        User currentUser = Session.getLoggedInUser();
+        String me = currentUser.getUsername();
+        writes.submit(() -> userDAO.deleteFriendRequest(me, selUsername))
+                .whenComplete((result, error) -> Platform.runLater(() -> {
+            if (!Session.isCurrent(currentUser)) {
+                return;
+            }
+            if (error != null) {
+                error.printStackTrace();
+                showAlert("Error", "An error occurred while deleting the request.");
+                return;
+            }
 
-            if (rows > 0) {
+            if (result.isApplied()) {
                 showAlert("Deleted", "Friend request to " + selUsername + " has been removed.");
             } else {
                 showAlert("Not Found", "No pending request to " + selUsername + " was found.");
@@ -558,11 +616,7 @@ public class FriendsController {
 
             // Refresh the outgoing list so the deleted entry vanishes
             refreshOutgoingRequests();
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-            showAlert("Error", "An error occurred while deleting the request.");
-        }
+        }));
     }
     /**
      * Enlarges the logo on mouse hover.
@@ -783,7 +837,7 @@ public class FriendsController {
 
             String sampleEventEmail = null;
             for (Event event : lastFriendEvents) {
-                User friendUser = userDAO.getUserByUsername(event.getUsername());
+                UserSummary friendUser = userDAO.getUserSummaryByUsername(event.getUsername());
                 if (friendUser != null) {
                     sampleEventEmail = friendUser.getEmail();
                     break;
@@ -829,7 +883,7 @@ public class FriendsController {
 
             boolean needsNewEvents = lastUserEvents == null || lastFriendEvents == null ||
                     !targetDate.equals(lastQueryDate) ||
-                    (loadedFriendEmail != null && (lastFriendEvents == null || !userDAO.getUserByEmail(loadedFriendEmail).getEmail().equals(getFriendEmailFromLastEvents()))); // Simple check if friend changed
+                    (loadedFriendEmail != null && (lastFriendEvents == null || !userDAO.getUserSummaryByEmail(loadedFriendEmail).getEmail().equals(getFriendEmailFromLastEvents()))); // Simple check if friend changed
 
             if (needsNewEvents) {
 
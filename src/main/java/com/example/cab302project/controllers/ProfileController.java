@@ -3,7 +3,9 @@ package com.example.cab302project.controllers;
 import com.example.cab302project.models.CalendarDAO;
 import com.example.cab302project.models.SqliteUserDAO;
 import com.example.cab302project.models.User;
+import com.example.cab302project.models.WriteBehindExecutor;
 import com.example.cab302project.util.Session;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.geometry.Pos;
@@ -18,9 +20,9 @@ import javafx.scene.layout.RowConstraints;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.Period;
@@ -95,9 +97,9 @@ public class ProfileController {
         if (user != null) {
             profileNameLabel.setText(user.getUsername() != null ? user.getUsername() : "User");
             bioLabel.setText(user.getBio() != null ? user.getBio() : "No bio provided.");
-            byte[] imgData = userDAO.getProfileImage(user.getEmail());
-            if (imgData != null && imgData.length > 0) {
-                profileImageView.setImage(new Image(new ByteArrayInputStream(imgData)));
+            InputStream imgData = userDAO.openProfileImage(user.getEmail());
+            if (imgData != null) {
+                profileImageView.setImage(new Image(imgData));
             } else {
                 setDefaultProfileImage();
             }
@@ -259,8 +261,17 @@ public class ProfileController {
      */
     @FXML
     private void handleLogOut() {
-        Session.clear();
         System.out.println("Logging out...");
+        // Apply pending changes while the session they belong to is still active, without waiting on them here
+        WriteBehindExecutor.getInstance().flushAsync()
+                .whenComplete((flushed, error) -> Platform.runLater(this::showLoginWindow));
+    }
+
+    /**
+     * Ends the session and replaces this window with the login screen.
+     */
+    private void showLoginWindow() {
+        Session.clear();
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/example/cab302project/login-view.fxml"));
             Parent loginRoot = loader.load();
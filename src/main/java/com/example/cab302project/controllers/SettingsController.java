@@ -3,9 +3,11 @@ package com.example.cab302project.controllers;
 import com.example.cab302project.models.IUserDAO;
 import com.example.cab302project.models.SqliteUserDAO;
 import com.example.cab302project.models.User;
+import com.example.cab302project.models.WriteBehindExecutor;
 import com.example.cab302project.services.CalendarImportView;
 import com.example.cab302project.util.Session;
 
+import javafx.application.Platform;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -26,6 +28,8 @@ import java.awt.image.BufferedImage;
 import java.io.*;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Controller for the Settings view of the application.
@@ -97,6 +101,16 @@ public class SettingsController {
     /** DAO for user-related actions (DB access). */
     private final IUserDAO userDAO = new SqliteUserDAO();
 
+    /** Applies database changes off the JavaFX Application Thread. */
+    private final WriteBehindExecutor writes = WriteBehindExecutor.getInstance();
+
+    /** Runs each calendar import on a daemon thread of its own. */
+    private static final Executor IMPORT_THREADS = task -> {
+        Thread thread = new Thread(task, "ics-import");
+        thread.setDaemon(true);
+        thread.start();
+    };
+
     // ================== IMAGE HANDLING =====================
 
     /**
@@ -177,9 +191,8 @@ public class SettingsController {
             bioTextArea.setText(currentUser.getBio() != null ? currentUser.getBio() : "");
 
             // Load profile image from DB and ensure it displays as 400x400
-            byte[] imageData = userDAO.getProfileImage(currentUser.getEmail());
-            if (imageData != null) {
-                InputStream is = new ByteArrayInputStream(imageData);
+            InputStream is = userDAO.openProfileImage(currentUser.getEmail());
+            if (is != null) {
                 Image loaded = new Image(is);
                 Image processed = cropAndResizeImage(loaded, 400, 400);
                 profileImage.setImage(processed);
@@ -287,9 +300,11 @@ public class SettingsController {
             String userEmail = user.getEmail();
 
             // Clear only that user's events
-            SqliteUserDAO sqliteUserDAO = new SqliteUserDAO();
-            sqliteUserDAO.clearEventsByEmail(userEmail);
-            System.out.println("🧹 Events for user " + userEmail + " cleared.");
+            writes.submit(() -> {
+                new SqliteUserDAO().clearEventsByEmail(userEmail);
+                System.out.println("🧹 Events for user " + userEmail + " cleared.");
+                return null;
+            });
 
             FileChooser fileChooser = new FileChooser();
             fileChooser.setTitle("Upload Google Calendar (.ics)");
@@ -299,19 +314,32 @@ public class SettingsController {
             File selectedFile = fileChooser.showOpenDialog(null);
 
             if (selectedFile != null) {
-                try {
-                    System.out.println("📄 Selected file: " + selectedFile.getAbsolutePath());
-
-                    CalendarImportView.importCalendarFile(selectedFile, user.getId());
-
-                    calendarSyncStatusLabel.setText("Google Calendar Synced ✔");
-                    calendarSyncStatusLabel.setStyle("-fx-text-fill: #6A4B8B; -fx-font-size: 14px; -fx-font-style: italic;");
-                    showAlert(Alert.AlertType.INFORMATION, "Calendar Synced", "Google Calendar has been successfully synced!");
-
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    showAlert(Alert.AlertType.ERROR, "Error", "Failed to load calendar file.");
-                }
+                System.out.println("📄 Selected file: " + selectedFile.getAbsolutePath());
+                calendarSyncStatusLabel.setText("Syncing Google Calendar...");
+
+                // The import reads and parses on its own thread and only hands each chunk's commit to the
+                // write-behind executor, so other edits and logout are never stuck behind the whole file
+                CompletableFuture.runAsync(() -> {
+                    try {
+                        CalendarImportView.importCalendarFile(selectedFile, user, writes);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, IMPORT_THREADS).whenComplete((ignored, error) -> Platform.runLater(() -> {
+                    if (!Session.isCurrent(user)) {
+                        // Logged out while the import ran
+                        return;
+                    }
+                    if (error == null) {
+                        calendarSyncStatusLabel.setText("Google Calendar Synced ✔");
+                        calendarSyncStatusLabel.setStyle("-fx-text-fill: #6A4B8B; -fx-font-size: 14px; -fx-font-style: italic;");
+                        showAlert(Alert.AlertType.INFORMATION, "Calendar Synced", "Google Calendar has been successfully synced!");
+                    } else {
+                        error.printStackTrace();
+                        calendarSyncStatusLabel.setText("");
+                        showAlert(Alert.AlertType.ERROR, "Error", "Failed to load calendar file.");
+                    }
+                }));
             } else {
                 System.out.println("⚠️ No file selected.");
             }
@@ -346,15 +374,21 @@ public class SettingsController {
                 // Convert the cropped/resized image to byte array for database storage
                 byte[] imageData = imageToByteArray(processedImage);
 
-                // Save to DB
+                // Save to DB, a newer upload replaces one still waiting to be written
                 User currentUser = Session.getLoggedInUser();
                 if (currentUser != null) {
-                    boolean success = userDAO.updateProfileImage(currentUser.getEmail(), imageData);
-                    if (success) {
-                        showAlert(Alert.AlertType.INFORMATION, "Success", "Profile image updated!");
-                    } else {
-                        showAlert(Alert.AlertType.ERROR, "Error", "Failed to save image.");
-                    }
+                    int userId = currentUser.getId();
+                    writes.submit("profile_image:" + userId, () -> userDAO.updateProfileImage(userId, imageData))
+                            .whenComplete((success, error) -> Platform.runLater(() -> {
+                                if (!Session.isCurrent(currentUser)) {
+                                    return;
+                                }
+                                if (error == null && success) {
+                                    showAlert(Alert.AlertType.INFORMATION, "Success", "Profile image updated!");
+                                } else {
+                                    showAlert(Alert.AlertType.ERROR, "Error", "Failed to save image.");
+                                }
+                            }));
                 }
             } catch (IOException e) {
                 e.printStackTrace();
@@ -373,14 +407,21 @@ public class SettingsController {
         User currentUser = Session.getLoggedInUser();
 
         if (newEmail.contains("@") && currentUser != null) {
-            boolean success = userDAO.updateEmail(currentUser.getEmail(), newEmail);
-            if (success) {
-                currentUser.setEmail(newEmail);
-                Session.setLoggedInUser(currentUser);
-                showAlert(Alert.AlertType.INFORMATION, "Success", "Email updated successfully!");
-            } else {
-                showAlert(Alert.AlertType.ERROR, "Error", "Failed to update email. Try again.");
-            }
+            // Every user mutation targets the id, so edits queued behind this one still find the row
+            int userId = currentUser.getId();
+            writes.submit(() -> userDAO.updateEmail(userId, newEmail))
+                    .whenComplete((success, error) -> Platform.runLater(() -> {
+                        if (!Session.isCurrent(currentUser)) {
+                            // Logged out before the change was written, the session must stay cleared
+                            return;
+                        }
+                        if (error == null && success) {
+                            currentUser.setEmail(newEmail);
+                            showAlert(Alert.AlertType.INFORMATION, "Success", "Email updated successfully!");
+                        } else {
+                            showAlert(Alert.AlertType.ERROR, "Error", "Failed to update email. Try again.");
+                        }
+                    }));
         } else {
             showAlert(Alert.AlertType.WARNING, "Warning", "Please enter a valid email address.");
         }
@@ -396,14 +437,20 @@ public class SettingsController {
         User currentUser = Session.getLoggedInUser();
 
         if (newPassword.length() >= 6 && currentUser != null) {
-            boolean success = userDAO.updatePassword(currentUser.getEmail(), newPassword);
-            if (success) {
-                currentUser.setPassword(newPassword);
-                Session.setLoggedInUser(currentUser);
-                showAlert(Alert.AlertType.INFORMATION, "Success", "Password updated successfully!");
-            } else {
-                showAlert(Alert.AlertType.ERROR, "Error", "Failed to update password. Try again.");
-            }
+            int userId = currentUser.getId();
+            writes.submit("password:" + userId, () -> userDAO.updatePassword(userId, newPassword))
+                    .whenComplete((success, error) -> Platform.runLater(() -> {
+                        if (!Session.isCurrent(currentUser)) {
+                            // Logged out before the change was written, the session must stay cleared
+                            return;
+                        }
+                        if (error == null && success) {
+                            currentUser.setPassword(newPassword);
+                            showAlert(Alert.AlertType.INFORMATION, "Success", "Password updated successfully!");
+                        } else {
+                            showAlert(Alert.AlertType.ERROR, "Error", "Failed to update password. Try again.");
+                        }
+                    }));
         } else {
             showAlert(Alert.AlertType.WARNING, "Warning", "Password must be at least 6 characters.");
         }
@@ -471,8 +518,17 @@ public class SettingsController {
      */
     @FXML
     private void handleLogOut() {
-        Session.clear();
         System.out.println("Logging out...");
+        // Apply pending changes while the session they belong to is still active, without waiting on them here
+        WriteBehindExecutor.getInstance().flushAsync()
+                .whenComplete((flushed, error) -> Platform.runLater(this::showLoginWindow));
+    }
+
+    /**
+     * Ends the session and replaces this window with the login screen.
+     */
+    private void showLoginWindow() {
+        Session.clear();
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/example/cab302project/login-view.fxml"));
             Parent loginRoot = loader.load();
@@ -549,14 +605,19 @@ public class SettingsController {
             }
 
             currentUser.setBio(newBio);
-            boolean success = userDAO.updateBio(currentUser.getEmail(), newBio);
-
-            if (success) {
-                Session.setLoggedInUser(currentUser);
-                showAlert(Alert.AlertType.INFORMATION, "Success", "Bio updated successfully!");
-            } else {
-                showAlert(Alert.AlertType.ERROR, "Error", "Failed to update bio. Try again.");
-            }
+            int userId = currentUser.getId();
+            writes.submit("bio:" + userId, () -> userDAO.updateBio(userId, newBio))
+                    .whenComplete((success, error) -> Platform.runLater(() -> {
+                        if (!Session.isCurrent(currentUser)) {
+                            // Logged out before the change was written, the session must stay cleared
+                            return;
+                        }
+                        if (error == null && success) {
+                            showAlert(Alert.AlertType.INFORMATION, "Success", "Bio updated successfully!");
+                        } else {
+                            showAlert(Alert.AlertType.ERROR, "Error", "Failed to update bio. Try again.");
+                        }
+                    }));
         }
     }
 }
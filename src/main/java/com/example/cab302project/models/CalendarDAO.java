@@ -1,14 +1,19 @@
 package com.example.cab302project.models;
 
+import com.example.cab302project.util.EventTimes;
 import com.example.cab302project.util.Session;
 
 import java.sql.*;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.LocalDate;
 import java.time.Period;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -16,9 +21,21 @@ import java.util.concurrent.TimeUnit;
  * DAO to interact with the database, mostly for retrieving events.
  */
 public class CalendarDAO {
-    private final Connection connection;
     private final String userEmail;
-    private List<Event> events;
+    /**
+     * Events of the window in columnar form, as shared through the {@link EventCache}.
+     */
+    private final EventStore store;
+    /**
+     * Index over the rows of {@link #store}, built once so each calendar slot is a logarithmic lookup instead of a scan.
+     */
+    private final EventIntervalIndex index;
+    /**
+     * Rows of {@link #store} covering day {@code d} of the window are {@code dayRows[dayOffsets[d]]} up to
+     * {@code dayRows[dayOffsets[d + 1]]}, in start order.
+     */
+    private final int[] dayOffsets;
+    private final int[] dayRows;
     private final LocalDateTime startDateTime;
     private final LocalDateTime endDateTime;
 
@@ -34,56 +51,141 @@ public class CalendarDAO {
      * @param interval      Level of detail in time increment
      */
     public CalendarDAO(LocalDate startDate, Period timePeriod, TimeUnit interval) {
-        connection = SqliteConnection.getInstance();
         User currentUser = Session.getLoggedInUser();
         userEmail = currentUser.getEmail();
 
-        this.startDateTime = startDate.atTime(1,0);
+        this.startDateTime = windowStart(startDate);
         endDateTime = startDateTime.plus(timePeriod);
 
-        events = getAllUserEvents();
-        events = filterToTimePeriod();
+        EventStore loaded = loadWindow(userEmail, startDateTime, endDateTime);
+        store = loaded != null ? loaded : EventStore.empty();
+        // Built from the store's time columns, event objects are only created for what a view asks for
+        index = new EventIntervalIndex(store);
+        dayOffsets = new int[windowDays() + 1];
+        dayRows = bucketByDay(dayOffsets);
     }
 
     /**
-     * Iterates list of events, looking for the first event during the date
+     * Looks up the first event starting at the given time.
+     * Both {@code DAYS} and {@code HOURS} match on the exact start time, as the calendar views only ask for slot starts.
      * @param dateTime The date to search for an event
      * @param interval The TimeUnit size of the time interval
      * @return         {@code Event} object containing data of first event occurrence, null otherwise
      */
     public Event getFirstEventForInterval(LocalDateTime dateTime, TimeUnit interval){
-        for (final Event e: events){
-            LocalDateTime eventStartDateTime = e.getStart_Time_LocalDateTime();
-            switch (interval){
-                case DAYS:
-                    if (eventStartDateTime.toLocalDate() == dateTime.toLocalDate()){return e;}
+        switch (interval){
+            case DAYS:
+            case HOURS:
+                return index.firstStartingAt(dateTime);
 
-                case HOURS:
-                    if (dateTime.isEqual(eventStartDateTime)){return e;}
-
-                default:
-                    break;
-            }
+            default:
+                return null;
         }
-        return null;
     }
     public Event getFirstEventForInterval(LocalDate date,int timeHour, TimeUnit interval){
         return getFirstEventForInterval(date.atTime(LocalTime.of((timeHour),0,0)), interval);
     }
 
     /**
-     * Returns list of all events from signed-in user.
+     * Returns list of all events from signed-in user on a day, including events that started on an
+     * earlier day and run into it.
      * @param date  LocalDate Date to retrieve events from
-     * @return
+     * @return      Events on the day ordered by start time, empty if the day is outside this window
      */
     public List<Event> getAllEventsOnDay(LocalDate date){
-        List<Event> eventsOnDay = new ArrayList<>();
-        for (final Event e:events){
-            if (e.getStart_Time_LocalDateTime().toLocalDate().toString().equals(date.toString())){
-                eventsOnDay.add(e);
+        long day = ChronoUnit.DAYS.between(startDateTime.toLocalDate(), date);
+        if (day < 0 || day >= dayOffsets.length - 1) {
+            return Collections.emptyList();
+        }
+        int from = dayOffsets[(int) day];
+        int to = dayOffsets[(int) day + 1];
+        List<Event> events = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            events.add(store.get(dayRows[i]));
+        }
+        return events;
+    }
+
+    /**
+     * @return Number of days the window covers. The window is half-open, so one ending at midnight has no day
+     *         starting then
+     */
+    private int windowDays() {
+        LocalDate firstDay = startDateTime.toLocalDate();
+        LocalDate lastDay = endDateTime.minusNanos(1).toLocalDate();
+        return (int) ChronoUnit.DAYS.between(firstDay, lastDay) + 1;
+    }
+
+    /**
+     * Splits the store's rows into one bucket per day of the window, reading only its time columns. A row is
+     * added to every day it covers within the window, so an event that started before the window or runs past
+     * its end only fills the days the window shows; an event ending exactly at midnight does not cover the day
+     * that starts then.
+     * @param offsets   Filled with where each day's rows begin, one entry per day plus one
+     * @return          Rows of every day, day after day, each day ordered by start time
+     */
+    private int[] bucketByDay(int[] offsets) {
+        int days = offsets.length - 1;
+        long firstDay = EventTimes.toEpochSecond(startDateTime.toLocalDate().atStartOfDay());
+        long daySeconds = TimeUnit.DAYS.toSeconds(1);
+        int[] firstDays = new int[store.size()];
+        int[] lastDays = new int[store.size()];
+        int[] counts = new int[days];
+        EventStore.Cursor cursor = store.cursor();
+        while (cursor.next()) {
+            long start = cursor.startEpoch();
+            long end = cursor.endEpoch();
+            long lastCovered = end > start ? end - 1 : start;
+            // Clip to the window, as overlapping events can start before it and end after it
+            int row = cursor.row();
+            firstDays[row] = (int) Math.min(days, Math.max(0, Math.floorDiv(start - firstDay, daySeconds)));
+            lastDays[row] = (int) Math.max(-1, Math.min(days - 1, Math.floorDiv(lastCovered - firstDay, daySeconds)));
+            for (int day = firstDays[row]; day <= lastDays[row]; day++) {
+                counts[day]++;
+            }
+        }
+        for (int day = 0; day < days; day++) {
+            offsets[day + 1] = offsets[day] + counts[day];
+        }
+        int[] rows = new int[offsets[days]];
+        int[] filled = Arrays.copyOf(offsets, days);
+        for (int row = 0; row < store.size(); row++) {
+            for (int day = firstDays[row]; day <= lastDays[row]; day++) {
+                rows[filled[day]++] = row;
             }
         }
-        return eventsOnDay;
+        return rows;
+    }
+
+    /**
+     * Returns the window's events in columnar form, for walking many events with a cursor
+     * without creating an {@code Event} for each.
+     * @return  Events of the window, ordered by start time
+     */
+    public EventStore getEventStore(){
+        return store;
+    }
+
+    /**
+     * Returns the events overlapping a slot of the calendar, such as one hour of the week view.
+     * @param from  Start of the slot, inclusive
+     * @param to    End of the slot, exclusive
+     * @return      Events overlapping the slot, ordered by start time
+     */
+    public List<Event> getEventsIntersecting(LocalDateTime from, LocalDateTime to){
+        return index.intersecting(from, to);
+    }
+
+    /**
+     * Works out which events overlap each slot of a grid in one pass over the window, for views that show
+     * every slot, such as the hours of the week view.
+     * @param firstSlot     Start of the first slot
+     * @param slotLength    Length of every slot
+     * @param slotCount     Number of slots
+     * @return              Events overlapping each slot
+     */
+    public SlotOccupancy getSlotOccupancy(LocalDateTime firstSlot, Duration slotLength, int slotCount){
+        return new SlotOccupancy(store, firstSlot, slotLength, slotCount);
     }
 
     /**
@@ -96,33 +198,7 @@ public class CalendarDAO {
     }
 
     public List<Event> getCurrentEvents(LocalDateTime currentTime){
-        List<Event> cEvents = new ArrayList<>();
-        for (Event e : events){
-
-           if (e.IsEventInProgress(currentTime)){
-               cEvents.add(e);
-           }
-        }
-        return cEvents;
-    }
-
-    /**
-     * Filters {@code event} class field list based on parameters set in constructor
-     * @return a {@code List<Event>} of {@code Event} objects between start and end dates
-     */
-    private List<Event> filterToTimePeriod(){
-        List<Event> eventsFiltered = new ArrayList<>();
-        for (final Event e : events){
-            //Checks that event either starts or is during the time period, then does the same for the end time
-            if (
-                    (e.getStart_Time_LocalDateTime().isAfter(startDateTime) || e.getStart_Time_LocalDateTime().isEqual(startDateTime)) &&
-                    (e.getEnd_Time_LocalDateTime().isBefore(endDateTime) || e.getEnd_Time_LocalDateTime().isEqual(endDateTime))
-                )
-            {
-                eventsFiltered.add(e);
-            }
-        }
-        return eventsFiltered;
+        return index.containing(currentTime);
     }
 
     /**
@@ -136,34 +212,89 @@ public class CalendarDAO {
     }
 
     /**
-     * @return a {@code List<Event>} for the currently logged-in user
+     * @param startDate First date shown by a view
+     * @return          Start of the window loaded for that view, midnight of that date so the window lines up with
+     *                  the first slot of the week and day grids
      */
-    private List<Event> getAllUserEvents() {
-        List<Event> events = new ArrayList<>();
+    private static LocalDateTime windowStart(LocalDate startDate) {
+        return startDate.atStartOfDay();
+    }
+
+    /**
+     * Loads a user's events for a window through the shared {@link EventCache}, so views showing the same window,
+     * such as the week view drawn again after a page switch, share one load.
+     * @return the window's events, or null if the query failed
+     */
+    private static EventStore loadWindow(String email, LocalDateTime start, LocalDateTime end) {
+        return EventCache.getInstance().get(email, start, end, () -> getUserEventsInPeriod(email, start, end));
+    }
 
+    /**
+     * Loads the window a view starting at {@code startDate} would show into the event cache, unless it is already cached.
+     * Used by {@link EventPrefetcher} to load adjacent windows off the JavaFX Application Thread.
+     * @param email         Email of the user whose events are loaded
+     * @param startDate     Date which is the first one shown by the view
+     * @param timePeriod    Length of time of events the view displays
+     */
+    static void prefetchWindow(String email, LocalDate startDate, Period timePeriod) {
+        LocalDateTime start = windowStart(startDate);
+        LocalDateTime end = start.plus(timePeriod);
+        if (!EventCache.getInstance().contains(email, start, end)) {
+            loadWindow(email, start, end);
+        }
+    }
 
-        String query = "SELECT e.name, e.start_time, e.end_time, u.username " +
-                "FROM events e JOIN users u ON e.user_email = u.email " +
-                "WHERE e.user_email = ?";
+    /**
+     * Loads a user's events that overlap a time period, including those that start before it or end after it.
+     * The period is half-open, so an event ending exactly at its start or starting exactly at its end is left out;
+     * an event with no length is loaded if it starts within the period.
+     * It is matched with a range scan on the events index: no event starts earlier than the period's start less
+     * the user's longest event, so only rows near the period are read.
+     * @param email         Email of the user whose events are loaded
+     * @param startDateTime Start of the period, inclusive
+     * @param endDateTime   End of the period, exclusive
+     * @return an {@code EventStore} of the events overlapping the period, ordered by start time,
+     *         or null if the query failed
+     */
+    private static EventStore getUserEventsInPeriod(String email, LocalDateTime startDateTime, LocalDateTime endDateTime) {
+        EventStore.Builder events = new EventStore.Builder();
+        long periodStart = EventTimes.toEpochSecond(startDateTime);
+        long periodEnd = EventTimes.toEpochSecond(endDateTime);
 
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
-            stmt.setString(1, userEmail);
-            ResultSet resultSet = stmt.executeQuery();
+        // start_epoch is bounded on both sides so the lookup stays a range scan on (user_id, start_epoch)
+        String query = "SELECT e.title_id, t.title AS name, e.start_epoch, e.end_epoch, u.username " +
+                "FROM events e JOIN users u ON e.user_id = u.id JOIN event_titles t ON t.id = e.title_id " +
+                "WHERE u.email = ? AND e.start_epoch >= ? - u.longest_event_seconds AND e.start_epoch < ? " +
+                "AND (e.end_epoch > ? OR e.start_epoch >= ?) ORDER BY e.start_epoch";
+        StringPool titles = EventCache.getInstance().titles();
 
-            while (resultSet.next()) {
-                String name = resultSet.getString("name");
-                String startTime = resultSet.getString("start_time");
-                String endTime = resultSet.getString("end_time");
-                String username = resultSet.getString("username");
+        try (SqliteConnection.ReadLease lease = SqliteConnection.borrowReader();
+             StatementCache.CachedStatement cached = StatementCache.prepare(lease.connection(), query)) {
+            PreparedStatement stmt = cached.statement();
+            stmt.setString(1, email);
+            stmt.setLong(2, periodStart);
+            stmt.setLong(3, periodEnd);
+            stmt.setLong(4, periodStart);
+            stmt.setLong(5, periodStart);
 
-                Event event = new Event(name, startTime, endTime, username);
-                events.add(event);
+            try (ResultSet resultSet = stmt.executeQuery()) {
+                String username = null;
+                while (resultSet.next()) {
+                    if (username == null) {
+                        // Every row belongs to the same user
+                        username = resultSet.getString("username");
+                    }
+                    // The epoch columns are already parsed and, being range-matched, never null
+                    events.add(SchemaMigrator.getTitle(resultSet, titles), resultSet.getLong("start_epoch"),
+                            resultSet.getLong("end_epoch"), username);
+                }
             }
         } catch (SQLException e) {
-            System.err.println("Error retrieving events by email and date: " + e.getMessage());
+            System.err.println("Error retrieving events for time period: " + e.getMessage());
+            return null;
         }
 
-        return events;
+        return events.build();
     }
 
     /**
@@ -172,9 +303,11 @@ public class CalendarDAO {
     private List<Event> getAllEvents() {
         List<Event> events = new ArrayList<>();
 
-        String query = "SELECT * FROM events";
+        String query = "SELECT t.title AS name, e.start_time, e.end_time FROM events e "
+                + "JOIN event_titles t ON t.id = e.title_id";
 
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (SqliteConnection.ReadLease lease = SqliteConnection.borrowReader();
+             PreparedStatement stmt = lease.connection().prepareStatement(query)) {
             ResultSet resultSet = stmt.executeQuery();
 
             while (resultSet.next()) {
@@ -196,7 +329,7 @@ public class CalendarDAO {
      */
     private void ClearEvents() {
         String query = "DELETE * FROM events";
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (PreparedStatement stmt = SqliteConnection.getInstance().prepareStatement(query)) {
             stmt.executeQuery();
         } catch (SQLException e) {
             System.err.println("Error retrieving all events: " + e.getMessage());
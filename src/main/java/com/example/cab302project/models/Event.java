@@ -1,149 +1,191 @@
 package com.example.cab302project.models;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.time.LocalDate;
+import com.example.cab302project.util.EventTimes;
+import com.example.cab302project.util.IcsDateParser;
+
+import java.text.ParsePosition;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
-import java.util.Date;
 
 /**
  * Represents an event with a name, start and end times, and the associated user.
- * This class includes functionality to store time strings and parse them into
- * a standard human-readable format when requested.
+ * Events are immutable: the time strings are parsed once when the event is created, together with their
+ * epoch seconds, and the string accessors only format the parsed times for display.
  */
-public class Event {
+public final class Event {
+    /**
+     * Text returned by the string time accessors when the time could not be parsed.
+     */
+    public static final String INVALID_DATE = "Invalid Date";
+
+    /**
+     * Returned by the epoch accessors when the time could not be parsed.
+     */
+    public static final long NO_TIME = Long.MIN_VALUE;
+
     /**
      * The name of the event.
      */
-    private String name;
+    private final String name;
     /**
-     * The start time of the event as a raw string.
+     * The start time of the event, null if it could not be parsed.
      */
-    private String start_time;
+    private final LocalDateTime start;
     /**
-     * The end time of the event as a raw string.
+     * The end time of the event, null if it could not be parsed.
      */
-    private String end_time;
+    private final LocalDateTime end;
     /**
-     * The username of the user associated with this event.
+     * The start time as epoch seconds, {@link #NO_TIME} if it could not be parsed.
      */
-    private String username;
-
+    private final long startEpoch;
     /**
-     * Date format for use by parsers
+     * The end time as epoch seconds, {@link #NO_TIME} if it could not be parsed.
      */
-    final private DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm:ss");
-
+    private final long endEpoch;
+    /**
+     * The username of the user associated with this event.
+     */
+    private final String username;
 
     /**
      * Constructs a new Event object.
+     * Times may be in the stored "MM/dd/yyyy HH:mm:ss" format or any ICS form read by {@link IcsDateParser},
+     * which converts them to the wall-clock time of {@link IcsDateParser#DISPLAY_ZONE}.
      * @param name The name of the event.
      * @param start_time The start time of the event as a string.
      * @param end_time The end time of the event as a string.
      * @param username The username associated with the event.
      */
     public Event(String name, String start_time, String end_time, String username) {
+        this(name, parseTime(start_time), parseTime(end_time), username);
+    }
+
+    /**
+     * Constructs a new Event object from already parsed times, as read from the epoch columns of the events table.
+     * @param name The name of the event.
+     * @param start The start time of the event, null if unknown.
+     * @param end The end time of the event, null if unknown.
+     * @param username The username associated with the event.
+     */
+    public Event(String name, LocalDateTime start, LocalDateTime end, String username) {
         this.name = name;
-        this.start_time = start_time;
-        this.end_time = end_time;
+        this.start = start;
+        this.end = end;
+        this.startEpoch = start != null ? EventTimes.toEpochSecond(start) : NO_TIME;
+        this.endEpoch = end != null ? EventTimes.toEpochSecond(end) : NO_TIME;
         this.username = username;
     }
 
     /**
-     * Parse date string into a standardized "MM/dd/yyyy HH:mm:ss" string.
-     * If the initial parsing ("MM/dd/yyyy HH:mm:ss") fails, it attempts to parse
-     * using the "yyyyMMdd'T'HHmmss" format, and *adds 10 hours* to the result to account for timezones.
+     * Parse date string in the stored "MM/dd/yyyy HH:mm:ss" format, or otherwise as an ICS date or date-time,
+     * converted to the display zone. Text after a stored time is ignored.
      * @param dateString The date string to parse.
-     * @return A formatted date string ("MM/dd/yyyy HH:mm:ss"), or "Invalid Date" or "Error"
-     * if parsing fails.
+     * @return The parsed time, or null if parsing fails.
      */
-    private String parseIcsDate(String dateString) {
-        try {
-            // Attempt to parse using the expected output format first
-            SimpleDateFormat inputFormat = new SimpleDateFormat("MM/dd/yyyy HH:mm:ss");
-            Date date = inputFormat.parse(dateString);
-
-            SimpleDateFormat outputFormat = new SimpleDateFormat("MM/dd/yyyy HH:mm:ss");
-
-            return outputFormat.format(date);
-
-        } catch (ParseException e) {
-            // If initial parsing fails, try the ICS format and add 10 hours
-            try {
-                SimpleDateFormat inputFormat = new SimpleDateFormat("yyyyMMdd'T'HHmmss");
-                Date date = inputFormat.parse(dateString);
-                // Note: Adding 10 hours might be specific to a timezone offset or data source issue.
-                // This behavior is documented as per the code provided.
-                date.setHours(date.getHours() + 10);
-
-                SimpleDateFormat outputFormat = new SimpleDateFormat("MM/dd/yyyy HH:mm:ss");
-                return outputFormat.format(date);
-
-            } catch (ParseException f) {
-                // Handle the second parsing failure
-                System.err.println("Error parsing date with ICS format: " + dateString);
-                e.printStackTrace(); // Print stack trace for debugging
-                return "Invalid Date"; // Indicate parsing failure
+    private static LocalDateTime parseTime(String dateString) {
+        if (dateString == null) {
+            return null;
+        }
+        // Stored times start "MM/", ICS values with digits, so each string is only parsed one way
+        if (dateString.length() > 2 && dateString.charAt(2) == '/') {
+            LocalDateTime stored = parsePrefix(dateString, EventTimes.FORMAT);
+            if (stored != null) {
+                return stored;
+            }
+        } else {
+            LocalDateTime ics = IcsDateParser.getDefault().parseLocalDateTime(dateString);
+            if (ics != null) {
+                return ics;
             }
-        } catch (Exception e) {
-            // Catch any other unexpected errors during parsing
-            System.err.println("Unexpected error parsing date: " + dateString);
-            e.printStackTrace(); // Print stack trace for debugging
-            return "Error"; // Indicate unexpected error
         }
+        System.err.println("Error parsing date: " + dateString);
+        return null;
     }
 
     /**
-     * Gets the name of the event.
-     * @return The event name.
+     * @param text      Text starting with a time
+     * @param format    Format of the time
+     * @return          The time at the start of the text, or null if it does not start with one
      */
-    public String getName() {
-        return name;
+    private static LocalDateTime parsePrefix(String text, DateTimeFormatter format) {
+        try {
+            return LocalDateTime.from(format.parse(text, new ParsePosition(0)));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param time  Parsed time, may be null
+     * @return      The time formatted as "MM/dd/yyyy HH:mm:ss", or {@link #INVALID_DATE}
+     */
+    private static String format(LocalDateTime time) {
+        return time != null ? time.format(EventTimes.FORMAT) : INVALID_DATE;
     }
 
     /**
-     * Parses date, as a string, to <Code>LocalDateTime</Code>, using pattern defined in this class.
-     * @param dateString    String containing date and time
-     * @return              LocalDateTime value of input
+     * Gets the name of the event.
+     * @return The event name.
      */
-    private LocalDateTime parseToLocalDateTime(String dateString){
-        return LocalDateTime.parse(dateString,dateFormat);
+    public String getName() {
+        return name;
     }
 
     /**
-     * Gets the start time of the event, parsed and formatted into "MM/dd/yyyy HH:mm:ss".
-     * by using the parseICSdate method
-     * @return The formatted start time string, or an error string if parsing fails.
+     * Gets the start time of the event, formatted as "MM/dd/yyyy HH:mm:ss" for display.
+     * @return The formatted start time string, or "Invalid Date" if parsing failed.
      */
     public String getStart_time() {
-        return parseIcsDate(start_time); // Parse the start time to readable format for ollama
+        return format(start); // Readable format for ollama
     }
 
     /**
-     * Gets the end time of the event, parsed and formatted into "MM/dd/yyyy HH:mm:ss".
-     * Using parseICSdate method
-     * @return The formatted end time string, or an error string if parsing fails.
+     * Gets the end time of the event, formatted as "MM/dd/yyyy HH:mm:ss" for display.
+     * @return The formatted end time string, or "Invalid Date" if parsing failed.
      */
     public String getEnd_time() {
-        return parseIcsDate(end_time); // Parse the end time to readable format for ollama
+        return format(end); // Readable format for ollama
     }
 
     /**
      * Gets the start time of event, with LocalDateTime Type
-     * @return Start Time of Event
+     * @return Start Time of Event, or null if it could not be parsed
      */
     public LocalDateTime getStart_Time_LocalDateTime(){
-        return parseToLocalDateTime(start_time);
+        return start;
     }
 
     /**
      * Gets the end time of event, with LocalDateTime Type
-     * @return End Time of Event
+     * @return End Time of Event, or null if it could not be parsed
      */
     public LocalDateTime getEnd_Time_LocalDateTime(){
-        return parseToLocalDateTime(end_time);
+        return end;
+    }
+
+    /**
+     * Gets the start time as epoch seconds, in the form stored in the events table.
+     * @return Start of the event, or {@link #NO_TIME} if it could not be parsed
+     */
+    public long getStartEpochSecond() {
+        return startEpoch;
+    }
+
+    /**
+     * Gets the end time as epoch seconds, in the form stored in the events table.
+     * @return End of the event, or {@link #NO_TIME} if it could not be parsed
+     */
+    public long getEndEpochSecond() {
+        return endEpoch;
+    }
+
+    /**
+     * @return true if both the start and end time could be parsed
+     */
+    public boolean hasTimes() {
+        return start != null && end != null;
     }
 
     /**
@@ -157,11 +199,10 @@ public class Event {
     /**
      *
      * @param currentTime Time to compare to event
-     * @return            true if currentTime is between the startTime and endTime
+     * @return            true if currentTime is between the startTime and endTime, false if either could not be parsed
      */
     public boolean IsEventInProgress(LocalDateTime currentTime){
-        return  (currentTime.isAfter(getStart_Time_LocalDateTime())
-                && currentTime.isBefore(getEnd_Time_LocalDateTime()) || currentTime.isEqual(getEnd_Time_LocalDateTime()))
-                || currentTime.isEqual(getStart_Time_LocalDateTime());
+        return start != null && end != null
+                && !currentTime.isBefore(start) && !currentTime.isAfter(end);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,300 @@
+package com.example.cab302project.models;
+
+import com.example.cab302project.util.EventTimes;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Application-wide cache of the events loaded for calendar windows, so switching between views and pages
+ * that show the same time range does not query the database again.
+ * Windows are held as compact {@link EventStore}s, so keeping many of them costs little heap, and event titles
+ * are canonicalised through {@link #titles()} so every window shares one copy of each title.
+ * <p>
+ * Windows are keyed by the user's email and the exact range loaded, and the least recently used window is
+ * dropped once more than {@link #DEFAULT_CAPACITY} are cached. The shared cache listens on the {@link EventChangeBus}:
+ * a single added event is patched into the windows that hold its range, other changes drop only the windows they
+ * overlap. A load that overlaps a change is returned to its caller but not cached, so a slow read can never put
+ * stale events back.
+ */
+public class EventCache implements EventChangeBus.Listener {
+
+    /**
+     * Maximum number of windows kept.
+     */
+    public static final int DEFAULT_CAPACITY = 32;
+
+    private static EventCache instance = null;
+
+    private final int capacity;
+    private final LinkedHashMap<Key, EventStore> windows;
+    private final StringPool titles = new StringPool();
+    /**
+     * Incremented by every invalidation; loads only cache their result if it did not change while they ran.
+     */
+    private long generation = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long invalidations = 0;
+    private long patches = 0;
+
+    /**
+     * Creates a cache. Most callers should use {@link #getInstance()}.
+     * @param capacity Maximum number of windows to keep
+     */
+    public EventCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Event cache capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.windows = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, EventStore> eldest) {
+                if (size() <= EventCache.this.capacity) {
+                    return false;
+                }
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * @return The cache shared by every view, created on first use
+     */
+    public static synchronized EventCache getInstance() {
+        if (instance == null) {
+            instance = new EventCache(DEFAULT_CAPACITY);
+            // The static field keeps the cache reachable for the weakly held subscription
+            EventChangeBus.getInstance().subscribe(instance);
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the cached events of a window, loading and caching them on a miss.
+     * The loader runs without holding the cache lock, so other views are not blocked by the query.
+     * @param email     Email of the user whose events are loaded
+     * @param from      Start of the window
+     * @param to        End of the window
+     * @param loader    Loads the window from the database, returning null if the load failed
+     * @return          The window's events, or null if the load failed
+     */
+    public EventStore get(String email, LocalDateTime from, LocalDateTime to, Supplier<EventStore> loader) {
+        Key key = new Key(email, from, to);
+        long loadGeneration;
+        synchronized (this) {
+            EventStore cached = windows.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+
+        EventStore loaded = loader.get();
+        if (loaded == null) {
+            // Failed loads are not cached so the next view retries
+            return null;
+        }
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                windows.put(key, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Checks for a window without counting a lookup or marking it as recently used.
+     * @param email Email of the user
+     * @param from  Start of the window
+     * @param to    End of the window
+     * @return      True if the window is cached
+     */
+    public synchronized boolean contains(String email, LocalDateTime from, LocalDateTime to) {
+        return windows.containsKey(new Key(email, from, to));
+    }
+
+    /**
+     * Drops every cached window of a user. Called after their events change.
+     * @param email Email of the user, or null to drop every window
+     */
+    public synchronized void invalidateUser(String email) {
+        if (email == null) {
+            invalidateAll();
+            return;
+        }
+        generation++;
+        invalidations++;
+        windows.keySet().removeIf(key -> key.email.equals(email));
+    }
+
+    /**
+     * Brings cached windows up to date with a change. An added event is inserted into the windows of its owner
+     * that would have loaded it, leaving the rest of the cache as it was; other changes drop the windows they overlap.
+     * @param change The published change
+     */
+    @Override
+    public synchronized void onEventChange(EventChange change) {
+        if (change.getEmail() == null) {
+            invalidateAll();
+            return;
+        }
+        // Loads already running may or may not include the change, so none of them are cached
+        generation++;
+        invalidations++;
+        if (change instanceof EventChange.EventAdded) {
+            patchAdded(change.getEmail(), ((EventChange.EventAdded) change).getEvent());
+        } else {
+            windows.keySet().removeIf(key -> change.affects(key.email, key.from, key.to));
+        }
+    }
+
+    /**
+     * Adds an event to each window of its owner whose load query would return it.
+     */
+    private void patchAdded(String email, Event event) {
+        if (!event.hasTimes()) {
+            // Windows only hold events with both times, so none would have loaded it
+            return;
+        }
+        long start = event.getStartEpochSecond();
+        long end = event.getEndEpochSecond();
+        Iterator<Map.Entry<Key, EventStore>> it = windows.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, EventStore> entry = it.next();
+            Key key = entry.getKey();
+            long from = EventTimes.toEpochSecond(key.from);
+            long to = EventTimes.toEpochSecond(key.to);
+            // The same condition the window query uses: overlapping the half-open window, or starting in it
+            if (!key.email.equals(email) || start >= to || (end <= from && start < from)) {
+                continue;
+            }
+            EventStore store = entry.getValue();
+            if (store.size() == 0) {
+                // The window has no row naming its owner, so it is loaded again instead
+                it.remove();
+                continue;
+            }
+            EventStore.Cursor first = store.cursor();
+            first.next();
+            entry.setValue(store.withAdded(event.getName(), start, end, first.owner()));
+            patches++;
+        }
+    }
+
+    /**
+     * Drops every cached window and pooled title. Called when the database is replaced.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidations++;
+        windows.clear();
+        titles.clear();
+    }
+
+    /**
+     * Title ids are never reused, so pooled titles stay valid when windows are invalidated; only replacing the
+     * database clears them.
+     * @return Pool of event titles keyed by their id in event_titles
+     */
+    public StringPool titles() {
+        return titles;
+    }
+
+    /**
+     * @return Number of windows served from memory
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return Number of windows that had to be loaded
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return Fraction of lookups served from memory, 0 before the first lookup
+     */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * @return Number of windows dropped to stay within capacity
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return Number of invalidation calls
+     */
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * @return Number of cached windows updated in place after an event was added
+     */
+    public synchronized long getPatches() {
+        return patches;
+    }
+
+    /**
+     * @return Number of windows currently cached
+     */
+    public synchronized int size() {
+        return windows.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "EventCache [size=" + windows.size() + ", hits=" + hits + ", misses=" + misses
+                + ", evictions=" + evictions + ", invalidations=" + invalidations + ", patches=" + patches
+                + ", titles=" + titles + "]";
+    }
+
+    /**
+     * A user and the exact range of a window.
+     */
+    private static final class Key {
+        private final String email;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+
+        private Key(String email, LocalDateTime from, LocalDateTime to) {
+            this.email = email;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return email.equals(other.email) && from.equals(other.from) && to.equals(other.to);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(email, from, to);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.cab302project.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * A change to the stored events, published on the {@link EventChangeBus} by SqliteUserDAO after it writes.
+ * <p>
+ * Each change names the user whose events changed and the time range they changed in, so subscribers such as the
+ * {@link EventCache} and open calendar views can update only the windows and cells the change touches.
+ * The subclasses say what happened; subscribers that cannot patch a kind of change treat it as "reload the range".
+ */
+public abstract class EventChange {
+    private final String email;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+
+    /**
+     * @param email Email of the user whose events changed, or null if any user's may have
+     * @param from  Earliest time affected, or null if unbounded
+     * @param to    Latest time affected, or null if unbounded
+     */
+    protected EventChange(String email, LocalDateTime from, LocalDateTime to) {
+        this.email = email;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * @return Email of the user whose events changed, or null if any user's may have
+     */
+    public String getEmail() {
+        return email;
+    }
+
+    /**
+     * @return Earliest time affected, or null if unbounded
+     */
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    /**
+     * @return Latest time affected, or null if unbounded
+     */
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    /**
+     * Checks whether a user's view of a time range could be out of date after this change.
+     * @param email         Email of the user shown
+     * @param windowFrom    Start of the range shown
+     * @param windowTo      End of the range shown
+     * @return              True if the change is for that user, or any user, and overlaps the range
+     */
+    public boolean affects(String email, LocalDateTime windowFrom, LocalDateTime windowTo) {
+        if (this.email != null && !this.email.equals(email)) {
+            return false;
+        }
+        return (from == null || !from.isAfter(windowTo)) && (to == null || !to.isBefore(windowFrom));
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " [email=" + email + ", from=" + from + ", to=" + to + "]";
+    }
+
+    /**
+     * A single event was added.
+     */
+    public static final class EventAdded extends EventChange {
+        private final Event event;
+
+        /**
+         * @param email Email of the event's owner
+         * @param event The event as stored
+         */
+        public EventAdded(String email, Event event) {
+            super(email, event.getStart_Time_LocalDateTime(), event.getEnd_Time_LocalDateTime());
+            this.event = event;
+        }
+
+        /**
+         * @return The event as stored
+         */
+        public Event getEvent() {
+            return event;
+        }
+    }
+
+    /**
+     * Events of a user in a time range were deleted.
+     */
+    public static final class EventRemoved extends EventChange {
+        /**
+         * @param email Email of the user
+         * @param from  Earliest time affected, or null if unbounded
+         * @param to    Latest time affected, or null if unbounded
+         */
+        public EventRemoved(String email, LocalDateTime from, LocalDateTime to) {
+            super(email, from, to);
+        }
+    }
+
+    /**
+     * A user's events changed in a way the other changes do not describe, such as their email changing,
+     * so every window of theirs must be reloaded.
+     */
+    public static final class EventChanged extends EventChange {
+        /**
+         * @param email Email of the user, or null if any user's events may have changed
+         */
+        public EventChanged(String email) {
+            super(email, null, null);
+        }
+    }
+
+    /**
+     * Many events were added at once, such as by a calendar import.
+     */
+    public static final class BulkImported extends EventChange {
+        private final int count;
+
+        /**
+         * @param email Email of the events' owner
+         * @param count Number of events added
+         * @param from  Earliest start among them
+         * @param to    Latest end among them
+         */
+        public BulkImported(String email, int count, LocalDateTime from, LocalDateTime to) {
+            super(email, from, to);
+            this.count = count;
+        }
+
+        /**
+         * @return Number of events added
+         */
+        public int getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.cab302project.models;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Delivers {@link EventChange}s from the DAO write paths to whatever holds a copy of the events:
+ * the {@link EventCache} and the calendar views on screen.
+ * <p>
+ * Listeners are held weakly, so a view's controller that is dropped when the user switches page stops receiving
+ * changes without having to unsubscribe. The subscriber must keep its own reference to the listener, a lambda
+ * passed straight to {@link #subscribe(Listener)} would be collected at once. Changes are delivered on the thread
+ * that published them, after the write; listeners that touch the UI hand the work to the JavaFX Application Thread.
+ */
+public class EventChangeBus {
+
+    /**
+     * Receives published changes.
+     */
+    public interface Listener {
+        /**
+         * @param change The change, delivered after it was written
+         */
+        void onEventChange(EventChange change);
+    }
+
+    private static EventChangeBus instance = null;
+
+    private final List<WeakReference<Listener>> listeners = new ArrayList<>();
+    private long published = 0;
+
+    /**
+     * @return The bus shared by every DAO and view, created on first use
+     */
+    public static synchronized EventChangeBus getInstance() {
+        if (instance == null) {
+            instance = new EventChangeBus();
+        }
+        return instance;
+    }
+
+    /**
+     * Starts delivering changes to a listener until it is unsubscribed or collected.
+     * @param listener Listener, which the caller must keep reachable
+     */
+    public synchronized void subscribe(Listener listener) {
+        listeners.add(new WeakReference<>(listener));
+    }
+
+    /**
+     * Stops delivering changes to a listener.
+     * @param listener A subscribed listener
+     */
+    public synchronized void unsubscribe(Listener listener) {
+        listeners.removeIf(ref -> {
+            Listener l = ref.get();
+            return l == null || l == listener;
+        });
+    }
+
+    /**
+     * Delivers a change to every live listener. A listener that throws is reported and skipped,
+     * so a broken view cannot fail the write that published the change.
+     * @param change The change
+     */
+    public void publish(EventChange change) {
+        List<Listener> live = new ArrayList<>();
+        synchronized (this) {
+            published++;
+            Iterator<WeakReference<Listener>> it = listeners.iterator();
+            while (it.hasNext()) {
+                Listener l = it.next().get();
+                if (l == null) {
+                    it.remove();
+                } else {
+                    live.add(l);
+                }
+            }
+        }
+        // Delivered outside the lock, so listeners may publish or subscribe themselves
+        for (Listener l : live) {
+            try {
+                l.onEventChange(change);
+            } catch (RuntimeException e) {
+                System.err.println("Event change listener failed on " + change + ": " + e);
+            }
+        }
+    }
+
+    /**
+     * @return Number of changes published
+     */
+    public synchronized long getPublishedCount() {
+        return published;
+    }
+
+    /**
+     * @return Number of listeners that have not been collected
+     */
+    public synchronized int getListenerCount() {
+        int count = 0;
+        for (WeakReference<Listener> ref : listeners) {
+            if (ref.get() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
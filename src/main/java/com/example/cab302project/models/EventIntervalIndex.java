@@ -0,0 +1,213 @@
+package com.example.cab302project.models;
+
+import com.example.cab302project.util.EventTimes;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Read-only index over the events of one calendar window, built once when the window is loaded.
+ * <p>
+ * Events are kept sorted by start time, which makes start-time lookups a binary search. The sorted array
+ * doubles as an implicit balanced tree (each range is rooted at its midpoint) where every node also stores
+ * the latest end time in its subtree, so overlap queries skip whole subtrees that end too early or start
+ * too late and run in O(log n + k) for k matching events.
+ * Events whose times could not be parsed have no place on the timeline and are left out.
+ * An index built from an {@link EventStore} reads only its time columns and creates an {@link Event} for a row
+ * when a query returns it.
+ */
+public final class EventIntervalIndex {
+    /**
+     * Indexed events, ordered by start time. Events with equal starts keep the order they were given in.
+     * Null when the index was built from {@link #store}.
+     */
+    private final Event[] events;
+    /**
+     * Store whose rows are indexed, null when the index was built from {@link #events}.
+     */
+    private final EventStore store;
+    /**
+     * Start of each event as epoch seconds, in index order.
+     */
+    private final long[] starts;
+    /**
+     * End of each event as epoch seconds, in index order.
+     */
+    private final long[] ends;
+    /**
+     * Latest end among the events of the subtree rooted at each index.
+     */
+    private final long[] subtreeMaxEnd;
+
+    /**
+     * Builds the index.
+     * @param events Events of the window, in any order
+     */
+    public EventIntervalIndex(List<Event> events) {
+        List<Event> timed = new ArrayList<>(events.size());
+        for (Event e : events) {
+            if (e.hasTimes()) {
+                timed.add(e);
+            }
+        }
+        // List.sort is stable, so ties keep the order of the list the DAO loaded
+        timed.sort(Comparator.comparingLong(Event::getStartEpochSecond));
+
+        int n = timed.size();
+        this.events = timed.toArray(new Event[0]);
+        this.store = null;
+        this.starts = new long[n];
+        this.ends = new long[n];
+        for (int i = 0; i < n; i++) {
+            starts[i] = this.events[i].getStartEpochSecond();
+            ends[i] = this.events[i].getEndEpochSecond();
+        }
+        this.subtreeMaxEnd = new long[n];
+        buildMaxEnd(0, n);
+    }
+
+    /**
+     * Builds the index over the rows of a store, which are already ordered by start time.
+     * @param store Events of the window
+     */
+    public EventIntervalIndex(EventStore store) {
+        int n = store.size();
+        this.events = null;
+        this.store = store;
+        this.starts = new long[n];
+        this.ends = new long[n];
+        EventStore.Cursor cursor = store.cursor();
+        for (int i = 0; cursor.next(); i++) {
+            starts[i] = cursor.startEpoch();
+            ends[i] = cursor.endEpoch();
+        }
+        this.subtreeMaxEnd = new long[n];
+        buildMaxEnd(0, n);
+    }
+
+    /**
+     * @param i Position in index order
+     * @return  The event at that position, created from the store row if the index was built from one
+     */
+    private Event event(int i) {
+        return events != null ? events[i] : store.get(i);
+    }
+
+    /**
+     * Fills {@link #subtreeMaxEnd} for the subtree covering [lo, hi).
+     * @return Latest end in the range, or Long.MIN_VALUE if it is empty
+     */
+    private long buildMaxEnd(int lo, int hi) {
+        if (lo >= hi) {
+            return Long.MIN_VALUE;
+        }
+        int mid = (lo + hi) >>> 1;
+        long max = Math.max(ends[mid], Math.max(buildMaxEnd(lo, mid), buildMaxEnd(mid + 1, hi)));
+        subtreeMaxEnd[mid] = max;
+        return max;
+    }
+
+    /**
+     * @return Number of indexed events
+     */
+    public int size() {
+        return starts.length;
+    }
+
+    /**
+     * @param time  Start time to look for
+     * @return      The first event starting exactly at {@code time}, or null if none does
+     */
+    public Event firstStartingAt(LocalDateTime time) {
+        long t = EventTimes.toEpochSecond(time);
+        int i = lowerBound(t);
+        return i < starts.length && starts[i] == t ? event(i) : null;
+    }
+
+    /**
+     * @param from  Inclusive lower bound on the start time
+     * @param to    Exclusive upper bound on the start time
+     * @return      Events starting in [from, to), ordered by start time
+     */
+    public List<Event> startingBetween(LocalDateTime from, LocalDateTime to) {
+        int lo = lowerBound(EventTimes.toEpochSecond(from));
+        int hi = lowerBound(EventTimes.toEpochSecond(to));
+        if (lo >= hi) {
+            return Collections.emptyList();
+        }
+        List<Event> found = new ArrayList<>(hi - lo);
+        for (int i = lo; i < hi; i++) {
+            found.add(event(i));
+        }
+        return found;
+    }
+
+    /**
+     * @param from  Start of the slot, inclusive
+     * @param to    End of the slot, exclusive
+     * @return      Events overlapping [from, to), ordered by start time. An event ending exactly at
+     *              {@code from} or starting exactly at {@code to} does not overlap, but an event with no
+     *              length starting at {@code from} does, so it shows in the slot its start falls in.
+     */
+    public List<Event> intersecting(LocalDateTime from, LocalDateTime to) {
+        List<Event> found = new ArrayList<>();
+        collect(0, starts.length, EventTimes.toEpochSecond(from), EventTimes.toEpochSecond(to), true, found);
+        return found;
+    }
+
+    /**
+     * @param time  Time to check
+     * @return      Events in progress at {@code time}, with both the start and end counted as in progress
+     *              to match {@link Event#IsEventInProgress(LocalDateTime)}
+     */
+    public List<Event> containing(LocalDateTime time) {
+        List<Event> found = new ArrayList<>();
+        long t = EventTimes.toEpochSecond(time);
+        collect(0, starts.length, t, t + 1, false, found);
+        return found;
+    }
+
+    /**
+     * Adds, in start order, the events in [lo, hi) that end at or after {@code minEnd} and start before {@code startBefore}.
+     * With {@code lengthlessOnlyAtMinEnd}, an event ending exactly at {@code minEnd} is only added if it has no length.
+     */
+    private void collect(int lo, int hi, long minEnd, long startBefore, boolean lengthlessOnlyAtMinEnd,
+                         List<Event> found) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        if (subtreeMaxEnd[mid] < minEnd) {
+            return;
+        }
+        collect(lo, mid, minEnd, startBefore, lengthlessOnlyAtMinEnd, found);
+        // Everything right of mid starts no earlier than mid does
+        if (starts[mid] >= startBefore) {
+            return;
+        }
+        if (ends[mid] > minEnd || (ends[mid] == minEnd && (!lengthlessOnlyAtMinEnd || starts[mid] == ends[mid]))) {
+            found.add(event(mid));
+        }
+        collect(mid + 1, hi, minEnd, startBefore, lengthlessOnlyAtMinEnd, found);
+    }
+
+    /**
+     * @return The first index whose start is not before {@code start}
+     */
+    private int lowerBound(long start) {
+        int lo = 0;
+        int hi = starts.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (starts[mid] < start) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.cab302project.models;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Loads the calendar windows either side of the one being shown into the {@link EventCache} on a background
+ * thread, so stepping to the previous or next month, week or day does not wait on the database.
+ * <p>
+ * Only the neighbours of the latest window are wanted: each request cancels prefetches of earlier requests that
+ * have not started yet, so jumping to a distant date never leaves the thread busy loading windows nobody will open.
+ * A prefetch that has already started is left to finish, its result is simply cached.
+ */
+public class EventPrefetcher {
+
+    /**
+     * How long {@link #flush()} waits for pending prefetches before giving up.
+     */
+    private static final long FLUSH_TIMEOUT_SECONDS = 30;
+
+    private static EventPrefetcher instance = null;
+
+    private final ExecutorService executor;
+    private final List<Future<?>> pending = new ArrayList<>();
+    private long requested = 0;
+    private long cancelled = 0;
+
+    /**
+     * Creates a prefetcher. Most callers should use {@link #getInstance()}.
+     * @param executor Executor the windows are loaded on
+     */
+    public EventPrefetcher(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @return The shared prefetcher, starting its thread on first use or after a shutdown
+     */
+    public static synchronized EventPrefetcher getInstance() {
+        if (instance == null) {
+            instance = new EventPrefetcher(Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "calendar-prefetch");
+                thread.setDaemon(true);
+                return thread;
+            }));
+        }
+        return instance;
+    }
+
+    /**
+     * Stops the shared prefetcher, if one was started, dropping any prefetch that has not run.
+     * Called when the application exits.
+     */
+    public static synchronized void shutdownInstance() {
+        if (instance != null) {
+            instance.executor.shutdownNow();
+            instance = null;
+        }
+    }
+
+    /**
+     * Cancels earlier prefetches that have not started and queues the windows before and after a view.
+     * The next window is queued first, as moving forward is the most common step.
+     * @param email         Email of the user whose events are shown
+     * @param startDate     First date shown by the view, as passed to {@link CalendarDAO}
+     * @param timePeriod    Length of the view's window, which is also the step to its neighbours
+     */
+    public synchronized void prefetchAround(String email, LocalDate startDate, Period timePeriod) {
+        for (Future<?> future : pending) {
+            if (future.cancel(false)) {
+                cancelled++;
+            }
+        }
+        pending.clear();
+
+        pending.add(executor.submit(() -> CalendarDAO.prefetchWindow(email, startDate.plus(timePeriod), timePeriod)));
+        pending.add(executor.submit(() -> CalendarDAO.prefetchWindow(email, startDate.minus(timePeriod), timePeriod)));
+        requested += 2;
+    }
+
+    /**
+     * Blocks until the prefetches of the latest request have finished or been cancelled.
+     * @return True if they all finished in time
+     */
+    public boolean flush() {
+        List<Future<?>> waiting;
+        synchronized (this) {
+            waiting = new ArrayList<>(pending);
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(FLUSH_TIMEOUT_SECONDS);
+        for (Future<?> future : waiting) {
+            try {
+                future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (CancellationException e) {
+                // Superseded by a later request
+            } catch (ExecutionException e) {
+                System.err.println("Prefetch failed: " + e.getCause());
+            } catch (TimeoutException e) {
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Number of windows queued for prefetching
+     */
+    public synchronized long getRequestedCount() {
+        return requested;
+    }
+
+    /**
+     * @return Number of queued windows cancelled before they were loaded
+     */
+    public synchronized long getCancelledCount() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.cab302project.models;
+
+/**
+ * One result of a full-text event search: the matching event, a snippet of its text with the
+ * matched terms marked, and its relevance.
+ */
+public final class EventSearchHit {
+    /**
+     * The event that matched the search.
+     */
+    private final Event event;
+    /**
+     * Excerpt of the matched text with every matched term wrapped in {@link #MATCH_START} and {@link #MATCH_END}.
+     */
+    private final String snippet;
+    /**
+     * BM25 relevance of the hit, lower values are better matches.
+     */
+    private final double rank;
+
+    /**
+     * Marker placed before each matched term in the snippet.
+     */
+    public static final String MATCH_START = "[";
+    /**
+     * Marker placed after each matched term in the snippet.
+     */
+    public static final String MATCH_END = "]";
+
+    /**
+     * Constructs a hit from the columns selected by the DAO.
+     * @param event The matching event.
+     * @param snippet The excerpt with matched terms marked.
+     * @param rank The BM25 relevance, lower is better.
+     */
+    public EventSearchHit(Event event, String snippet, double rank) {
+        this.event = event;
+        this.snippet = snippet;
+        this.rank = rank;
+    }
+
+    /**
+     * Gets the matching event.
+     * @return The event.
+     */
+    public Event getEvent() {
+        return event;
+    }
+
+    /**
+     * Gets the excerpt of the matched text.
+     * @return The snippet with matched terms marked.
+     */
+    public String getSnippet() {
+        return snippet;
+    }
+
+    /**
+     * Gets the relevance of the hit.
+     * @return The BM25 rank, lower values are better matches.
+     */
+    public double getRank() {
+        return rank;
+    }
+
+    @Override
+    public String toString() {
+        return snippet;
+    }
+}
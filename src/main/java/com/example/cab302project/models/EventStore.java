@@ -0,0 +1,372 @@
+package com.example.cab302project.models;
+
+import com.example.cab302project.util.EventTimes;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact, read-only column store of events, sorted by start time.
+ * <p>
+ * Each event is a row across primitive arrays: start and end as epoch seconds, and the event name and owner's
+ * username as ids into dictionaries holding each distinct string once. Holding a window this way costs a few
+ * dozen bytes per event instead of an {@link Event} with two {@link LocalDateTime} objects, which matters for
+ * users with years of imported calendars and for the windows kept by {@link EventCache}.
+ * A {@link Cursor} walks the rows without allocating anything per event; {@link Event} objects are only
+ * created on request.
+ */
+public final class EventStore {
+    private static final EventStore EMPTY = new Builder().build();
+
+    private final long[] starts;
+    private final long[] ends;
+    private final int[] nameIds;
+    private final int[] ownerIds;
+    private final String[] names;
+    private final String[] owners;
+
+    private EventStore(long[] starts, long[] ends, int[] nameIds, int[] ownerIds, String[] names, String[] owners) {
+        this.starts = starts;
+        this.ends = ends;
+        this.nameIds = nameIds;
+        this.ownerIds = ownerIds;
+        this.names = names;
+        this.owners = owners;
+    }
+
+    /**
+     * @return A store without events
+     */
+    public static EventStore empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Builds a store from event objects. Events whose times could not be parsed are left out.
+     * @param events    Events in any order
+     * @return          Store holding the events, ordered by start time
+     */
+    public static EventStore of(Collection<Event> events) {
+        Builder builder = new Builder(events.size());
+        for (Event e : events) {
+            if (e.hasTimes()) {
+                builder.add(e.getName(), e.getStartEpochSecond(), e.getEndEpochSecond(), e.getUsername());
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return Number of events
+     */
+    public int size() {
+        return starts.length;
+    }
+
+    /**
+     * @return Number of distinct event names
+     */
+    public int nameCount() {
+        return names.length;
+    }
+
+    /**
+     * @return Number of distinct owners
+     */
+    public int ownerCount() {
+        return owners.length;
+    }
+
+    /**
+     * @param startEpoch    Start time as epoch seconds
+     * @return              Row of the first event starting at or after {@code startEpoch}, or {@link #size()} if none does
+     */
+    public int firstStartingAtOrAfter(long startEpoch) {
+        int lo = 0;
+        int hi = starts.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (starts[mid] < startEpoch) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * @return A cursor positioned before the first event
+     */
+    public Cursor cursor() {
+        return new Cursor(0);
+    }
+
+    /**
+     * @param from  Earliest start time of interest
+     * @return      A cursor positioned before the first event starting at or after {@code from}
+     */
+    public Cursor cursorAt(LocalDateTime from) {
+        return new Cursor(firstStartingAtOrAfter(EventTimes.toEpochSecond(from)));
+    }
+
+    /**
+     * Creates the event object for one row.
+     * @param row   Row index, between 0 and {@link #size()}
+     * @return      A new event holding the row
+     */
+    public Event get(int row) {
+        return new Event(names[nameIds[row]], EventTimes.fromEpochSecond(starts[row]),
+                EventTimes.fromEpochSecond(ends[row]), owners[ownerIds[row]]);
+    }
+
+    /**
+     * @return A new list with an event object per row, ordered by start time
+     */
+    public List<Event> toEvents() {
+        List<Event> events = new ArrayList<>(starts.length);
+        for (int row = 0; row < starts.length; row++) {
+            events.add(get(row));
+        }
+        return events;
+    }
+
+    /**
+     * Copies the store with one more row, for patching a cached window after an insert.
+     * @param name          Name of the event
+     * @param startEpoch    Start as epoch seconds
+     * @param endEpoch      End as epoch seconds
+     * @param owner         Username of the event's owner
+     * @return              A new store holding every row of this one and the new row, after rows with the same start
+     */
+    public EventStore withAdded(String name, long startEpoch, long endEpoch, String owner) {
+        Builder builder = new Builder(starts.length + 1);
+        for (int row = 0; row < starts.length; row++) {
+            builder.add(names[nameIds[row]], starts[row], ends[row], owners[ownerIds[row]]);
+        }
+        return builder.add(name, startEpoch, endEpoch, owner).build();
+    }
+
+    /**
+     * Forward-only view of the rows of a store. The accessors read the current row; they must not be called
+     * before the first {@link #next()} or after it returned false.
+     */
+    public final class Cursor {
+        private int row;
+
+        private Cursor(int firstRow) {
+            this.row = firstRow - 1;
+        }
+
+        /**
+         * Moves to the next event.
+         * @return True if there is one
+         */
+        public boolean next() {
+            if (row < starts.length) {
+                row++;
+            }
+            return row < starts.length;
+        }
+
+        /**
+         * Moves so the next call to {@link #next()} returns the first event starting at or after a time.
+         * @param startEpoch Start time as epoch seconds
+         */
+        public void seek(long startEpoch) {
+            row = firstStartingAtOrAfter(startEpoch) - 1;
+        }
+
+        /**
+         * @return Row index of the current event
+         */
+        public int row() {
+            return row;
+        }
+
+        /**
+         * @return Start of the current event as epoch seconds
+         */
+        public long startEpoch() {
+            return starts[row];
+        }
+
+        /**
+         * @return End of the current event as epoch seconds
+         */
+        public long endEpoch() {
+            return ends[row];
+        }
+
+        /**
+         * @return Dictionary id of the current event's name, equal for events with equal names
+         */
+        public int nameId() {
+            return nameIds[row];
+        }
+
+        /**
+         * @return Name of the current event, shared with every other event of the same name
+         */
+        public String name() {
+            return names[nameIds[row]];
+        }
+
+        /**
+         * @return Dictionary id of the current event's owner
+         */
+        public int ownerId() {
+            return ownerIds[row];
+        }
+
+        /**
+         * @return Username of the current event's owner
+         */
+        public String owner() {
+            return owners[ownerIds[row]];
+        }
+
+        /**
+         * @return A new event object holding the current row
+         */
+        public Event toEvent() {
+            return get(row);
+        }
+    }
+
+    /**
+     * Collects rows and sorts them by start time into a store. Rows with equal starts keep the order they were added in.
+     */
+    public static final class Builder {
+        private long[] starts;
+        private long[] ends;
+        private int[] nameIds;
+        private int[] ownerIds;
+        private int size = 0;
+        private final Map<String, Integer> nameDictionary = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+        private final Map<String, Integer> ownerDictionary = new HashMap<>();
+        private final List<String> owners = new ArrayList<>();
+
+        /**
+         * Creates an empty builder.
+         */
+        public Builder() {
+            this(16);
+        }
+
+        /**
+         * @param expectedSize Number of rows expected, to size the arrays up front
+         */
+        public Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 1);
+            starts = new long[capacity];
+            ends = new long[capacity];
+            nameIds = new int[capacity];
+            ownerIds = new int[capacity];
+        }
+
+        /**
+         * Adds a row.
+         * @param name          Name of the event
+         * @param startEpoch    Start as epoch seconds
+         * @param endEpoch      End as epoch seconds
+         * @param owner         Username of the event's owner
+         * @return              This builder
+         */
+        public Builder add(String name, long startEpoch, long endEpoch, String owner) {
+            if (size == starts.length) {
+                int capacity = size * 2;
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                nameIds = Arrays.copyOf(nameIds, capacity);
+                ownerIds = Arrays.copyOf(ownerIds, capacity);
+            }
+            starts[size] = startEpoch;
+            ends[size] = endEpoch;
+            nameIds[size] = intern(name, nameDictionary, names);
+            ownerIds[size] = intern(owner, ownerDictionary, owners);
+            size++;
+            return this;
+        }
+
+        private static int intern(String value, Map<String, Integer> dictionary, List<String> values) {
+            Integer id = dictionary.get(value);
+            if (id == null) {
+                id = values.size();
+                dictionary.put(value, id);
+                values.add(value);
+            }
+            return id;
+        }
+
+        /**
+         * @return A store holding the rows added so far, ordered by start time
+         */
+        public EventStore build() {
+            int[] order = sortedOrder();
+            long[] sortedStarts = new long[size];
+            long[] sortedEnds = new long[size];
+            int[] sortedNames = new int[size];
+            int[] sortedOwners = new int[size];
+            for (int i = 0; i < size; i++) {
+                int from = order == null ? i : order[i];
+                sortedStarts[i] = starts[from];
+                sortedEnds[i] = ends[from];
+                sortedNames[i] = nameIds[from];
+                sortedOwners[i] = ownerIds[from];
+            }
+            return new EventStore(sortedStarts, sortedEnds, sortedNames, sortedOwners,
+                    names.toArray(new String[0]), owners.toArray(new String[0]));
+        }
+
+        /**
+         * @return Row order sorted by start, or null if the rows were added in start order (as the DAO loads them)
+         */
+        private int[] sortedOrder() {
+            boolean sorted = true;
+            for (int i = 1; i < size && sorted; i++) {
+                sorted = starts[i - 1] <= starts[i];
+            }
+            if (sorted) {
+                return null;
+            }
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            mergeSort(order, new int[size], 0, size);
+            return order;
+        }
+
+        /**
+         * Stable sort of {@code order[lo, hi)} by start, so primitive rows are sorted without boxing.
+         */
+        private void mergeSort(int[] order, int[] scratch, int lo, int hi) {
+            if (hi - lo < 2) {
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            mergeSort(order, scratch, lo, mid);
+            mergeSort(order, scratch, mid, hi);
+            if (starts[order[mid - 1]] <= starts[order[mid]]) {
+                return;
+            }
+            System.arraycopy(order, lo, scratch, lo, hi - lo);
+            int left = lo;
+            int right = mid;
+            for (int i = lo; i < hi; i++) {
+                if (right >= hi || (left < mid && starts[scratch[left]] <= starts[scratch[right]])) {
+                    order[i] = scratch[left++];
+                } else {
+                    order[i] = scratch[right++];
+                }
+            }
+        }
+    }
+}
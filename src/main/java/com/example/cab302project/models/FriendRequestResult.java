@@ -0,0 +1,45 @@
+package com.example.cab302project.models;
+
+/**
+ * Outcome of a friend request operation: whether it changed anything and the state the request is in afterwards.
+ * When an operation does not apply, for example accepting a request that was already declined,
+ * the status reports the state that prevented it.
+ */
+public final class FriendRequestResult {
+    /**
+     * Whether the operation changed the stored request.
+     */
+    private final boolean applied;
+    /**
+     * State of the request once the operation finished.
+     */
+    private final FriendRequestStatus status;
+
+    /**
+     * @param applied Whether the operation changed the stored request
+     * @param status  State of the request once the operation finished
+     */
+    public FriendRequestResult(boolean applied, FriendRequestStatus status) {
+        this.applied = applied;
+        this.status = status;
+    }
+
+    /**
+     * @return True if the operation changed the stored request
+     */
+    public boolean isApplied() {
+        return applied;
+    }
+
+    /**
+     * @return State of the request once the operation finished
+     */
+    public FriendRequestStatus getStatus() {
+        return status;
+    }
+
+    @Override
+    public String toString() {
+        return (applied ? "applied, " : "not applied, ") + status;
+    }
+}
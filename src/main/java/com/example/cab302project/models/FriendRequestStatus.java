@@ -0,0 +1,56 @@
+package com.example.cab302project.models;
+
+/**
+ * State of a friend request from one user to another, as stored in the status column of friend_requests.
+ * <p>
+ * A request moves NONE to PENDING when sent, then to ACCEPTED or DECLINED. A declined request can be sent again.
+ * Cancelling a request or ending a friendship returns the pair to NONE.
+ */
+public enum FriendRequestStatus {
+    /**
+     * No request exists between the users.
+     */
+    NONE(null),
+    /**
+     * The request was sent and is waiting for the receiver.
+     */
+    PENDING("pending"),
+    /**
+     * The receiver accepted and the users are friends.
+     */
+    ACCEPTED("accepted"),
+    /**
+     * The receiver declined the request.
+     */
+    DECLINED("declined");
+
+    private final String columnValue;
+
+    FriendRequestStatus(String columnValue) {
+        this.columnValue = columnValue;
+    }
+
+    /**
+     * @return Value stored in friend_requests.status, null for NONE
+     */
+    public String columnValue() {
+        return columnValue;
+    }
+
+    /**
+     * @param value Value read from friend_requests.status, null if there is no row
+     * @return      Matching status
+     * @throws IllegalArgumentException if the value is not a known status
+     */
+    public static FriendRequestStatus fromColumn(String value) {
+        if (value == null) {
+            return NONE;
+        }
+        for (FriendRequestStatus status : values()) {
+            if (value.equals(status.columnValue)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown friend request status: " + value);
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.cab302project.models;
 
+import java.io.InputStream;
 import java.sql.SQLException;
 import java.util.List;
 
@@ -63,6 +64,14 @@ public interface IUserDAO {
      */
     boolean updateEmail(String currentEmail, String newEmail);
 
+    /**
+     * Updates the email address of the user with the given id.
+     * @param userId The id of the user.
+     * @param newEmail The new email address for the user.
+     * @return true if the email was updated successfully, false otherwise
+     */
+    boolean updateEmail(int userId, String newEmail);
+
     /**
      * Updates the password for a user.
      * @param email The email address of the user.
@@ -71,31 +80,55 @@ public interface IUserDAO {
      */
     boolean updatePassword(String email, String newPassword);
 
+    /**
+     * Updates the password of the user with the given id.
+     * @param userId The id of the user.
+     * @param newPassword The new password for the user.
+     * @return true if the password was updated successfully, false otherwise
+     */
+    boolean updatePassword(int userId, String newPassword);
+
     /**
      * Sends a friend request from one user to another.
      * @param senderUsername The username of the user sending the request.
      * @param receiverUsername The username of the user receiving the request.
-     * @return true if the friend request was successfully initiated, false otherwise
+     * @return Whether the request was sent, and the state of the request afterwards.
      */
-    boolean sendFriendRequest(String senderUsername, String receiverUsername);
+    FriendRequestResult sendFriendRequest(String senderUsername, String receiverUsername);
 
     /**
      * Accepts a pending friend request.
      * Updates the status of a friend request between two users.
      * @param senderUsername The username of the user who sent the request.
      * @param receiverUsername The username of the user who is accepting the request.
-     * @return true if a pending request was found and accepted, false otherwise.
+     * @return Whether a pending request was accepted, and the state of the request afterwards.
      */
-    boolean acceptFriendRequest(String senderUsername, String receiverUsername);
+    FriendRequestResult acceptFriendRequest(String senderUsername, String receiverUsername);
 
     /**
      * Declines a pending friend request.
      * Updates the status of a friend request between two users.
      * @param senderUsername The username of the user who sent the request.
      * @param receiverUsername The username of the user who is declining the request.
-     * @return true if a pending request was found and declined, false otherwise.
+     * @return Whether a pending request was declined, and the state of the request afterwards.
+     */
+    FriendRequestResult declineFriendRequest(String senderUsername, String receiverUsername);
+
+    /**
+     * Withdraws a friend request, whatever its status. Deleting an accepted request also ends the friendship.
+     * @param senderUsername The username of the user who sent the request.
+     * @param receiverUsername The username of the user the request was sent to.
+     * @return Whether a request was deleted, and the state afterwards.
      */
-    boolean declineFriendRequest(String senderUsername, String receiverUsername);
+    FriendRequestResult deleteFriendRequest(String senderUsername, String receiverUsername);
+
+    /**
+     * Ends an accepted friendship between two users.
+     * @param username The username of the user removing the friend.
+     * @param friendUsername The username of the friend being removed.
+     * @return Whether the users were friends and the friendship was removed, and the state afterwards.
+     */
+    FriendRequestResult removeFriend(String username, String friendUsername);
 
     /**
      * Updates the bio for a user.
@@ -105,6 +138,14 @@ public interface IUserDAO {
      */
     boolean updateBio(String email, String newBio);
 
+    /**
+     * Updates the bio of the user with the given id.
+     * @param userId The id of the user.
+     * @param newBio The new bio text for the user.
+     * @return true if the bio was updated successfully, false otherwise
+     */
+    boolean updateBio(int userId, String newBio);
+
     /**
      * Updates the profile image for a user.
      * @param email The email address of the user.
@@ -113,6 +154,14 @@ public interface IUserDAO {
      */
     boolean updateProfileImage(String email, byte[] imageData);
 
+    /**
+     * Updates the profile image of the user with the given id.
+     * @param userId The id of the user.
+     * @param imageData A byte array containing the image data. Can be null to remove the image.
+     * @return true if the profile image was updated successfully, false otherwise
+     */
+    boolean updateProfileImage(int userId, byte[] imageData);
+
     /**
      * Retrieves the profile image data for a user.
      * @param email The email address of the user.
@@ -120,6 +169,14 @@ public interface IUserDAO {
      */
     byte[] getProfileImage(String email);
 
+    /**
+     * Opens the profile image data for a user as a stream, so callers can decode it without
+     * holding a separate copy of the bytes.
+     * @param email The email address of the user.
+     * @return A stream over the profile image data, or null if no image is set or the user is not found.
+     */
+    InputStream openProfileImage(String email);
+
     /**
      * Retrieves a list of users who have sent a pending friend request to the specified user.
      * @param username The username of the user checking for pending requests.
@@ -134,4 +191,56 @@ public interface IUserDAO {
      * @throws SQLException If a database access error occurs during the operation.
      */
     List<User> getFriends(String username) throws SQLException;
+
+    /**
+     * Retrieves a summary of every user, for list views that only show who a user is.
+     * @return A List of {@link UserSummary} objects ordered by username. Returns an empty list if there are no users.
+     */
+    List<UserSummary> getAllUserSummaries();
+
+    /**
+     * Finds users whose username starts with a prefix, ignoring case, one page at a time.
+     * Results are ordered by username ignoring case, then by id.
+     * @param prefix The start of the username typed so far.
+     * @param after The last user of the previous page, or null for the first page.
+     * @param excludeId The id of a user to leave out, usually the logged-in user.
+     * @param limit The maximum number of users to return.
+     * @return A List of {@link UserSummary} objects. Returns an empty list if no usernames match.
+     */
+    List<UserSummary> searchUsersByPrefix(String prefix, UserSummary after, int excludeId, int limit);
+
+    /**
+     * Retrieves the summary of a user based on their username.
+     * @param username The username of the user.
+     * @return The {@link UserSummary} of the user, or null if no such user exists.
+     */
+    UserSummary getUserSummaryByUsername(String username);
+
+    /**
+     * Retrieves the summary of a user based on their email address.
+     * @param email The email address of the user.
+     * @return The {@link UserSummary} of the user, or null if no such user exists.
+     */
+    UserSummary getUserSummaryByEmail(String email);
+
+    /**
+     * Retrieves summaries of the friends of the specified user.
+     * @param username The username of the user whose friends are being retrieved.
+     * @return A List of {@link UserSummary} objects. Returns an empty list if the user is not found or has no friends.
+     */
+    List<UserSummary> getFriendSummaries(String username);
+
+    /**
+     * Retrieves summaries of the users who have sent a pending friend request to the specified user.
+     * @param username The username of the user receiving the requests.
+     * @return A List of {@link UserSummary} objects. Returns an empty list if there are no pending requests.
+     */
+    List<UserSummary> getIncomingRequestSummaries(String username);
+
+    /**
+     * Retrieves summaries of the users the specified user has sent a pending friend request to.
+     * @param username The username of the user who sent the requests.
+     * @return A List of {@link UserSummary} objects. Returns an empty list if there are no pending requests.
+     */
+    List<UserSummary> getOutgoingRequestSummaries(String username);
 }
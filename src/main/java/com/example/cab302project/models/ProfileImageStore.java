@@ -0,0 +1,118 @@
+package com.example.cab302project.models;
+
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Content-addressed store for profile images, kept in the profile_images table.
+ * Each image is stored once under the SHA-256 hash of its bytes and users reference it through
+ * {@code users.profile_image_hash}, so reading a user row never touches image data.
+ */
+public class ProfileImageStore {
+
+    private final Connection connection;
+
+    /**
+     * @param connection Writer connection used to store and remove images
+     */
+    public ProfileImageStore(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * @param data  Image bytes
+     * @return      Lowercase hex SHA-256 of the bytes, used as the image key
+     */
+    public static String hash(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Stores an image unless identical bytes are already stored.
+     * @param data          Image bytes
+     * @return              Key of the stored image
+     * @throws SQLException If the insert fails
+     */
+    public String put(byte[] data) throws SQLException {
+        String key = hash(data);
+        String query = "INSERT OR IGNORE INTO profile_images (hash, data, size) VALUES (?, ?, ?)";
+        try (StatementCache.CachedStatement cached = StatementCache.prepare(connection, query)) {
+            PreparedStatement stmt = cached.statement();
+            stmt.setString(1, key);
+            stmt.setBytes(2, data);
+            stmt.setInt(3, data.length);
+            stmt.executeUpdate();
+        }
+        return key;
+    }
+
+    /**
+     * Opens the stored image of a user, reading it on a pooled read-only connection.
+     * @param email         Email of the user
+     * @return              Stream over the image bytes, or null if the user has no image
+     * @throws SQLException If the lookup fails
+     */
+    public InputStream open(String email) throws SQLException {
+        String query = "SELECT i.data FROM users u JOIN profile_images i ON i.hash = u.profile_image_hash "
+                + "WHERE u.email = ?";
+        try (SqliteConnection.ReadLease lease = SqliteConnection.borrowReader();
+             StatementCache.CachedStatement cached = StatementCache.prepare(lease.connection(), query)) {
+            PreparedStatement stmt = cached.statement();
+            stmt.setString(1, email);
+            try (ResultSet rs = stmt.executeQuery()) {
+                // The SQLite driver materialises the blob, so the stream stays readable after the result set closes
+                return rs.next() ? rs.getBinaryStream("data") : null;
+            }
+        }
+    }
+
+    /**
+     * Deletes an image once no user references it any more.
+     * @param key           Key of the image, may be null
+     * @throws SQLException If the delete fails
+     */
+    public void removeIfUnused(String key) throws SQLException {
+        if (key == null) {
+            return;
+        }
+        String query = "DELETE FROM profile_images WHERE hash = ? "
+                + "AND NOT EXISTS (SELECT 1 FROM users WHERE profile_image_hash = ?)";
+        try (StatementCache.CachedStatement cached = StatementCache.prepare(connection, query)) {
+            PreparedStatement stmt = cached.statement();
+            stmt.setString(1, key);
+            stmt.setString(2, key);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * @param email         Email of the user
+     * @return              Key of the user's image, or null if they have none
+     * @throws SQLException If the lookup fails
+     */
+    public String keyFor(String email) throws SQLException {
+        String query = "SELECT profile_image_hash FROM users WHERE email = ?";
+        try (StatementCache.CachedStatement cached = StatementCache.prepare(connection, query)) {
+            PreparedStatement stmt = cached.statement();
+            stmt.setString(1, email);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+}
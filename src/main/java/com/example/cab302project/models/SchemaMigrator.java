@@ -0,0 +1,535 @@
+package com.example.cab302project.models;
+
+import com.example.cab302project.util.EventTimes;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDateTime;
+
+/**
+ * Brings the database schema up to date. The schema version is kept in SQLite's {@code user_version}
+ * header field and each migration step runs once, in order, raising the version when it completes.
+ * <p>
+ * Steps that rewrite existing rows do so in small chunks, each in its own transaction, so a large
+ * database is never locked for the whole migration and an interrupted run simply resumes.
+ */
+public class SchemaMigrator {
+
+    /**
+     * Version the schema is at once every migration has run.
+     */
+    public static final int CURRENT_VERSION = 9;
+
+    /**
+     * Number of rows rewritten per transaction when backfilling.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+
+    private SchemaMigrator() {
+    }
+
+    /**
+     * Runs every migration the database has not had yet.
+     * @param connection    Writer connection to migrate
+     * @throws SQLException If a migration step fails; completed steps stay applied
+     */
+    public static void migrate(Connection connection) throws SQLException {
+        migrate(connection, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Runs every migration the database has not had yet, backfilling in chunks of the given size.
+     * @param connection    Writer connection to migrate
+     * @param chunkSize     Rows rewritten per transaction
+     * @throws SQLException If a migration step fails; completed steps stay applied
+     */
+    public static synchronized void migrate(Connection connection, int chunkSize) throws SQLException {
+        int version = getVersion(connection);
+        if (version < 1) {
+            createBaseTables(connection);
+            setVersion(connection, 1);
+        }
+        if (version < 2) {
+            addEventEpochColumns(connection, chunkSize);
+            setVersion(connection, 2);
+        }
+        if (version < 3) {
+            moveProfileImages(connection, chunkSize);
+            setVersion(connection, 3);
+        }
+        if (version < 4) {
+            useUserIdKeys(connection);
+            setVersion(connection, 4);
+        }
+        if (version < 5) {
+            createFriendships(connection);
+            setVersion(connection, 5);
+        }
+        if (version < 6) {
+            createEventSearchIndex(connection);
+            setVersion(connection, 6);
+        }
+        if (version < 7) {
+            try (Statement statement = connection.createStatement()) {
+                // Case-insensitive username order for prefix search, the rowid in every index entry breaks ties
+                statement.execute("CREATE INDEX IF NOT EXISTS idx_users_username_nocase "
+                        + "ON users (username COLLATE NOCASE)");
+            }
+            setVersion(connection, 7);
+        }
+        if (version < 8) {
+            encodeEventTitles(connection);
+            setVersion(connection, 8);
+        }
+        if (version < 9) {
+            trackLongestEvent(connection);
+            setVersion(connection, 9);
+        }
+    }
+
+    /**
+     * @param connection    Connection to the database
+     * @return              The schema version recorded in the database
+     * @throws SQLException If the version cannot be read
+     */
+    public static int getVersion(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void setVersion(Connection connection, int version) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA user_version = " + version);
+        }
+    }
+
+    /**
+     * Version 1: the users, friend_requests and events tables as originally created by SqliteUserDAO.
+     */
+    private static void createBaseTables(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            String usersTableQuery = "CREATE TABLE IF NOT EXISTS users ("
+                    + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                    + "username TEXT NOT NULL UNIQUE,"
+                    + "password TEXT NOT NULL,"
+                    + "email TEXT NOT NULL UNIQUE,"
+                    + "bio TEXT DEFAULT '',"
+                    + "profile_image BLOB"
+                    + ")";
+            statement.execute(usersTableQuery);
+
+            String friendRequestsTableQuery = "CREATE TABLE IF NOT EXISTS friend_requests ("
+                    + "sender_email TEXT NOT NULL,"
+                    + "receiver_email TEXT NOT NULL,"
+                    + "status TEXT NOT NULL,"
+                    + "PRIMARY KEY (sender_email, receiver_email),"
+                    + "FOREIGN KEY (sender_email) REFERENCES users (email),"
+                    + "FOREIGN KEY (receiver_email) REFERENCES users (email)"
+                    + ")";
+            statement.execute(friendRequestsTableQuery);
+
+            String eventsTableQuery = "CREATE TABLE IF NOT EXISTS events ("
+                    + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                    + "user_id INTEGER NOT NULL,"
+                    + "user_email TEXT NOT NULL,"
+                    + "name TEXT NOT NULL,"
+                    + "start_time TEXT NOT NULL,"
+                    + "end_time TEXT NOT NULL,"
+                    + "FOREIGN KEY (user_id) REFERENCES users(id)"
+                    + ")";
+            statement.execute(eventsTableQuery);
+        }
+    }
+
+    /**
+     * Version 2: INTEGER epoch-second copies of the event times, indexed together with the owner so
+     * day, week and month lookups are index range scans instead of text matching.
+     */
+    private static void addEventEpochColumns(Connection connection, int chunkSize) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (!hasColumn(connection, "events", "start_epoch")) {
+                statement.execute("ALTER TABLE events ADD COLUMN start_epoch INTEGER");
+            }
+            if (!hasColumn(connection, "events", "end_epoch")) {
+                statement.execute("ALTER TABLE events ADD COLUMN end_epoch INTEGER");
+            }
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_events_user_time "
+                    + "ON events (user_email, start_epoch, end_epoch)");
+        }
+        backfillEventEpochs(connection, chunkSize);
+    }
+
+    /**
+     * Fills start_epoch and end_epoch for rows that do not have them yet, one chunk per transaction.
+     * Rows whose text times cannot be parsed are left NULL and so never match a range query.
+     * @param connection    Writer connection
+     * @param chunkSize     Rows per transaction
+     * @return              Number of rows given epoch values
+     * @throws SQLException If reading or updating fails
+     */
+    static int backfillEventEpochs(Connection connection, int chunkSize) throws SQLException {
+        String select = "SELECT id, start_time, end_time FROM events "
+                + "WHERE id > ? AND start_epoch IS NULL ORDER BY id LIMIT ?";
+        String update = "UPDATE events SET start_epoch = ?, end_epoch = ? WHERE id = ?";
+
+        boolean autoCommit = connection.getAutoCommit();
+        long lastId = 0;
+        int filled = 0;
+        try (PreparedStatement selectStmt = connection.prepareStatement(select);
+             PreparedStatement updateStmt = connection.prepareStatement(update)) {
+            connection.setAutoCommit(false);
+            while (true) {
+                int rowsInChunk = 0;
+                selectStmt.setLong(1, lastId);
+                selectStmt.setInt(2, chunkSize);
+                try (ResultSet rs = selectStmt.executeQuery()) {
+                    while (rs.next()) {
+                        rowsInChunk++;
+                        lastId = rs.getLong("id");
+                        Long start = EventTimes.parseEpochSecond(rs.getString("start_time"));
+                        Long end = EventTimes.parseEpochSecond(rs.getString("end_time"));
+                        if (start == null || end == null) {
+                            continue;
+                        }
+                        updateStmt.setLong(1, start);
+                        updateStmt.setLong(2, end);
+                        updateStmt.setLong(3, lastId);
+                        updateStmt.addBatch();
+                        filled++;
+                    }
+                }
+                updateStmt.executeBatch();
+                connection.commit();
+                if (rowsInChunk < chunkSize) {
+                    break;
+                }
+            }
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        return filled;
+    }
+
+    /**
+     * Version 3: profile images move out of the users table into the content-addressed profile_images table,
+     * leaving only the image hash on the user row so user lookups stay small.
+     */
+    private static void moveProfileImages(Connection connection, int chunkSize) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS profile_images ("
+                    + "hash TEXT PRIMARY KEY,"
+                    + "data BLOB NOT NULL,"
+                    + "size INTEGER NOT NULL"
+                    + ")");
+            if (!hasColumn(connection, "users", "profile_image_hash")) {
+                statement.execute("ALTER TABLE users ADD COLUMN profile_image_hash TEXT REFERENCES profile_images (hash)");
+            }
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_users_profile_image ON users (profile_image_hash)");
+        }
+        if (!hasColumn(connection, "users", "profile_image")) {
+            return;
+        }
+
+        String select = "SELECT id, profile_image FROM users "
+                + "WHERE id > ? AND profile_image IS NOT NULL ORDER BY id LIMIT ?";
+        String insert = "INSERT OR IGNORE INTO profile_images (hash, data, size) VALUES (?, ?, ?)";
+        String update = "UPDATE users SET profile_image_hash = ?, profile_image = NULL WHERE id = ?";
+
+        boolean autoCommit = connection.getAutoCommit();
+        long lastId = 0;
+        try (PreparedStatement selectStmt = connection.prepareStatement(select);
+             PreparedStatement insertStmt = connection.prepareStatement(insert);
+             PreparedStatement updateStmt = connection.prepareStatement(update)) {
+            connection.setAutoCommit(false);
+            while (true) {
+                int rowsInChunk = 0;
+                selectStmt.setLong(1, lastId);
+                selectStmt.setInt(2, chunkSize);
+                try (ResultSet rs = selectStmt.executeQuery()) {
+                    while (rs.next()) {
+                        rowsInChunk++;
+                        lastId = rs.getLong("id");
+                        byte[] data = rs.getBytes("profile_image");
+                        String hash = ProfileImageStore.hash(data);
+
+                        insertStmt.setString(1, hash);
+                        insertStmt.setBytes(2, data);
+                        insertStmt.setInt(3, data.length);
+                        insertStmt.executeUpdate();
+
+                        updateStmt.setString(1, hash);
+                        updateStmt.setLong(2, lastId);
+                        updateStmt.executeUpdate();
+                    }
+                }
+                connection.commit();
+                if (rowsInChunk < chunkSize) {
+                    break;
+                }
+            }
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE users DROP COLUMN profile_image");
+        }
+    }
+
+    /**
+     * Version 4: events and friend requests reference users by their integer id instead of their email,
+     * so joins compare integers and changing an email only touches the users row.
+     * Runs as one transaction since the friend_requests table is rebuilt.
+     */
+    private static void useUserIdKeys(Connection connection) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        try (Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(false);
+
+            if (hasColumn(connection, "events", "user_email")) {
+                // Event owners were historically saved with id 0, the email is the reliable link
+                statement.execute("UPDATE events SET user_id = "
+                        + "(SELECT u.id FROM users u WHERE u.email = events.user_email) "
+                        + "WHERE EXISTS (SELECT 1 FROM users u WHERE u.email = events.user_email)");
+                statement.execute("DROP INDEX IF EXISTS idx_events_user_time");
+                statement.execute("ALTER TABLE events DROP COLUMN user_email");
+            }
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_events_user_time "
+                    + "ON events (user_id, start_epoch, end_epoch)");
+
+            if (hasColumn(connection, "friend_requests", "sender_email")) {
+                statement.execute("CREATE TABLE friend_requests_by_id ("
+                        + "sender_id INTEGER NOT NULL,"
+                        + "receiver_id INTEGER NOT NULL,"
+                        + "status TEXT NOT NULL,"
+                        + "PRIMARY KEY (sender_id, receiver_id),"
+                        + "FOREIGN KEY (sender_id) REFERENCES users (id),"
+                        + "FOREIGN KEY (receiver_id) REFERENCES users (id)"
+                        + ")");
+                statement.execute("INSERT OR IGNORE INTO friend_requests_by_id (sender_id, receiver_id, status) "
+                        + "SELECT s.id, r.id, fr.status FROM friend_requests fr "
+                        + "JOIN users s ON s.email = fr.sender_email "
+                        + "JOIN users r ON r.email = fr.receiver_email");
+                statement.execute("DROP TABLE friend_requests");
+                statement.execute("ALTER TABLE friend_requests_by_id RENAME TO friend_requests");
+            }
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_friend_requests_receiver "
+                    + "ON friend_requests (receiver_id, status)");
+
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Version 5: accepted friendships are kept in both directions in their own table, so listing a user's friends
+     * is a range scan on the primary key instead of an OR join over friend_requests.
+     */
+    private static void createFriendships(Connection connection) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        try (Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            statement.execute("CREATE TABLE IF NOT EXISTS friendships ("
+                    + "user_id INTEGER NOT NULL,"
+                    + "friend_id INTEGER NOT NULL,"
+                    + "PRIMARY KEY (user_id, friend_id),"
+                    + "FOREIGN KEY (user_id) REFERENCES users (id),"
+                    + "FOREIGN KEY (friend_id) REFERENCES users (id)"
+                    + ") WITHOUT ROWID");
+            statement.execute("INSERT OR IGNORE INTO friendships (user_id, friend_id) "
+                    + "SELECT sender_id, receiver_id FROM friend_requests WHERE status = 'accepted' "
+                    + "UNION SELECT receiver_id, sender_id FROM friend_requests WHERE status = 'accepted'");
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Version 6: FTS5 index over event names for searchEvents. It is an external-content table, so the text is
+     * only stored once in events and the triggers keep the index in step with every insert, update and delete.
+     * New searchable event columns are added by recreating the table and triggers with the extra column.
+     */
+    private static void createEventSearchIndex(Connection connection) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        try (Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            statement.execute("CREATE VIRTUAL TABLE IF NOT EXISTS events_fts USING fts5("
+                    + "name, content='events', content_rowid='id', tokenize='unicode61 remove_diacritics 2')");
+            statement.execute("CREATE TRIGGER IF NOT EXISTS events_fts_insert AFTER INSERT ON events BEGIN "
+                    + "INSERT INTO events_fts (rowid, name) VALUES (new.id, new.name); END");
+            statement.execute("CREATE TRIGGER IF NOT EXISTS events_fts_delete AFTER DELETE ON events BEGIN "
+                    + "INSERT INTO events_fts (events_fts, rowid, name) VALUES ('delete', old.id, old.name); END");
+            statement.execute("CREATE TRIGGER IF NOT EXISTS events_fts_update AFTER UPDATE OF name ON events BEGIN "
+                    + "INSERT INTO events_fts (events_fts, rowid, name) VALUES ('delete', old.id, old.name); "
+                    + "INSERT INTO events_fts (rowid, name) VALUES (new.id, new.name); END");
+            // Index the events that existed before the triggers
+            statement.execute("INSERT INTO events_fts (events_fts) VALUES ('rebuild')");
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Version 8: event names are stored once each in event_titles and events reference them by title_id, since
+     * imported calendars repeat the same few titles thousands of times. Titles are never edited in place and their
+     * AUTOINCREMENT ids are never reused, so a title id can be cached for as long as the database is open.
+     * The search index keeps indexing each event's name, now read through the event_names view, and its triggers
+     * look the title up when an event is added, removed or moved to another title.
+     * Runs as one transaction since the name column is dropped.
+     */
+    private static void encodeEventTitles(Connection connection) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        try (Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            statement.execute("CREATE TABLE IF NOT EXISTS event_titles ("
+                    + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                    + "title TEXT NOT NULL UNIQUE"
+                    + ")");
+            if (hasColumn(connection, "events", "name")) {
+                statement.execute("INSERT OR IGNORE INTO event_titles (title) "
+                        + "SELECT name FROM events GROUP BY name ORDER BY MIN(id)");
+                statement.execute("ALTER TABLE events ADD COLUMN title_id INTEGER REFERENCES event_titles (id)");
+                statement.execute("UPDATE events SET title_id = "
+                        + "(SELECT t.id FROM event_titles t WHERE t.title = events.name)");
+
+                // The old triggers and index read events.name, which is about to go
+                statement.execute("DROP TRIGGER IF EXISTS events_fts_insert");
+                statement.execute("DROP TRIGGER IF EXISTS events_fts_delete");
+                statement.execute("DROP TRIGGER IF EXISTS events_fts_update");
+                statement.execute("DROP TABLE IF EXISTS events_fts");
+                statement.execute("ALTER TABLE events DROP COLUMN name");
+            }
+
+            statement.execute("CREATE VIEW IF NOT EXISTS event_names AS "
+                    + "SELECT e.id AS id, t.title AS name FROM events e JOIN event_titles t ON t.id = e.title_id");
+            statement.execute("CREATE VIRTUAL TABLE IF NOT EXISTS events_fts USING fts5("
+                    + "name, content='event_names', content_rowid='id', tokenize='unicode61 remove_diacritics 2')");
+            statement.execute("CREATE TRIGGER IF NOT EXISTS events_fts_insert AFTER INSERT ON events BEGIN "
+                    + "INSERT INTO events_fts (rowid, name) "
+                    + "SELECT new.id, title FROM event_titles WHERE id = new.title_id; END");
+            statement.execute("CREATE TRIGGER IF NOT EXISTS events_fts_delete AFTER DELETE ON events BEGIN "
+                    + "INSERT INTO events_fts (events_fts, rowid, name) "
+                    + "SELECT 'delete', old.id, title FROM event_titles WHERE id = old.title_id; END");
+            statement.execute("CREATE TRIGGER IF NOT EXISTS events_fts_update AFTER UPDATE OF title_id ON events BEGIN "
+                    + "INSERT INTO events_fts (events_fts, rowid, name) "
+                    + "SELECT 'delete', old.id, title FROM event_titles WHERE id = old.title_id; "
+                    + "INSERT INTO events_fts (rowid, name) "
+                    + "SELECT new.id, title FROM event_titles WHERE id = new.title_id; END");
+            statement.execute("INSERT INTO events_fts (events_fts) VALUES ('rebuild')");
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Version 9: each user records the length of their longest event, so a calendar window can load every event
+     * overlapping it while still bounding start_epoch on both sides: nothing that starts more than that length
+     * before the window can reach into it. The triggers only ever raise the value; deleting the longest event
+     * leaves a bound that is looser than needed but still correct.
+     */
+    private static void trackLongestEvent(Connection connection) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        try (Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            if (!hasColumn(connection, "users", "longest_event_seconds")) {
+                statement.execute("ALTER TABLE users ADD COLUMN longest_event_seconds INTEGER NOT NULL DEFAULT 0");
+            }
+            statement.execute("UPDATE users SET longest_event_seconds = COALESCE("
+                    + "(SELECT MAX(e.end_epoch - e.start_epoch) FROM events e WHERE e.user_id = users.id), 0)");
+            statement.execute("CREATE TRIGGER IF NOT EXISTS events_longest_insert AFTER INSERT ON events BEGIN "
+                    + "UPDATE users SET longest_event_seconds = new.end_epoch - new.start_epoch "
+                    + "WHERE id = new.user_id AND longest_event_seconds < new.end_epoch - new.start_epoch; END");
+            statement.execute("CREATE TRIGGER IF NOT EXISTS events_longest_update "
+                    + "AFTER UPDATE OF user_id, start_epoch, end_epoch ON events BEGIN "
+                    + "UPDATE users SET longest_event_seconds = new.end_epoch - new.start_epoch "
+                    + "WHERE id = new.user_id AND longest_event_seconds < new.end_epoch - new.start_epoch; END");
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Binds an epoch value, or NULL when the time could not be parsed.
+     * @param stmt          Statement to bind to
+     * @param index         Parameter index
+     * @param epochSecond   Value to bind, may be null
+     * @throws SQLException If binding fails
+     */
+    static void setEpoch(PreparedStatement stmt, int index, Long epochSecond) throws SQLException {
+        if (epochSecond == null) {
+            stmt.setNull(index, Types.INTEGER);
+        } else {
+            stmt.setLong(index, epochSecond);
+        }
+    }
+
+    /**
+     * Reads an epoch column back as a wall-clock time.
+     * @param rs            Result set positioned on a row
+     * @param column        Name of the epoch column
+     * @return              The time, or null if the column is NULL
+     * @throws SQLException If reading fails
+     */
+    static LocalDateTime getEpoch(ResultSet rs, String column) throws SQLException {
+        long epochSecond = rs.getLong(column);
+        return rs.wasNull() ? null : EventTimes.fromEpochSecond(epochSecond);
+    }
+
+    /**
+     * Reads an event's title from a row selecting {@code e.title_id} and the title as {@code name},
+     * only decoding the title column when the pool does not hold it yet.
+     * @param rs            Result set positioned on a row
+     * @param pool          Pool of titles by id
+     * @return              The pooled title
+     * @throws SQLException If reading fails
+     */
+    static String getTitle(ResultSet rs, StringPool pool) throws SQLException {
+        int id = rs.getInt("title_id");
+        String title = pool.get(id);
+        return title != null ? title : pool.put(id, rs.getString("name"));
+    }
+
+    private static boolean hasColumn(Connection connection, String table, String column) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
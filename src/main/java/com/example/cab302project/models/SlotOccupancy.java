@@ -0,0 +1,205 @@
+package com.example.cab302project.models;
+
+import com.example.cab302project.util.EventTimes;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Which events occupy each slot of a calendar grid, such as the 168 hours of the week view.
+ * <p>
+ * The whole grid is filled by one sweep over the events in start order: an event joins the active list when
+ * the sweep reaches the slot it starts in and leaves once a slot starts at or after its end, so building costs
+ * O(n + s + k) for n events, s slots and k occupied cells instead of a lookup per cell.
+ * Slots use the same half-open overlap as {@link EventIntervalIndex#intersecting}: an event ending exactly at a
+ * slot's start, or starting exactly at its end, is not in the slot. An event with no length, such as a reminder,
+ * is in the slot its start falls in. The matrix is held as one array of event
+ * positions per grid, with an offset per slot, rather than a list per cell. A grid built from an
+ * {@link EventStore} only reads its time columns, and {@link #eventsIn(int)} creates the events of the slot asked for.
+ */
+public final class SlotOccupancy {
+    private final LocalDateTime firstSlot;
+    private final Duration slotLength;
+    /**
+     * Events of the grid in start order, null when it was built from {@link #store}.
+     */
+    private final Event[] events;
+    /**
+     * Store whose rows fill the grid, null when it was built from {@link #events}.
+     */
+    private final EventStore store;
+    /**
+     * Occupants of slot {@code s} are {@code members[offsets[s]]} up to {@code members[offsets[s + 1]]}.
+     */
+    private final int[] offsets;
+    /**
+     * Positions of each slot's occupants in start order, as indexes into {@link #events} or rows of {@link #store}.
+     */
+    private final int[] members;
+
+    /**
+     * Fills the grid.
+     * @param events        Events ordered by start time, as held by {@link CalendarDAO}. Events whose times
+     *                      could not be parsed are left out.
+     * @param firstSlot     Start of the first slot
+     * @param slotLength    Length of every slot
+     * @param slotCount     Number of slots
+     */
+    public SlotOccupancy(List<Event> events, LocalDateTime firstSlot, Duration slotLength, int slotCount) {
+        checkGrid(slotLength, slotCount);
+        this.firstSlot = firstSlot;
+        this.slotLength = slotLength;
+
+        List<Event> timed = new ArrayList<>(events.size());
+        for (Event e : events) {
+            if (e.hasTimes()) {
+                timed.add(e);
+            }
+        }
+        this.events = timed.toArray(new Event[0]);
+        this.store = null;
+        int n = this.events.length;
+        long[] starts = new long[n];
+        long[] ends = new long[n];
+        for (int i = 0; i < n; i++) {
+            starts[i] = this.events[i].getStartEpochSecond();
+            ends[i] = this.events[i].getEndEpochSecond();
+        }
+        this.offsets = new int[slotCount + 1];
+        this.members = sweep(starts, ends, offsets, firstSlot, slotLength);
+    }
+
+    /**
+     * Fills the grid from the time columns of a store, creating {@link Event} objects only for the slots asked for.
+     * @param store         Events of the window, as held by {@link CalendarDAO}
+     * @param firstSlot     Start of the first slot
+     * @param slotLength    Length of every slot
+     * @param slotCount     Number of slots
+     */
+    public SlotOccupancy(EventStore store, LocalDateTime firstSlot, Duration slotLength, int slotCount) {
+        checkGrid(slotLength, slotCount);
+        this.firstSlot = firstSlot;
+        this.slotLength = slotLength;
+        this.events = null;
+        this.store = store;
+
+        int n = store.size();
+        long[] starts = new long[n];
+        long[] ends = new long[n];
+        EventStore.Cursor cursor = store.cursor();
+        for (int i = 0; cursor.next(); i++) {
+            starts[i] = cursor.startEpoch();
+            ends[i] = cursor.endEpoch();
+        }
+        this.offsets = new int[slotCount + 1];
+        this.members = sweep(starts, ends, offsets, firstSlot, slotLength);
+    }
+
+    private static void checkGrid(Duration slotLength, int slotCount) {
+        if (slotLength.getSeconds() < 1) {
+            throw new IllegalArgumentException("Slot length must be at least a second: " + slotLength);
+        }
+        if (slotCount < 0) {
+            throw new IllegalArgumentException("Slot count must not be negative: " + slotCount);
+        }
+    }
+
+    /**
+     * Sweeps the slots once, recording each slot's occupants.
+     * @param starts    Start of each event as epoch seconds, in start order
+     * @param ends      End of each event as epoch seconds
+     * @param offsets   Filled with where each slot's occupants begin, one entry per slot plus one
+     * @return          Positions of the occupants of every slot, slot after slot
+     */
+    private static int[] sweep(long[] starts, long[] ends, int[] offsets, LocalDateTime firstSlot, Duration slotLength) {
+        int n = starts.length;
+        int slotCount = offsets.length - 1;
+        int[] filled = new int[Math.max(n, 16)];
+        int size = 0;
+        // Events in progress at the sweep, in start order
+        int[] active = new int[Math.max(n, 1)];
+        int activeCount = 0;
+        int next = 0;
+        long length = slotLength.getSeconds();
+        long slotStart = EventTimes.toEpochSecond(firstSlot);
+        for (int slot = 0; slot < slotCount; slot++, slotStart += length) {
+            long slotEnd = slotStart + length;
+            while (next < n && starts[next] < slotEnd) {
+                active[activeCount++] = next++;
+            }
+            // Drop events that ended by this slot's start, keeping the rest in order
+            int kept = 0;
+            for (int i = 0; i < activeCount; i++) {
+                int e = active[i];
+                if (ends[e] > slotStart || (ends[e] == starts[e] && starts[e] >= slotStart)) {
+                    active[kept++] = active[i];
+                }
+            }
+            activeCount = kept;
+
+            if (size + activeCount > filled.length) {
+                filled = Arrays.copyOf(filled, Math.max(filled.length * 2, size + activeCount));
+            }
+            System.arraycopy(active, 0, filled, size, activeCount);
+            size += activeCount;
+            offsets[slot + 1] = size;
+        }
+        return Arrays.copyOf(filled, size);
+    }
+
+    /**
+     * @return Number of slots in the grid
+     */
+    public int slotCount() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * @param slot  Slot number, counted from the first slot
+     * @return      Start of the slot
+     */
+    public LocalDateTime slotStart(int slot) {
+        return firstSlot.plus(slotLength.multipliedBy(slot));
+    }
+
+    /**
+     * @param slot  Slot number, counted from the first slot
+     * @return      Number of events overlapping the slot
+     */
+    public int count(int slot) {
+        return offsets[slot + 1] - offsets[slot];
+    }
+
+    /**
+     * @param slot  Slot number, counted from the first slot
+     * @return      Events overlapping the slot, ordered by start time
+     */
+    public List<Event> eventsIn(int slot) {
+        int from = offsets[slot];
+        int to = offsets[slot + 1];
+        if (from == to) {
+            return Collections.emptyList();
+        }
+        List<Event> found = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            int member = members[i];
+            found.add(events != null ? events[member] : store.get(member));
+        }
+        return found;
+    }
+
+    /**
+     * @return Largest number of events sharing one slot, which is how many columns the busiest slot needs
+     */
+    public int maxCount() {
+        int max = 0;
+        for (int slot = 0; slot < slotCount(); slot++) {
+            max = Math.max(max, count(slot));
+        }
+        return max;
+    }
+}
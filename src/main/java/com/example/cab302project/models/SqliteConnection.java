@@ -1,56 +1,311 @@
 package com.example.cab302project.models;
+import org.sqlite.SQLiteConfig;
+
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Manages a single instance of a SQLite database connection.
- * This ensures that only one database connection is created and used throughout the application,
- * providing a central point of access to the users database
+ * Manages the SQLite database connections for the users database.
+ * A single dedicated writer connection is handed out by {@link #getInstance()} and is used for every
+ * insert, update and delete. Read-heavy work (calendar views, schedule lookups for the AI assistant)
+ * borrows one of a small pool of read-only connections through {@link #borrowReader()} so it does not
+ * have to queue behind imports running on the writer.
+ * Every connection is configured with the {@link StorageProfile} in use when it is opened.
  */
 public class SqliteConnection {
 
     /**
-     * Instance of the databases connection
+     * Location of the application database.
+     */
+    public static final String DEFAULT_URL = "jdbc:sqlite:users.db";
+
+    /**
+     * Maximum number of read-only connections kept open at once.
+     */
+    public static final int READER_POOL_SIZE = 4;
+
+    /**
+     * How long a borrower waits for a reader to be returned before giving up.
+     */
+    private static final long BORROW_TIMEOUT_SECONDS = 10;
+
+    /**
+     * JDBC url that the writer and readers are opened against.
+     */
+    private static String url = DEFAULT_URL;
+
+    /**
+     * PRAGMA settings applied to each connection as it is opened. Loaded on first use.
+     */
+    private static StorageProfile profile = null;
+
+    /**
+     * Instance of the databases writer connection
      * Initialized upon the first call to getInstance().
      */
     private static Connection instance = null;
 
+    /**
+     * True when a test connection has been injected. Readers then share that connection,
+     * as an in-memory database cannot be opened a second time.
+     */
+    private static boolean testConnectionInjected = false;
+
+    /**
+     * Read-only connections that are open and not currently borrowed.
+     */
+    private static final Deque<Connection> idleReaders = new ArrayDeque<>();
+
+    /**
+     * Number of read-only connections opened for the current pool, borrowed or idle.
+     */
+    private static int openReaders = 0;
+
+    /**
+     * Incremented whenever the pool is reset, so readers borrowed from an old pool are closed when returned.
+     */
+    private static int generation = 0;
+
+    /**
+     * Pool generation each open reader was created in. A reader keeps this tag for its whole life, so one
+     * handed over after a reset is never mistaken for a reader of the new pool.
+     */
+    private static final Map<Connection, Integer> readerGenerations = new IdentityHashMap<>();
+
     /**
      * Constructor to prevent instantiation from outside the class.
-     * Establishes the connection to the users database in SQLite database.
+     * Establishes the writer connection to the users database in SQLite database.
      * Errors during connection establishment are printed to standard error for debugging.
      */
     private SqliteConnection() {
-        String url = "jdbc:sqlite:users.db";
         try {
             instance = DriverManager.getConnection(url);
+            currentProfile().applyTo(instance, true);
         } catch (SQLException sqlEx) {
             System.err.println("Failed to connect to database: " + sqlEx.getMessage());
         }
     }
 
     /**
-     * Returns the single instance of the database connection.
+     * Returns the single writer connection to the database.
      * If the instance does not exist, it creates it by calling the private constructor.
      *
-     * @return The singleton instance of the Connection to the database.
+     * @return The singleton writer Connection to the database.
      */
-    public static Connection getInstance() {
+    public static synchronized Connection getInstance() {
         if (instance == null) {
             new SqliteConnection(); // The constructor sets the instance
         }
         return instance;
     }
 
+    /**
+     * Borrows a read-only connection from the pool, opening a new one if the pool has not yet reached
+     * {@link #READER_POOL_SIZE}. The connection must be handed back by closing the returned lease,
+     * ideally with try-with-resources.
+     *
+     * @return A lease holding a read-only connection.
+     * @throws SQLException If a reader could not be opened or none was returned in time.
+     */
+    public static synchronized ReadLease borrowReader() throws SQLException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(BORROW_TIMEOUT_SECONDS);
+        // Every way a slot frees up, a reader returned, a closed one discarded or the pool reset, wakes the
+        // waiters, so each pass either takes an idle reader or opens one in a freed slot
+        while (true) {
+            if (testConnectionInjected) {
+                return new ReadLease(instance, generation, false);
+            }
+            Connection idle = idleReaders.poll();
+            if (idle != null) {
+                return new ReadLease(idle, readerGenerations.get(idle), true);
+            }
+            if (openReaders < READER_POOL_SIZE) {
+                getInstance(); // make sure the database file exists before opening it read-only
+                SQLiteConfig config = new SQLiteConfig();
+                config.setReadOnly(true);
+                Connection reader = DriverManager.getConnection(url, config.toProperties());
+                try {
+                    currentProfile().applyTo(reader, false);
+                } catch (SQLException e) {
+                    closeQuietly(reader);
+                    throw e;
+                }
+                openReaders++;
+                readerGenerations.put(reader, generation);
+                return new ReadLease(reader, generation, true);
+            }
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new SQLException("Timed out waiting for a read connection");
+            }
+            try {
+                // Releases the lock while waiting so readers can be returned
+                TimeUnit.NANOSECONDS.timedWait(SqliteConnection.class, remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a read connection", e);
+            }
+        }
+    }
+
+    /**
+     * Hands a borrowed reader back to the pool. Readers from a pool that has since been reset,
+     * or that have been closed by the borrower, are discarded instead.
+     *
+     * @param reader The connection being returned.
+     * @param borrowedGeneration The pool generation the reader was created in.
+     */
+    private static synchronized void returnReader(Connection reader, int borrowedGeneration) {
+        boolean usable;
+        try {
+            usable = !reader.isClosed();
+        } catch (SQLException e) {
+            usable = false;
+        }
+
+        if (borrowedGeneration != generation) {
+            readerGenerations.remove(reader);
+            closeQuietly(reader);
+        } else if (usable) {
+            idleReaders.offer(reader);
+        } else {
+            readerGenerations.remove(reader);
+            StatementCache.discard(reader);
+            openReaders--;
+        }
+        // A returned reader or a freed slot can serve a waiting borrower
+        SqliteConnection.class.notifyAll();
+    }
+
     /**
      * Injects a mock or test database connection for testing purposes.
      * This method is only for testing
      * to replace the real database connection with a test double.
+     * Both the writer and every borrowed reader will use this connection.
      *
      * @param testConnection The test Connection object to inject.
      */
-    public static void injectTestConnection(Connection testConnection) {
+    public static synchronized void injectTestConnection(Connection testConnection) {
+        resetReaders();
+        if (instance != null) {
+            StatementCache.discard(instance);
+        }
         instance = testConnection;
+        testConnectionInjected = true;
+        // Events cached from the previous database do not exist in this one
+        EventCache.getInstance().invalidateAll();
+    }
+
+    /**
+     * Points the writer and reader pool at a different database, closing any connections
+     * opened for the previous one. Intended for file backed databases used by tests and benchmarks.
+     *
+     * @param databaseUrl JDBC url of the database to use, for example {@link #DEFAULT_URL}.
+     */
+    public static synchronized void useDatabase(String databaseUrl) {
+        useDatabase(databaseUrl, StorageProfile.load());
+    }
+
+    /**
+     * Points the writer and reader pool at a different database opened with the given storage profile.
+     *
+     * @param databaseUrl JDBC url of the database to use.
+     * @param storageProfile PRAGMA settings to apply to the new connections.
+     */
+    public static synchronized void useDatabase(String databaseUrl, StorageProfile storageProfile) {
+        resetReaders();
+        if (instance != null && !testConnectionInjected) {
+            closeQuietly(instance);
+        } else if (instance != null) {
+            StatementCache.discard(instance);
+        }
+        instance = null;
+        testConnectionInjected = false;
+        url = databaseUrl;
+        profile = storageProfile;
+        EventCache.getInstance().invalidateAll();
+    }
+
+    /**
+     * @return The storage profile applied to new connections, loading the configured one if needed.
+     */
+    public static synchronized StorageProfile currentProfile() {
+        if (profile == null) {
+            profile = StorageProfile.load();
+        }
+        return profile;
+    }
+
+    /**
+     * Closes every idle reader and starts a new pool generation.
+     */
+    private static void resetReaders() {
+        Connection reader;
+        while ((reader = idleReaders.poll()) != null) {
+            readerGenerations.remove(reader);
+            closeQuietly(reader);
+        }
+        openReaders = 0;
+        generation++;
+        // The new pool has every slot free
+        SqliteConnection.class.notifyAll();
+    }
+
+    /**
+     * Closes a connection and its cached statements, printing rather than throwing any error.
+     * @param connection The connection to close.
+     */
+    private static void closeQuietly(Connection connection) {
+        StatementCache.discard(connection);
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println("Failed to close database connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * A read-only connection borrowed from the pool. Closing the lease returns the connection
+     * to the pool rather than closing it.
+     */
+    public static final class ReadLease implements AutoCloseable {
+        private final Connection connection;
+        private final int generation;
+        private final boolean pooled;
+        private boolean returned = false;
+
+        private ReadLease(Connection connection, int generation, boolean pooled) {
+            this.connection = connection;
+            this.generation = generation;
+            this.pooled = pooled;
+        }
+
+        /**
+         * @return The borrowed connection. It must not be used after the lease is closed.
+         */
+        public Connection connection() {
+            return connection;
+        }
+
+        /**
+         * Returns the connection to the pool. Calling this more than once has no effect.
+         */
+        @Override
+        public void close() {
+            if (returned) {
+                return;
+            }
+            returned = true;
+            if (pooled) {
+                returnReader(connection, generation);
+            }
+        }
     }
-}
\ No newline at end of file
+}
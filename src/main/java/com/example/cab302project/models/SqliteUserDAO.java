@@ -1,14 +1,20 @@
 package com.example.cab302project.models;
 
+import com.example.cab302project.util.EventTimes;
 import net.fortuna.ical4j.model.DateTime;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * SQlite implementation of IUserDAO
@@ -18,58 +24,51 @@ import java.util.List;
  */
 public class SqliteUserDAO implements IUserDAO {
     /**
-     * Database connection
+     * Number of rows sent to SQLite per JDBC batch by insertEvents
+     */
+    public static final int DEFAULT_INSERT_CHUNK_SIZE = 500;
+
+    /**
+     * Adds an event title to the dictionary unless it is already there
+     */
+    private static final String INSERT_TITLE = "INSERT INTO event_titles (title) VALUES (?) ON CONFLICT (title) DO NOTHING";
+
+    /**
+     * Writer connection to the database, read-heavy lookups borrow a reader from SqliteConnection instead
      */
     private Connection connection;
 
+    /**
+     * Content-addressed store holding the profile images referenced by users
+     */
+    private final ProfileImageStore profileImages;
+
     /**
      * Grabs the Sqliteconnection and ensures the necessary tables are created
      */
     public SqliteUserDAO() {
         connection = SqliteConnection.getInstance();
+        profileImages = new ProfileImageStore(connection);
         createTables();
     }
 
     /**
-     * This creats the following tables with the following columns and their respective types
+     * Checks out a cached prepared statement on the writer connection
+     * @param sql SQL text of the statement
+     * @return lease on the statement, closing it returns the statement to the cache
+     * @throws SQLException if the statement could not be prepared
+     */
+    private StatementCache.CachedStatement prepare(String sql) throws SQLException {
+        return StatementCache.prepare(connection, sql);
+    }
+
+    /**
+     * This creats the following tables with the following columns and their respective types,
+     * running any schema migrations the database has not had yet
      */
     private void createTables() {
         try {
-            Statement statement = connection.createStatement();
-
-            String usersTableQuery = "CREATE TABLE IF NOT EXISTS users ("
-                    + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
-                    + "username TEXT NOT NULL UNIQUE,"
-                    + "password TEXT NOT NULL,"
-                    + "email TEXT NOT NULL UNIQUE,"
-                    + "bio TEXT DEFAULT '',"
-                    + "profile_image BLOB"
-                    + ")";
-            statement.execute(usersTableQuery);
-
-            String friendRequestsTableQuery = "CREATE TABLE IF NOT EXISTS friend_requests ("
-                    + "sender_email TEXT NOT NULL,"
-                    + "receiver_email TEXT NOT NULL,"
-                    + "status TEXT NOT NULL,"
-                    + "PRIMARY KEY (sender_email, receiver_email),"
-                    + "FOREIGN KEY (sender_email) REFERENCES users (email),"
-                    + "FOREIGN KEY (receiver_email) REFERENCES users (email)"
-                    + ")";
-            statement.execute(friendRequestsTableQuery);
-
-            // Create events table if not exists
-            String eventsTableQuery = "CREATE TABLE IF NOT EXISTS events ("
-                    + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
-                    + "user_id INTEGER NOT NULL,"
-                    + "user_email TEXT NOT NULL,"
-                    + "name TEXT NOT NULL,"
-                    + "start_time TEXT NOT NULL,"
-                    + "end_time TEXT NOT NULL,"
-                    + "FOREIGN KEY (user_id) REFERENCES users(id)"
-
-                    + ")";
-            statement.execute(eventsTableQuery);
-
+            SchemaMigrator.migrate(connection);
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -97,7 +96,8 @@ public class SqliteUserDAO implements IUserDAO {
         }
 
         String query = "INSERT INTO users (username, password, email, bio) VALUES (?, ?, ?, ?)";
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (StatementCache.CachedStatement cached = prepare(query)) {
+            PreparedStatement stmt = cached.statement();
             stmt.setString(1, user.getUsername());
             stmt.setString(2, user.getPassword());
             stmt.setString(3, user.getEmail());
@@ -115,19 +115,22 @@ public class SqliteUserDAO implements IUserDAO {
      * @return The user object if it can be found else return null
      */
     private User getUserByColumn(String column, String value) {
-        String query = "SELECT * FROM users WHERE " + column + " = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        // Only the small profile columns, images are read separately through openProfileImage
+        String query = "SELECT id, username, password, email, bio FROM users WHERE " + column + " = ?";
+        try (StatementCache.CachedStatement cached = prepare(query)) {
+            PreparedStatement stmt = cached.statement();
             stmt.setString(1, value);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                User user = new User(
-                        rs.getString("username"),
-                        rs.getString("password"),
-                        rs.getString("email")
-                );
-                user.setBio(rs.getString("bio"));
-                return user;
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    User user = new User(
+                            rs.getString("username"),
+                            rs.getString("password"),
+                            rs.getString("email")
+                    );
+                    user.setId(rs.getInt("id"));
+                    user.setBio(rs.getString("bio"));
+                    return user;
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -163,12 +166,14 @@ public class SqliteUserDAO implements IUserDAO {
      */
     @Override
     public boolean validateUser(String email, String password) {
-        String query = "SELECT * FROM users WHERE email = ? AND password = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        String query = "SELECT 1 FROM users WHERE email = ? AND password = ?";
+        try (StatementCache.CachedStatement cached = prepare(query)) {
+            PreparedStatement stmt = cached.statement();
             stmt.setString(1, email);
             stmt.setString(2, password);
-            ResultSet rs = stmt.executeQuery();
-            return rs.next();
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -183,10 +188,12 @@ public class SqliteUserDAO implements IUserDAO {
     @Override
     public boolean userExists(String email) {
         String query = "SELECT COUNT(*) FROM users WHERE email = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (StatementCache.CachedStatement cached = prepare(query)) {
+            PreparedStatement stmt = cached.statement();
             stmt.setString(1, email);
-            ResultSet rs = stmt.executeQuery();
-            return rs.getInt(1) > 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.getInt(1) > 0;
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -199,34 +206,73 @@ public class SqliteUserDAO implements IUserDAO {
      */
     @Override
     public void deleteUser(String username) {
+        User user = getUserByUsername(username);
         String query = "DELETE FROM users WHERE username = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (StatementCache.CachedStatement cached = prepare(query)) {
+            PreparedStatement stmt = cached.statement();
+            String imageKey = user != null ? profileImages.keyFor(user.getEmail()) : null;
             stmt.setString(1, username);
             stmt.executeUpdate();
+            profileImages.removeIfUnused(imageKey);
+            EventChangeBus.getInstance().publish(new EventChange.EventChanged(user != null ? user.getEmail() : null));
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
     /**
-     * Updates profile image of the user keyed by their email
+     * Updates profile image of the user keyed by their email.
+     * The image is stored once per distinct content and the user row only keeps its hash,
+     * the previous image is deleted if no other user shares it.
      * @param email email address of user
-     * @param imageData profile image data in byter array format
+     * @param imageData profile image data in byter array format, null removes the image
      * @return true if updata was successful, else false
      */
     @Override
     public boolean updateProfileImage(String email, byte[] imageData) {
-        String query = "UPDATE users SET profile_image = ? WHERE email = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
-            stmt.setBytes(1, imageData);  // Store the byte array in the database
-            stmt.setString(2, email);
-            return stmt.executeUpdate() > 0;
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
+        String query = "UPDATE users SET profile_image_hash = ? WHERE email = ?";
+        synchronized (connection) {
+            try {
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                try (StatementCache.CachedStatement cached = prepare(query)) {
+                    PreparedStatement stmt = cached.statement();
+                    String previousKey = profileImages.keyFor(email);
+                    String newKey = imageData != null ? profileImages.put(imageData) : null;
+                    stmt.setString(1, newKey);
+                    stmt.setString(2, email);
+                    boolean updated = stmt.executeUpdate() > 0;
+                    if (previousKey != null && !previousKey.equals(newKey)) {
+                        profileImages.removeIfUnused(previousKey);
+                    }
+                    profileImages.removeIfUnused(updated ? null : newKey);
+                    connection.commit();
+                    return updated;
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return false;
+            }
         }
     }
 
+    /**
+     * Updates the profile image of the user with the given id, whatever their email is by the time this runs
+     * @param userId id of user
+     * @param imageData profile image data in byte array format, null removes the image
+     * @return true if update was successful, else false
+     */
+    @Override
+    public boolean updateProfileImage(int userId, byte[] imageData) {
+        String email = getEmailById(userId);
+        return email != null && updateProfileImage(email, imageData);
+    }
+
     /**
      * Gets the profile image of the user keyed by their email
      * @param email Email of the target user
@@ -234,19 +280,29 @@ public class SqliteUserDAO implements IUserDAO {
      */
     @Override
     public byte[] getProfileImage(String email) {
-        String query = "SELECT profile_image FROM users WHERE email = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
-            stmt.setString(1, email);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return rs.getBytes("profile_image");  // Return the byte array
-            }
-        } catch (SQLException e) {
+        try (InputStream image = openProfileImage(email)) {
+            return image != null ? image.readAllBytes() : null;
+        } catch (IOException e) {
             e.printStackTrace();
         }
         return null;  // No image found
     }
 
+    /**
+     * Opens the profile image of the user keyed by their email, for decoding straight from the stream
+     * @param email Email of the target user
+     * @return stream over the image data, or null if the user has no image or an error occurs
+     */
+    @Override
+    public InputStream openProfileImage(String email) {
+        try {
+            return profileImages.open(email);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
     /**
      * Updates the email with a new email
      * @param currentEmail Current users email
@@ -256,16 +312,33 @@ public class SqliteUserDAO implements IUserDAO {
     @Override
     public boolean updateEmail(String currentEmail, String newEmail) {
         String sql = "UPDATE users SET email = ? WHERE email = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (StatementCache.CachedStatement cached = prepare(sql)) {
+            PreparedStatement stmt = cached.statement();
             stmt.setString(1, newEmail);
             stmt.setString(2, currentEmail);
-            return stmt.executeUpdate() > 0;
+            boolean updated = stmt.executeUpdate() > 0;
+            // Cached windows and views are keyed by email, so the user's events must be reloaded under the new one
+            EventChangeBus.getInstance().publish(new EventChange.EventChanged(currentEmail));
+            EventChangeBus.getInstance().publish(new EventChange.EventChanged(newEmail));
+            return updated;
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
         }
     }
 
+    /**
+     * Updates the email of the user with the given id
+     * @param userId id of the user
+     * @param newEmail The new email the User wants to change it to
+     * @return True if successful, false otherwise
+     */
+    @Override
+    public boolean updateEmail(int userId, String newEmail) {
+        String currentEmail = getEmailById(userId);
+        return currentEmail != null && updateEmail(currentEmail, newEmail);
+    }
+
     /**
      * Updates users password to a new password
      * @param email Current users email
@@ -275,7 +348,8 @@ public class SqliteUserDAO implements IUserDAO {
     @Override
     public boolean updatePassword(String email, String newPassword) {
         String sql = "UPDATE users SET password = ? WHERE email = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (StatementCache.CachedStatement cached = prepare(sql)) {
+            PreparedStatement stmt = cached.statement();
             stmt.setString(1, newPassword);
             stmt.setString(2, email);
             return stmt.executeUpdate() > 0;
@@ -286,107 +360,317 @@ public class SqliteUserDAO implements IUserDAO {
     }
 
     /**
-     * Method to send frined request to other users
+     * Updates the password of the user with the given id
+     * @param userId id of the user
+     * @param newPassword Users new password
+     * @return true if successful, else false
+     */
+    @Override
+    public boolean updatePassword(int userId, String newPassword) {
+        return updateColumnById("password", userId, newPassword);
+    }
+
+    /**
+     * Updates a text column of the user with the given id
+     * @param column Name of column within db to update
+     * @param userId id of the user
+     * @param value New value of the column
+     * @return true if a row was updated, else false
+     */
+    private boolean updateColumnById(String column, int userId, String value) {
+        String sql = "UPDATE users SET " + column + " = ? WHERE id = ?";
+        try (StatementCache.CachedStatement cached = prepare(sql)) {
+            PreparedStatement stmt = cached.statement();
+            stmt.setString(1, value);
+            stmt.setInt(2, userId);
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Looks up the current email of a user
+     * @param userId id of the user
+     * @return The user's email, or null if there is no such user or an error occurs
+     */
+    private String getEmailById(int userId) {
+        String sql = "SELECT email FROM users WHERE id = ?";
+        try (StatementCache.CachedStatement cached = prepare(sql)) {
+            PreparedStatement stmt = cached.statement();
+            stmt.setInt(1, userId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getString("email") : null;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Database work run by {@link #inTransaction(SqlWork)}
+     * @param <T> result of the work
+     */
+    private interface SqlWork<T> {
+        T run() throws SQLException;
+    }
+
+    /**
+     * Runs work on the writer connection as one transaction, rolling back if it throws.
+     * The connection is held for the whole transaction so other threads cannot interleave statements.
+     * @param work statements to run
+     * @return result of the work
+     * @throws SQLException if the work or the commit fails
+     */
+    private <T> T inTransaction(SqlWork<T> work) throws SQLException {
+        synchronized (connection) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                T result = work.run();
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * Method to send frined request to other users.
+     * A declined request can be sent again, a pending or accepted one is left as it is.
+     * Nothing is sent while the other user has a pending request to the sender, that one should be accepted instead.
      * @param senderUsername Username of user sending request
      * @param receiverUsername Username of user recieving request
-     * @return True if sent successfully, else false
+     * @return whether the request was sent and its state afterwards
      */
     @Override
-    public boolean sendFriendRequest(String senderUsername, String receiverUsername) {
-        User sender = getUserByUsername(senderUsername);
-        User receiver = getUserByUsername(receiverUsername);
+    public FriendRequestResult sendFriendRequest(String senderUsername, String receiverUsername) {
+        // The upsert only touches a declined row, so a pending or accepted request stays untouched
+        String query = "INSERT INTO friend_requests (sender_id, receiver_id, status) " +
+                "SELECT s.id, r.id, ? FROM users s JOIN users r ON r.username = ? " +
+                "WHERE s.username = ? AND s.id <> r.id " +
+                "AND NOT EXISTS (SELECT 1 FROM friendships f WHERE f.user_id = s.id AND f.friend_id = r.id) " +
+                "AND NOT EXISTS (SELECT 1 FROM friend_requests x WHERE x.sender_id = r.id AND x.receiver_id = s.id AND x.status = ?) " +
+                "ON CONFLICT (sender_id, receiver_id) DO UPDATE SET status = excluded.status " +
+                "WHERE friend_requests.status = ? " +
+                "RETURNING status";
+        return applyFriendRequest(senderUsername, receiverUsername, () -> {
+            try (StatementCache.CachedStatement cached = prepare(query)) {
+                PreparedStatement stmt = cached.statement();
+                stmt.setString(1, FriendRequestStatus.PENDING.columnValue());
+                stmt.setString(2, receiverUsername);
+                stmt.setString(3, senderUsername);
+                stmt.setString(4, FriendRequestStatus.PENDING.columnValue());
+                stmt.setString(5, FriendRequestStatus.DECLINED.columnValue());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next();
+                }
+            }
+        });
+    }
 
-        if (sender != null && receiver != null) {
-            if (isFriendRequestPending(sender.getEmail(), receiver.getEmail())) {
-                System.out.println("Friend request already sent.");
-                return false;
+    /**
+     * Accepts friend request between 2 users and records the friendship in both directions,
+     * in one transaction so friendships never disagree with the request status
+     * @param senderUsername Username of sender
+     * @param receiverUsername Username receiver
+     * @return whether a pending request was accepted and its state afterwards
+     */
+    @Override
+    public FriendRequestResult acceptFriendRequest(String senderUsername, String receiverUsername) {
+        return applyFriendRequest(senderUsername, receiverUsername, () -> {
+            int[] pair = setPendingStatus(senderUsername, receiverUsername, FriendRequestStatus.ACCEPTED);
+            if (pair != null) {
+                addFriendship(pair[0], pair[1]);
             }
-            String query = "INSERT INTO friend_requests (sender_email, receiver_email, status) VALUES (?, ?, ?)";
-            try (PreparedStatement stmt = connection.prepareStatement(query)) {
-                stmt.setString(1, sender.getEmail());
-                stmt.setString(2, receiver.getEmail());
-                stmt.setString(3, "pending");
-                stmt.executeUpdate();
-                return true;
-            } catch (SQLException e) {
-                e.printStackTrace();
+            return pair != null;
+        });
+    }
+
+    /**
+     * Declines friend request between 2 users
+     * @param senderUsername Username of sender
+     * @param receiverUsername Username receiver
+     * @return whether a pending request was declined and its state afterwards
+     */
+    @Override
+    public FriendRequestResult declineFriendRequest(String senderUsername, String receiverUsername) {
+        return applyFriendRequest(senderUsername, receiverUsername,
+                () -> setPendingStatus(senderUsername, receiverUsername, FriendRequestStatus.DECLINED) != null);
+    }
+
+    /**
+     * Deletes a friend request between 2 users, ending the friendship as well if it had been accepted
+     * @param senderUsername Username of sender
+     * @param receiverUsername Username receiver
+     * @return whether a request was deleted and the state afterwards
+     */
+    @Override
+    public FriendRequestResult deleteFriendRequest(String senderUsername, String receiverUsername) {
+        String query = "DELETE FROM friend_requests " +
+                "WHERE sender_id = (SELECT id FROM users WHERE username = ?) " +
+                "AND receiver_id = (SELECT id FROM users WHERE username = ?) " +
+                "RETURNING sender_id, receiver_id, status";
+        return applyFriendRequest(senderUsername, receiverUsername, () -> {
+            try (StatementCache.CachedStatement cached = prepare(query)) {
+                PreparedStatement stmt = cached.statement();
+                stmt.setString(1, senderUsername);
+                stmt.setString(2, receiverUsername);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    if (FriendRequestStatus.fromColumn(rs.getString("status")) == FriendRequestStatus.ACCEPTED) {
+                        deleteFriendship(rs.getInt("sender_id"), rs.getInt("receiver_id"));
+                    }
+                    return true;
+                }
             }
-        }
-        return false;
+        });
     }
 
     /**
-     * Checks if a friend request is pending between 2 users
-     * @param senderEmail Email of yser sending request
-     * @param receiverEmail Email of user receiving request
-     * @return True if pending exist else false
+     * Ends the friendship between 2 users, whichever of them sent the original request
+     * @param username Username of the user removing the friend
+     * @param friendUsername Username of the friend being removed
+     * @return whether they were friends and the state afterwards
      */
-    private boolean isFriendRequestPending(String senderEmail, String receiverEmail) {
-        String query = "SELECT COUNT(*) FROM friend_requests WHERE sender_email = ? AND receiver_email = ? AND status = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
-            stmt.setString(1, senderEmail);
-            stmt.setString(2, receiverEmail);
-            stmt.setString(3, "pending");
-            ResultSet rs = stmt.executeQuery();
-            return rs.getInt(1) > 0;
+    @Override
+    public FriendRequestResult removeFriend(String username, String friendUsername) {
+        String query = "DELETE FROM friend_requests WHERE status = ? AND " +
+                "((sender_id = (SELECT id FROM users WHERE username = ?) AND receiver_id = (SELECT id FROM users WHERE username = ?)) " +
+                "OR (sender_id = (SELECT id FROM users WHERE username = ?) AND receiver_id = (SELECT id FROM users WHERE username = ?))) " +
+                "RETURNING sender_id, receiver_id";
+        return applyFriendRequest(username, friendUsername, () -> {
+            try (StatementCache.CachedStatement cached = prepare(query)) {
+                PreparedStatement stmt = cached.statement();
+                stmt.setString(1, FriendRequestStatus.ACCEPTED.columnValue());
+                stmt.setString(2, username);
+                stmt.setString(3, friendUsername);
+                stmt.setString(4, friendUsername);
+                stmt.setString(5, username);
+                boolean removed = false;
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        deleteFriendship(rs.getInt("sender_id"), rs.getInt("receiver_id"));
+                        removed = true;
+                    }
+                }
+                return removed;
+            }
+        });
+    }
+
+    /**
+     * Runs one friend request change in its own transaction and reads the resulting state inside it,
+     * so the reported state is exactly what the change left behind
+     * @param senderUsername Username of sender
+     * @param receiverUsername Username receiver
+     * @param change statements making the change, returning whether anything changed
+     * @return outcome of the change, not applied with state NONE if the database fails
+     */
+    private FriendRequestResult applyFriendRequest(String senderUsername, String receiverUsername, SqlWork<Boolean> change) {
+        try {
+            return inTransaction(() -> {
+                boolean applied = change.run();
+                return new FriendRequestResult(applied, getFriendRequestStatus(senderUsername, receiverUsername));
+            });
         } catch (SQLException e) {
             e.printStackTrace();
+            return new FriendRequestResult(false, FriendRequestStatus.NONE);
         }
-        return false;
     }
 
     /**
-     * Accepts friend request between 2 users
+     * Moves a pending request to accepted or declined
      * @param senderUsername Username of sender
      * @param receiverUsername Username receiver
-     * @return True if successful else false
+     * @param status new status of the request
+     * @return sender and receiver ids if a pending request was updated, else null
+     * @throws SQLException if the update fails
      */
-    @Override
-    public boolean acceptFriendRequest(String senderUsername, String receiverUsername) {
-        User sender = getUserByUsername(senderUsername);
-        User receiver = getUserByUsername(receiverUsername);
-
-        if (sender != null && receiver != null) {
-            String query = "UPDATE friend_requests SET status = ? WHERE sender_email = ? AND receiver_email = ? AND status = ?";
-            try (PreparedStatement stmt = connection.prepareStatement(query)) {
-                stmt.setString(1, "accepted");
-                stmt.setString(2, sender.getEmail());
-                stmt.setString(3, receiver.getEmail());
-                stmt.setString(4, "pending");
-                int rowsUpdated = stmt.executeUpdate();
-                return rowsUpdated > 0;
-            } catch (SQLException e) {
-                e.printStackTrace();
+    private int[] setPendingStatus(String senderUsername, String receiverUsername, FriendRequestStatus status) throws SQLException {
+        String query = "UPDATE friend_requests SET status = ? " +
+                "WHERE sender_id = (SELECT id FROM users WHERE username = ?) " +
+                "AND receiver_id = (SELECT id FROM users WHERE username = ?) " +
+                "AND status = ? " +
+                "RETURNING sender_id, receiver_id";
+        try (StatementCache.CachedStatement cached = prepare(query)) {
+            PreparedStatement stmt = cached.statement();
+            stmt.setString(1, status.columnValue());
+            stmt.setString(2, senderUsername);
+            stmt.setString(3, receiverUsername);
+            stmt.setString(4, FriendRequestStatus.PENDING.columnValue());
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? new int[]{rs.getInt("sender_id"), rs.getInt("receiver_id")} : null;
             }
         }
-        return false;
     }
 
     /**
-     * Declines friend request between 2 users
+     * Reads the state of the request from one user to another.
+     * Friends count as accepted whichever of them sent the request.
      * @param senderUsername Username of sender
      * @param receiverUsername Username receiver
-     * @return True if successful else false
+     * @return state of the request, NONE if there is none
+     * @throws SQLException if the lookup fails
      */
-    @Override
-    public boolean declineFriendRequest(String senderUsername, String receiverUsername) {
-        User sender = getUserByUsername(senderUsername);
-        User receiver = getUserByUsername(receiverUsername);
-
-        if (sender != null && receiver != null) {
-            String query = "UPDATE friend_requests SET status = ? WHERE sender_email = ? AND receiver_email = ? AND status = ?";
-            try (PreparedStatement stmt = connection.prepareStatement(query)) {
-                stmt.setString(1, "declined");
-                stmt.setString(2, sender.getEmail());
-                stmt.setString(3, receiver.getEmail());
-                stmt.setString(4, "pending");
-                int rowsUpdated = stmt.executeUpdate();
-                return rowsUpdated > 0;
-            } catch (SQLException e) {
-                e.printStackTrace();
+    private FriendRequestStatus getFriendRequestStatus(String senderUsername, String receiverUsername) throws SQLException {
+        String query = "SELECT CASE WHEN EXISTS (SELECT 1 FROM friendships WHERE user_id = s.id AND friend_id = r.id) THEN ? " +
+                "ELSE (SELECT status FROM friend_requests WHERE sender_id = s.id AND receiver_id = r.id) END " +
+                "FROM users s JOIN users r ON r.username = ? WHERE s.username = ?";
+        try (StatementCache.CachedStatement cached = prepare(query)) {
+            PreparedStatement stmt = cached.statement();
+            stmt.setString(1, FriendRequestStatus.ACCEPTED.columnValue());
+            stmt.setString(2, receiverUsername);
+            stmt.setString(3, senderUsername);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return FriendRequestStatus.fromColumn(rs.next() ? rs.getString(1) : null);
             }
         }
-        return false;
+    }
+
+    /**
+     * Records a friendship in both directions, callers run this inside their transaction
+     * @param userId Id of one user
+     * @param friendId Id of the other user
+     * @throws SQLException if the insert fails
+     */
+    private void addFriendship(int userId, int friendId) throws SQLException {
+        String query = "INSERT OR IGNORE INTO friendships (user_id, friend_id) VALUES (?, ?), (?, ?)";
+        try (StatementCache.CachedStatement cached = prepare(query)) {
+            PreparedStatement stmt = cached.statement();
+            stmt.setInt(1, userId);
+            stmt.setInt(2, friendId);
+            stmt.setInt(3, friendId);
+            stmt.setInt(4, userId);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Removes both directions of a friendship, callers run this inside their transaction
+     * @param userId Id of one user
+     * @param friendId Id of the other user
+     * @return True if a friendship existed
+     * @throws SQLException if the delete fails
+     */
+    private boolean deleteFriendship(int userId, int friendId) throws SQLException {
+        String query = "DELETE FROM friendships WHERE (user_id = ? AND friend_id = ?) OR (user_id = ? AND friend_id = ?)";
+        try (StatementCache.CachedStatement cached = prepare(query)) {
+            PreparedStatement stmt = cached.statement();
+            stmt.setInt(1, userId);
+            stmt.setInt(2, friendId);
+            stmt.setInt(3, friendId);
+            stmt.setInt(4, userId);
+            return stmt.executeUpdate() > 0;
+        }
     }
 
     /**
@@ -398,7 +682,8 @@ public class SqliteUserDAO implements IUserDAO {
     @Override
     public boolean updateBio(String email, String newBio) {
         String query = "UPDATE users SET bio = ? WHERE email = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (StatementCache.CachedStatement cached = prepare(query)) {
+            PreparedStatement stmt = cached.statement();
             stmt.setString(1, newBio);
             stmt.setString(2, email);
             return stmt.executeUpdate() > 0;
@@ -408,6 +693,17 @@ public class SqliteUserDAO implements IUserDAO {
         }
     }
 
+    /**
+     * Updates the bio of the user with the given id
+     * @param userId id of the user whose bio is being changed
+     * @param newBio The new users bio
+     * @return True if successful else false
+     */
+    @Override
+    public boolean updateBio(int userId, String newBio) {
+        return updateColumnById("bio", userId, newBio);
+    }
+
     /**
      * Grabs list of pending friend request for a user
      * @param username Username of the user checking their request
@@ -419,20 +715,22 @@ public class SqliteUserDAO implements IUserDAO {
         List<User> pendingRequests = new ArrayList<>();
         if (user != null) {
             String query = "SELECT u.username, u.password, u.email, u.bio FROM users u "
-                    + "JOIN friend_requests fr ON u.email = fr.sender_email "
-                    + "WHERE fr.receiver_email = ? AND fr.status = ?";
-            try (PreparedStatement stmt = connection.prepareStatement(query)) {
-                stmt.setString(1, user.getEmail());
+                    + "JOIN friend_requests fr ON u.id = fr.sender_id "
+                    + "WHERE fr.receiver_id = ? AND fr.status = ?";
+            try (StatementCache.CachedStatement cached = prepare(query)) {
+                PreparedStatement stmt = cached.statement();
+                stmt.setInt(1, user.getId());
                 stmt.setString(2, "pending");
-                ResultSet rs = stmt.executeQuery();
-                while (rs.next()) {
-                    User requester = new User(
-                            rs.getString("username"),
-                            rs.getString("password"),
-                            rs.getString("email")
-                    );
-                    requester.setBio(rs.getString("bio"));
-                    pendingRequests.add(requester);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        User requester = new User(
+                                rs.getString("username"),
+                                rs.getString("password"),
+                                rs.getString("email")
+                        );
+                        requester.setBio(rs.getString("bio"));
+                        pendingRequests.add(requester);
+                    }
                 }
             } catch (SQLException e) {
                 e.printStackTrace();
@@ -454,17 +752,12 @@ public class SqliteUserDAO implements IUserDAO {
         if (user != null) {
             String query =
                     "SELECT u.username, u.password, u.email, u.bio " +
-                            "FROM users u " +
-                            "JOIN friend_requests fr " +
-                            "  ON (u.email = fr.sender_email OR u.email = fr.receiver_email) " +
-                            "WHERE (fr.sender_email = ? OR fr.receiver_email = ?) " +
-                            "  AND fr.status = ? " +
-                            "  AND u.username <> ?";
-            try (PreparedStatement stmt = connection.prepareStatement(query)) {
-                stmt.setString(1, user.getEmail());
-                stmt.setString(2, user.getEmail());
-                stmt.setString(3, "accepted");
-                stmt.setString(4, username);
+                            "FROM friendships f " +
+                            "JOIN users u ON u.id = f.friend_id " +
+                            "WHERE f.user_id = ?";
+            try (StatementCache.CachedStatement cached = prepare(query)) {
+                PreparedStatement stmt = cached.statement();
+                stmt.setInt(1, user.getId());
 
                 try (ResultSet rs = stmt.executeQuery()) {
                     while (rs.next()) {
@@ -484,25 +777,354 @@ public class SqliteUserDAO implements IUserDAO {
         return friends;
     }
 
+    /**
+     * Lists every user as a summary, ordered by username
+     * @return List of summaries, empty if there are no users or an error occurs
+     */
+    @Override
+    public List<UserSummary> getAllUserSummaries() {
+        return querySummaries("SELECT id, username, email FROM users ORDER BY username");
+    }
+
+    /**
+     * Finds users by username prefix, ignoring case, using keyset pagination on the username index
+     * @param prefix start of the username typed so far
+     * @param after last user of the previous page, or null for the first page
+     * @param excludeId id of a user to leave out, 0 to keep everyone
+     * @param limit maximum number of users to return
+     * @return list of matching summaries, empty if none match or the prefix is blank
+     */
+    @Override
+    public List<UserSummary> searchUsersByPrefix(String prefix, UserSummary after, int excludeId, int limit) {
+        List<UserSummary> summaries = new ArrayList<>();
+        if (prefix == null || prefix.isBlank() || limit < 1) {
+            return summaries;
+        }
+        String start = prefix.trim();
+        // Every username starting with the prefix sorts below the prefix followed by the highest code point
+        String end = start + new String(Character.toChars(Character.MAX_CODE_POINT));
+
+        String query = "SELECT id, username, email FROM users " +
+                "WHERE username >= ? COLLATE NOCASE AND username < ? COLLATE NOCASE AND id <> ? " +
+                "AND (username > ? COLLATE NOCASE OR (username = ? COLLATE NOCASE AND id > ?)) " +
+                "ORDER BY username COLLATE NOCASE, id LIMIT ?";
+        try (SqliteConnection.ReadLease lease = SqliteConnection.borrowReader();
+             StatementCache.CachedStatement cached = StatementCache.prepare(lease.connection(), query)) {
+            PreparedStatement stmt = cached.statement();
+            // The index range starts at the cursor, so later pages seek straight to it instead of skipping rows
+            stmt.setString(1, after != null ? after.getUsername() : start);
+            stmt.setString(2, end);
+            stmt.setInt(3, excludeId);
+            stmt.setString(4, after != null ? after.getUsername() : "");
+            stmt.setString(5, after != null ? after.getUsername() : "");
+            stmt.setInt(6, after != null ? after.getId() : 0);
+            stmt.setInt(7, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    summaries.add(new UserSummary(rs.getInt("id"), rs.getString("username"), rs.getString("email")));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return summaries;
+    }
+
+    /**
+     * Retrieves the summary of a user by their username
+     * @param username Username of the user
+     * @return The summary if the user exists, otherwise null
+     */
+    @Override
+    public UserSummary getUserSummaryByUsername(String username) {
+        List<UserSummary> found = querySummaries("SELECT id, username, email FROM users WHERE username = ?", username);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /**
+     * Retrieves the summary of a user by their email
+     * @param email Email of the user
+     * @return The summary if the user exists, otherwise null
+     */
+    @Override
+    public UserSummary getUserSummaryByEmail(String email) {
+        List<UserSummary> found = querySummaries("SELECT id, username, email FROM users WHERE email = ?", email);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /**
+     * Lists the friends of a user as summaries, the same people as {@link #getFriends(String)}
+     * @param username Username of user whose friends are being retrieved
+     * @return List of friend summaries, empty if the user has no friends or does not exist
+     */
+    @Override
+    public List<UserSummary> getFriendSummaries(String username) {
+        String query = "SELECT u.id, u.username, u.email " +
+                "FROM users me " +
+                "JOIN friendships f ON f.user_id = me.id " +
+                "JOIN users u ON u.id = f.friend_id " +
+                "WHERE me.username = ?";
+        return querySummaries(query, username);
+    }
+
+    /**
+     * Lists the users who have sent a pending friend request to a user
+     * @param username Username of the user receiving the requests
+     * @return List of sender summaries, empty if there are no pending requests
+     */
+    @Override
+    public List<UserSummary> getIncomingRequestSummaries(String username) {
+        String query = "SELECT u.id, u.username, u.email " +
+                "FROM users me " +
+                "JOIN friend_requests fr ON fr.receiver_id = me.id " +
+                "JOIN users u ON u.id = fr.sender_id " +
+                "WHERE me.username = ? AND fr.status = 'pending'";
+        return querySummaries(query, username);
+    }
+
+    /**
+     * Lists the users a user has sent a still pending friend request to
+     * @param username Username of the user who sent the requests
+     * @return List of receiver summaries, empty if there are no pending requests
+     */
+    @Override
+    public List<UserSummary> getOutgoingRequestSummaries(String username) {
+        String query = "SELECT u.id, u.username, u.email " +
+                "FROM users me " +
+                "JOIN friend_requests fr ON fr.sender_id = me.id " +
+                "JOIN users u ON u.id = fr.receiver_id " +
+                "WHERE me.username = ? AND fr.status = 'pending'";
+        return querySummaries(query, username);
+    }
+
+    /**
+     * Runs a query selecting id, username and email on a pooled reader and maps each row to a summary
+     * @param query SQL selecting the id, username and email columns
+     * @param params String parameters bound in order
+     * @return List of summaries, empty if there are no rows or an error occurs
+     */
+    private List<UserSummary> querySummaries(String query, String... params) {
+        List<UserSummary> summaries = new ArrayList<>();
+        try (SqliteConnection.ReadLease lease = SqliteConnection.borrowReader();
+             StatementCache.CachedStatement cached = StatementCache.prepare(lease.connection(), query)) {
+            PreparedStatement stmt = cached.statement();
+            for (int i = 0; i < params.length; i++) {
+                stmt.setString(i + 1, params[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    summaries.add(new UserSummary(rs.getInt("id"), rs.getString("username"), rs.getString("email")));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return summaries;
+    }
+
+    /**
+     * Resolves the id events are stored under. Callers built before ids were loaded pass 0, so fall back to the email.
+     * @param userId ID of the user, 0 or less if unknown
+     * @param email Email of the user
+     * @return the id of the user, or {@code userId} if no user has that email
+     * @throws SQLException if the lookup fails
+     */
+    private int resolveUserId(int userId, String email) throws SQLException {
+        if (userId > 0) {
+            return userId;
+        }
+        try (StatementCache.CachedStatement cached = prepare("SELECT id FROM users WHERE email = ?")) {
+            PreparedStatement stmt = cached.statement();
+            stmt.setString(1, email);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : userId;
+            }
+        }
+    }
+
     /**
      * Inserts new event into the database
-     * @param userId ID of the user whose event this is
+     * @param userId ID of the user whose event this is, or 0 to look it up by email
      * @param user_email Email of user whose event this is
      * @param name Name of the event
      * @param start_time start time of the event
      * @param end_time end time of the event
      */
     public void insertEvent(int userId, String user_email, String name, String start_time, String end_time) {
-        String query = "INSERT INTO events (user_id, user_email, name, start_time, end_time) VALUES (?, ?, ?, ?, ?)";
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
-            stmt.setInt(1, userId);
-            stmt.setString(2, user_email);
-            stmt.setString(3, name);
-            stmt.setString(4, start_time);
-            stmt.setString(5, end_time);
-            stmt.executeUpdate();
+        String query = "INSERT INTO events (user_id, title_id, start_time, end_time, start_epoch, end_epoch) "
+                + "VALUES (?, (SELECT id FROM event_titles WHERE title = ?), ?, ?, ?, ?)";
+        Long startEpoch = EventTimes.parseEpochSecond(start_time);
+        Long endEpoch = EventTimes.parseEpochSecond(end_time);
+        EventChange change = new EventChange.EventChanged(user_email);
+        try (StatementCache.CachedStatement titleCached = prepare(INSERT_TITLE);
+             StatementCache.CachedStatement cached = prepare(query)) {
+            addTitle(titleCached.statement(), name);
+            PreparedStatement stmt = cached.statement();
+            stmt.setInt(1, resolveUserId(userId, user_email));
+            stmt.setString(2, name);
+            stmt.setString(3, start_time);
+            stmt.setString(4, end_time);
+            SchemaMigrator.setEpoch(stmt, 5, startEpoch);
+            SchemaMigrator.setEpoch(stmt, 6, endEpoch);
+            if (stmt.executeUpdate() > 0 && startEpoch != null && endEpoch != null) {
+                change = new EventChange.EventAdded(user_email, new Event(name,
+                        EventTimes.fromEpochSecond(startEpoch), EventTimes.fromEpochSecond(endEpoch), null));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            // Anything but a clean insert makes subscribers reload the user's events
+            EventChangeBus.getInstance().publish(change);
+        }
+    }
+
+    /**
+     * Inserts many events for one user in a single transaction, sending them in batches of
+     * {@link #DEFAULT_INSERT_CHUNK_SIZE}
+     * @param userId ID of the user whose events these are
+     * @param userEmail Email of user whose events these are
+     * @param events Events to insert
+     * @return whether each event was inserted, in the iteration order of {@code events}
+     */
+    public boolean[] insertEvents(int userId, String userEmail, Collection<Event> events) {
+        return insertEvents(userId, userEmail, events, DEFAULT_INSERT_CHUNK_SIZE);
+    }
+
+    /**
+     * Inserts many events for one user in a single transaction using JDBC batches.
+     * Events without a name or whose times could not be parsed are skipped and reported as not inserted.
+     * If the database rejects any batch the whole transaction is rolled back and no event is inserted.
+     * @param userId ID of the user whose events these are, or 0 to look it up by email
+     * @param userEmail Email of user whose events these are
+     * @param events Events to insert
+     * @param chunkSize Number of rows sent to SQLite per batch
+     * @return whether each event was inserted, in the iteration order of {@code events}
+     */
+    public boolean[] insertEvents(int userId, String userEmail, Collection<Event> events, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        boolean[] inserted = new boolean[events.size()];
+        String query = "INSERT INTO events (user_id, title_id, start_time, end_time, start_epoch, end_epoch) "
+                + "VALUES (?, (SELECT id FROM event_titles WHERE title = ?), ?, ?, ?, ?)";
+
+        EventChange change = new EventChange.EventChanged(userEmail);
+
+        // Other threads share the writer, hold it so their statements do not end up in this transaction
+        synchronized (connection) {
+            try {
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                try (StatementCache.CachedStatement titleCached = prepare(INSERT_TITLE);
+                     StatementCache.CachedStatement cached = prepare(query)) {
+                    int ownerId = resolveUserId(userId, userEmail);
+                    PreparedStatement stmt = cached.statement();
+                    // Imports repeat a few titles many times, each only needs adding once
+                    Set<String> addedTitles = new HashSet<>();
+                    int[] batchRows = new int[chunkSize];
+                    int batched = 0;
+                    int row = 0;
+                    long earliest = Long.MAX_VALUE;
+                    long latest = Long.MIN_VALUE;
+                    for (Event event : events) {
+                        if (event.getName() == null || !event.hasTimes()) {
+                            row++;
+                            continue;
+                        }
+                        long startEpoch = event.getStartEpochSecond();
+                        long endEpoch = event.getEndEpochSecond();
+
+                        if (addedTitles.add(event.getName())) {
+                            addTitle(titleCached.statement(), event.getName());
+                        }
+                        stmt.setInt(1, ownerId);
+                        stmt.setString(2, event.getName());
+                        stmt.setString(3, event.getStart_time());
+                        stmt.setString(4, event.getEnd_time());
+                        stmt.setLong(5, startEpoch);
+                        stmt.setLong(6, endEpoch);
+                        stmt.addBatch();
+                        batchRows[batched++] = row++;
+                        earliest = Math.min(earliest, startEpoch);
+                        latest = Math.max(latest, endEpoch);
+
+                        if (batched == chunkSize) {
+                            executeEventBatch(stmt, batchRows, batched, inserted);
+                            batched = 0;
+                        }
+                    }
+                    executeEventBatch(stmt, batchRows, batched, inserted);
+                    connection.commit();
+                    int count = 0;
+                    for (boolean b : inserted) {
+                        count += b ? 1 : 0;
+                    }
+                    if (count > 0) {
+                        change = new EventChange.BulkImported(userEmail, count,
+                                EventTimes.fromEpochSecond(earliest), EventTimes.fromEpochSecond(latest));
+                    }
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                    connection.rollback();
+                    Arrays.fill(inserted, false);
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+                Arrays.fill(inserted, false);
+            }
+        }
+        EventChangeBus.getInstance().publish(change);
+        return inserted;
+    }
+
+    /**
+     * Runs the pending batch of insertEvents and records which rows were inserted
+     * @param stmt statement holding the batch
+     * @param batchRows position in the input of each batched row
+     * @param batched number of rows in the batch
+     * @param inserted per-row outcome to update
+     * @throws SQLException if the batch fails
+     */
+    private void executeEventBatch(PreparedStatement stmt, int[] batchRows, int batched, boolean[] inserted) throws SQLException {
+        if (batched == 0) {
+            return;
+        }
+        int[] counts = stmt.executeBatch();
+        for (int i = 0; i < batched; i++) {
+            inserted[batchRows[i]] = counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO;
+        }
+    }
+
+    /**
+     * Adds a title to event_titles so an event insert can reference it
+     * @param stmt the INSERT_TITLE statement
+     * @param title title of the event
+     * @throws SQLException if the insert fails
+     */
+    private void addTitle(PreparedStatement stmt, String title) throws SQLException {
+        stmt.setString(1, title);
+        stmt.executeUpdate();
+    }
+
+    /**
+     * Measures how much storing each event title once saves, as the characters of every event's title
+     * divided by the characters stored in event_titles
+     * @return the compression ratio, 0 if there are no events or if error occurs
+     */
+    public double getEventTitleCompressionRatio() {
+        String query = "SELECT (SELECT SUM(LENGTH(t.title)) FROM events e JOIN event_titles t ON t.id = e.title_id), "
+                + "(SELECT SUM(LENGTH(title)) FROM event_titles)";
+        try (SqliteConnection.ReadLease lease = SqliteConnection.borrowReader();
+             StatementCache.CachedStatement cached = StatementCache.prepare(lease.connection(), query);
+             ResultSet rs = cached.statement().executeQuery()) {
+            long referenced = rs.getLong(1);
+            long stored = rs.getLong(2);
+            return stored == 0 ? 0 : (double) referenced / stored;
         } catch (SQLException e) {
             e.printStackTrace();
+            return 0;
         }
     }
 
@@ -511,12 +1133,20 @@ public class SqliteUserDAO implements IUserDAO {
      * @param userEmail the email to delete events from
      */
     public void clearEventsByEmail(String userEmail) {
-        String query = "DELETE FROM events WHERE user_email = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        String query = "DELETE FROM events WHERE user_id = (SELECT id FROM users WHERE email = ?)";
+        // NOT IN builds the set of used ids once, rather than probing events for every title
+        String orphans = "DELETE FROM event_titles WHERE id NOT IN "
+                + "(SELECT title_id FROM events WHERE title_id IS NOT NULL)";
+        try (StatementCache.CachedStatement cached = prepare(query);
+             StatementCache.CachedStatement orphansCached = prepare(orphans)) {
+            PreparedStatement stmt = cached.statement();
             stmt.setString(1, userEmail);
             stmt.executeUpdate();
+            orphansCached.statement().executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
+        } finally {
+            EventChangeBus.getInstance().publish(new EventChange.EventRemoved(userEmail, null, null));
         }
     }
 
@@ -532,6 +1162,9 @@ public class SqliteUserDAO implements IUserDAO {
             stmt.executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
+        } finally {
+            // The statement could have changed any user's events
+            EventChangeBus.getInstance().publish(new EventChange.EventChanged(null));
         }
     }
 
@@ -542,27 +1175,43 @@ public class SqliteUserDAO implements IUserDAO {
      * @return List of events fpr specified user and data. Returns an empty list if no events are found or if error occurs
      */
     public List<Event> getUserEventsByEmailAndDate(String email, LocalDate date) {
+        return getUserEventsStartingBetween(email, date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Retrieves the events of a user that start within a time range, ordered by start time.
+     * The range is half-open so consecutive days, weeks or months never return the same event twice.
+     * @param email email of the specific user whose events are being grabbed
+     * @param from start of the range, inclusive
+     * @param to end of the range, exclusive
+     * @return List of events starting in the range. Returns an empty list if no events are found or if error occurs
+     */
+    public List<Event> getUserEventsStartingBetween(String email, LocalDateTime from, LocalDateTime to) {
         List<Event> events = new ArrayList<>();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
-        String dateString = date.format(formatter);
 
-        String query = "SELECT e.name, e.start_time, e.end_time, u.username " +
-                "FROM events e JOIN users u ON e.user_email = u.email " +
-                "WHERE e.user_email = ? AND e.start_time LIKE ? || '%'";
+        String query = "SELECT e.title_id, t.title AS name, e.start_epoch, e.end_epoch, u.username " +
+                "FROM events e JOIN users u ON e.user_id = u.id JOIN event_titles t ON t.id = e.title_id " +
+                "WHERE u.email = ? AND e.start_epoch >= ? AND e.start_epoch < ? " +
+                "ORDER BY e.start_epoch";
+        StringPool titles = EventCache.getInstance().titles();
 
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (SqliteConnection.ReadLease lease = SqliteConnection.borrowReader();
+             StatementCache.CachedStatement cached = StatementCache.prepare(lease.connection(), query)) {
+            PreparedStatement stmt = cached.statement();
             stmt.setString(1, email);
-            stmt.setString(2, dateString);
-            ResultSet resultSet = stmt.executeQuery();
+            stmt.setLong(2, EventTimes.toEpochSecond(from));
+            stmt.setLong(3, EventTimes.toEpochSecond(to));
 
-            while (resultSet.next()) {
-                String name = resultSet.getString("name");
-                String startTime = resultSet.getString("start_time");
-                String endTime = resultSet.getString("end_time");
-                String username = resultSet.getString("username");
+            try (ResultSet resultSet = stmt.executeQuery()) {
+                while (resultSet.next()) {
+                    String name = SchemaMigrator.getTitle(resultSet, titles);
+                    LocalDateTime start = SchemaMigrator.getEpoch(resultSet, "start_epoch");
+                    LocalDateTime end = SchemaMigrator.getEpoch(resultSet, "end_epoch");
+                    String username = resultSet.getString("username");
 
-                Event event = new Event(name, startTime, endTime, username);
-                events.add(event);
+                    Event event = new Event(name, start, end, username);
+                    events.add(event);
+                }
             }
         } catch (SQLException e) {
             System.err.println("Error retrieving events by email and date: " + e.getMessage());
@@ -571,5 +1220,71 @@ public class SqliteUserDAO implements IUserDAO {
         return events;
     }
 
-}
+    /**
+     * Full-text search over the names of a user's events, best matches first.
+     * Every word of the query is matched as a prefix, so "dent app" finds "Dentist appointment".
+     * Every match is ranked, however old, so the best hits are returned even for words found in thousands of events.
+     * @param userId ID of the user whose events are searched
+     * @param query text typed by the user, FTS5 syntax characters are treated as plain text
+     * @param limit maximum number of hits to return
+     * @return ranked hits with snippets. Returns an empty list if the query has no words or if error occurs
+     */
+    public List<EventSearchHit> searchEvents(int userId, String query, int limit) {
+        List<EventSearchHit> hits = new ArrayList<>();
+        String match = toFtsQuery(query);
+        if (match.isEmpty() || limit < 1) {
+            return hits;
+        }
+
+        // The rank column is bm25, and ordering by it lets FTS5 sort the matches itself
+        String sql = "SELECT e.title_id, t.title AS name, e.start_epoch, e.end_epoch, u.username, " +
+                "snippet(events_fts, 0, '" + EventSearchHit.MATCH_START + "', '" + EventSearchHit.MATCH_END + "', '...', 12) AS snippet, " +
+                "events_fts.rank AS rank " +
+                "FROM events_fts JOIN events e ON e.id = events_fts.rowid JOIN users u ON u.id = e.user_id " +
+                "JOIN event_titles t ON t.id = e.title_id " +
+                "WHERE events_fts MATCH ? AND e.user_id = ? ORDER BY events_fts.rank LIMIT ?";
+
+        StringPool titles = EventCache.getInstance().titles();
+        try (SqliteConnection.ReadLease lease = SqliteConnection.borrowReader();
+             StatementCache.CachedStatement cached = StatementCache.prepare(lease.connection(), sql)) {
+            PreparedStatement stmt = cached.statement();
+            stmt.setString(1, match);
+            stmt.setInt(2, userId);
+            stmt.setInt(3, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Event event = new Event(SchemaMigrator.getTitle(rs, titles), SchemaMigrator.getEpoch(rs, "start_epoch"),
+                            SchemaMigrator.getEpoch(rs, "end_epoch"), rs.getString("username"));
+                    hits.add(new EventSearchHit(event, rs.getString("snippet"), rs.getDouble("rank")));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error searching events: " + e.getMessage());
+        }
+        return hits;
+    }
 
+    /**
+     * Turns free text into an FTS5 query where every word is a quoted prefix term
+     * @param text text typed by the user, may be null
+     * @return the FTS5 query, empty if the text has no words
+     */
+    static String toFtsQuery(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder match = new StringBuilder();
+        for (String word : text.trim().split("\\s+")) {
+            // Quoting makes operators and punctuation literal, so only stray quotes need removing
+            String term = word.replace("\"", "");
+            if (term.isEmpty()) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            match.append('"').append(term).append("\"*");
+        }
+        return match.toString();
+    }
+}
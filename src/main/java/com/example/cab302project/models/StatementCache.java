@@ -0,0 +1,229 @@
+package com.example.cab302project.models;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps compiled prepared statements for a connection so frequently run queries are only parsed once.
+ * Statements are keyed by their SQL text and the least recently used one is closed once more than
+ * {@link #DEFAULT_CAPACITY} are idle.
+ * <p>
+ * A statement is checked out for the duration of a {@link CachedStatement} lease, so two threads sharing
+ * the writer connection never bind parameters on the same statement; if the SQL is already checked out the
+ * second caller gets a fresh statement, which is kept or closed when it is returned.
+ * Result sets should be closed before the lease so the statement does not hold a read snapshot while idle.
+ */
+public class StatementCache {
+
+    /**
+     * Maximum number of idle statements kept per connection.
+     */
+    public static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * One cache per open connection. Connections are compared by identity, and SqliteConnection discards
+     * the cache of every connection it closes or replaces.
+     */
+    private static final Map<Connection, StatementCache> caches = new IdentityHashMap<>();
+
+    private final Connection connection;
+    private final int capacity;
+    private final LinkedHashMap<String, PreparedStatement> idle;
+    private boolean discarded = false;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * Creates a cache for a connection. Most callers should use {@link #forConnection(Connection)}.
+     * @param connection    Connection the statements are prepared on
+     * @param capacity      Maximum number of idle statements to keep
+     */
+    public StatementCache(Connection connection, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Statement cache capacity must be positive: " + capacity);
+        }
+        this.connection = connection;
+        this.capacity = capacity;
+        this.idle = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= StatementCache.this.capacity) {
+                    return false;
+                }
+                evictions++;
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * @param connection    Connection to look up
+     * @return              The shared cache for the connection, created on first use
+     */
+    public static StatementCache forConnection(Connection connection) {
+        synchronized (caches) {
+            return caches.computeIfAbsent(connection, c -> new StatementCache(c, DEFAULT_CAPACITY));
+        }
+    }
+
+    /**
+     * Shorthand for {@code forConnection(connection).prepare(sql)}.
+     * @param connection    Connection to prepare on
+     * @param sql           SQL text of the statement
+     * @return              A lease on the statement, to be closed when finished with
+     * @throws SQLException If the statement could not be prepared
+     */
+    public static CachedStatement prepare(Connection connection, String sql) throws SQLException {
+        return forConnection(connection).prepare(sql);
+    }
+
+    /**
+     * Closes and forgets every cached statement of a connection. Called before the connection is closed
+     * or replaced; statements currently checked out are closed when they are returned.
+     * @param connection    Connection whose cache should be dropped
+     */
+    public static void discard(Connection connection) {
+        StatementCache cache;
+        synchronized (caches) {
+            cache = caches.remove(connection);
+        }
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Checks out the statement for some SQL, preparing it if it is not cached.
+     * @param sql           SQL text of the statement
+     * @return              A lease on the statement, to be closed when finished with
+     * @throws SQLException If the statement could not be prepared
+     */
+    public CachedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement;
+        synchronized (this) {
+            statement = idle.remove(sql);
+            if (statement != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+        }
+        if (statement == null) {
+            statement = connection.prepareStatement(sql);
+        }
+        return new CachedStatement(this, sql, statement);
+    }
+
+    /**
+     * Puts a statement back once its lease is closed, clearing its parameters and batch.
+     */
+    private synchronized void release(String sql, PreparedStatement statement) {
+        if (discarded || idle.containsKey(sql)) {
+            closeQuietly(statement);
+            return;
+        }
+        try {
+            statement.clearParameters();
+            statement.clearBatch();
+        } catch (SQLException e) {
+            closeQuietly(statement);
+            return;
+        }
+        idle.put(sql, statement);
+    }
+
+    /**
+     * Closes every idle statement. Statements returned afterwards are closed instead of cached.
+     */
+    private synchronized void clear() {
+        discarded = true;
+        for (PreparedStatement statement : idle.values()) {
+            closeQuietly(statement);
+        }
+        idle.clear();
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            System.err.println("Failed to close cached statement: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return Number of times a cached statement was reused
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return Number of times a statement had to be prepared
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return Number of idle statements closed to stay within capacity
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return Number of idle statements currently cached
+     */
+    public synchronized int size() {
+        return idle.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "StatementCache [size=" + idle.size() + ", hits=" + hits + ", misses=" + misses
+                + ", evictions=" + evictions + "]";
+    }
+
+    /**
+     * A prepared statement checked out of the cache. Closing the lease returns the statement to the cache
+     * rather than closing it.
+     */
+    public static final class CachedStatement implements AutoCloseable {
+        private final StatementCache cache;
+        private final String sql;
+        private final PreparedStatement statement;
+        private boolean returned = false;
+
+        private CachedStatement(StatementCache cache, String sql, PreparedStatement statement) {
+            this.cache = cache;
+            this.sql = sql;
+            this.statement = statement;
+        }
+
+        /**
+         * @return The checked out statement. It must not be used after the lease is closed.
+         */
+        public PreparedStatement statement() {
+            return statement;
+        }
+
+        /**
+         * Returns the statement to the cache. Calling this more than once has no effect.
+         */
+        @Override
+        public void close() {
+            if (returned) {
+                return;
+            }
+            returned = true;
+            cache.release(sql, statement);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.cab302project.models;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * A named set of SQLite PRAGMA settings that is applied to every connection when it is opened.
+ * <p>
+ * The profile in use is chosen by {@link #load()}: it starts from the profile named by the
+ * {@code storage.profile} key (default {@code durable}) and then applies any individual overrides,
+ * first from a {@code storage.properties} file in the working directory and then from system properties
+ * of the same name, for example {@code -Dstorage.profile=throughput -Dstorage.cache_size=-131072}.
+ */
+public class StorageProfile {
+
+    /**
+     * Name of the optional configuration file read from the working directory.
+     */
+    public static final String CONFIG_FILE = "storage.properties";
+
+    private static final Set<String> JOURNAL_MODES = Set.of("DELETE", "TRUNCATE", "PERSIST", "MEMORY", "WAL", "OFF");
+    private static final Set<String> SYNCHRONOUS_MODES = Set.of("OFF", "NORMAL", "FULL", "EXTRA");
+    private static final Set<String> TEMP_STORES = Set.of("DEFAULT", "FILE", "MEMORY");
+
+    /**
+     * The SQLite defaults the application used before profiles existed: rollback journal, full sync,
+     * no memory mapping and a ~2MB page cache. Kept mainly as a benchmark baseline.
+     */
+    public static final StorageProfile LEGACY =
+            new StorageProfile("legacy", "DELETE", "FULL", 0L, -2000, "DEFAULT", 0);
+
+    /**
+     * WAL journal with a full sync on every commit. Readers never block the writer and a committed
+     * transaction survives power loss.
+     */
+    public static final StorageProfile DURABLE =
+            new StorageProfile("durable", "WAL", "FULL", 0L, -8000, "DEFAULT", 5000);
+
+    /**
+     * WAL journal that only syncs at checkpoints, with memory-mapped reads, a 64MB page cache and
+     * in-memory temp tables. The database stays consistent after a crash, but the last few commits may be lost.
+     */
+    public static final StorageProfile THROUGHPUT =
+            new StorageProfile("throughput", "WAL", "NORMAL", 268435456L, -65536, "MEMORY", 5000);
+
+    private final String name;
+    private final String journalMode;
+    private final String synchronous;
+    private final long mmapSize;
+    private final int cacheSize;
+    private final String tempStore;
+    private final int busyTimeout;
+
+    /**
+     * Creates a profile, validating every setting since PRAGMA values cannot be bound as parameters.
+     * @param name          Name used when logging or selecting the profile
+     * @param journalMode   Value for {@code PRAGMA journal_mode}
+     * @param synchronous   Value for {@code PRAGMA synchronous}
+     * @param mmapSize      Value for {@code PRAGMA mmap_size}, in bytes
+     * @param cacheSize     Value for {@code PRAGMA cache_size}, pages if positive or KiB if negative
+     * @param tempStore     Value for {@code PRAGMA temp_store}
+     * @param busyTimeout   Value for {@code PRAGMA busy_timeout}, in milliseconds
+     * @throws IllegalArgumentException if any of the values is not understood by SQLite
+     */
+    public StorageProfile(String name, String journalMode, String synchronous, long mmapSize,
+                          int cacheSize, String tempStore, int busyTimeout) {
+        this.name = name;
+        this.journalMode = checkOption("journal_mode", journalMode, JOURNAL_MODES);
+        this.synchronous = checkOption("synchronous", synchronous, SYNCHRONOUS_MODES);
+        this.tempStore = checkOption("temp_store", tempStore, TEMP_STORES);
+        if (mmapSize < 0) {
+            throw new IllegalArgumentException("mmap_size must not be negative: " + mmapSize);
+        }
+        if (busyTimeout < 0) {
+            throw new IllegalArgumentException("busy_timeout must not be negative: " + busyTimeout);
+        }
+        this.mmapSize = mmapSize;
+        this.cacheSize = cacheSize;
+        this.busyTimeout = busyTimeout;
+    }
+
+    /**
+     * Looks up one of the built-in profiles.
+     * @param profileName   "legacy", "durable" or "throughput", ignoring case
+     * @return              The matching profile
+     * @throws IllegalArgumentException if there is no profile with that name
+     */
+    public static StorageProfile named(String profileName) {
+        switch (profileName.trim().toLowerCase(Locale.ROOT)) {
+            case "legacy":
+                return LEGACY;
+            case "durable":
+                return DURABLE;
+            case "throughput":
+                return THROUGHPUT;
+            default:
+                throw new IllegalArgumentException("Unknown storage profile: " + profileName);
+        }
+    }
+
+    /**
+     * Resolves the profile configured for this run from {@value #CONFIG_FILE} and system properties.
+     * Problems reading the file or invalid values are reported and the {@link #DURABLE} profile is used instead.
+     * @return The configured profile
+     */
+    public static StorageProfile load() {
+        Properties settings = new Properties();
+        File configFile = new File(CONFIG_FILE);
+        if (configFile.isFile()) {
+            try (Reader reader = new FileReader(configFile)) {
+                settings.load(reader);
+            } catch (IOException e) {
+                System.err.println("Failed to read " + CONFIG_FILE + ": " + e.getMessage());
+            }
+        }
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith("storage.")) {
+                settings.setProperty(key, System.getProperty(key));
+            }
+        }
+
+        try {
+            return fromProperties(settings);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid storage settings, using durable profile: " + e.getMessage());
+            return DURABLE;
+        }
+    }
+
+    /**
+     * Builds a profile from {@code storage.*} keys. {@code storage.profile} picks the starting profile
+     * and the remaining keys override single settings of it.
+     * @param settings  Properties holding the storage keys
+     * @return          The resulting profile
+     * @throws IllegalArgumentException if the profile name or a value is invalid
+     */
+    public static StorageProfile fromProperties(Properties settings) {
+        StorageProfile base = named(settings.getProperty("storage.profile", DURABLE.name));
+        boolean overridden = false;
+        for (String key : settings.stringPropertyNames()) {
+            if (key.startsWith("storage.") && !key.equals("storage.profile")) {
+                overridden = true;
+                break;
+            }
+        }
+        if (!overridden) {
+            return base;
+        }
+
+        try {
+            return new StorageProfile(
+                    base.name + "+overrides",
+                    settings.getProperty("storage.journal_mode", base.journalMode),
+                    settings.getProperty("storage.synchronous", base.synchronous),
+                    Long.parseLong(settings.getProperty("storage.mmap_size", Long.toString(base.mmapSize)).trim()),
+                    Integer.parseInt(settings.getProperty("storage.cache_size", Integer.toString(base.cacheSize)).trim()),
+                    settings.getProperty("storage.temp_store", base.tempStore),
+                    Integer.parseInt(settings.getProperty("storage.busy_timeout", Integer.toString(base.busyTimeout)).trim())
+            );
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Storage setting is not a number: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Applies the profile to a freshly opened connection.
+     * The journal mode is stored in the database file itself, so it is only set through the writer;
+     * read-only connections just get the per-connection settings.
+     * @param connection    Connection to configure
+     * @param writer        True if this is the writer connection
+     * @throws SQLException If a PRAGMA fails
+     */
+    public void applyTo(Connection connection, boolean writer) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = " + busyTimeout);
+            if (writer) {
+                stmt.execute("PRAGMA journal_mode = " + journalMode);
+            }
+            stmt.execute("PRAGMA synchronous = " + synchronous);
+            stmt.execute("PRAGMA mmap_size = " + mmapSize);
+            stmt.execute("PRAGMA cache_size = " + cacheSize);
+            stmt.execute("PRAGMA temp_store = " + tempStore);
+        }
+    }
+
+    private static String checkOption(String pragma, String value, Set<String> allowed) {
+        String normalised = value == null ? "" : value.trim().toUpperCase(Locale.ROOT);
+        if (!allowed.contains(normalised)) {
+            throw new IllegalArgumentException("Unsupported " + pragma + ": " + value);
+        }
+        return normalised;
+    }
+
+    /**
+     * @return Name of the profile
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Journal mode, for example WAL
+     */
+    public String getJournalMode() {
+        return journalMode;
+    }
+
+    /**
+     * @return Synchronous level, for example NORMAL
+     */
+    public String getSynchronous() {
+        return synchronous;
+    }
+
+    /**
+     * @return Maximum memory-mapped size in bytes
+     */
+    public long getMmapSize() {
+        return mmapSize;
+    }
+
+    /**
+     * @return Page cache size, pages if positive or KiB if negative
+     */
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * @return Where temporary tables and indices are kept
+     */
+    public String getTempStore() {
+        return tempStore;
+    }
+
+    /**
+     * @return How long a connection waits on a lock before failing, in milliseconds
+     */
+    public int getBusyTimeout() {
+        return busyTimeout;
+    }
+
+    @Override
+    public String toString() {
+        return name + " [journal_mode=" + journalMode + ", synchronous=" + synchronous + ", mmap_size=" + mmapSize
+                + ", cache_size=" + cacheSize + ", temp_store=" + tempStore + ", busy_timeout=" + busyTimeout + "]";
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.cab302project.models;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Canonicalising pool of strings that have a database id, such as event titles.
+ * <p>
+ * Readers look a title up by its id before decoding the column, so a title repeated across thousands of rows is
+ * decoded from the result set once and every event holding it shares the same {@code String}. The pool tracks how
+ * many characters were handed out against how many it holds, which is the compression ratio it achieved.
+ * It is cleared once it holds {@link #DEFAULT_CAPACITY} strings, which bounds its size without per-entry bookkeeping.
+ */
+public final class StringPool {
+
+    /**
+     * Maximum number of strings kept before the pool starts over.
+     */
+    public static final int DEFAULT_CAPACITY = 50_000;
+
+    private final int capacity;
+    private final Map<Integer, String> byId = new HashMap<>();
+    private long lookups = 0;
+    private long decoded = 0;
+    private long referencedChars = 0;
+    private long storedChars = 0;
+
+    /**
+     * Creates a pool holding at most {@link #DEFAULT_CAPACITY} strings.
+     */
+    public StringPool() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity Maximum number of strings kept before the pool starts over
+     */
+    public StringPool(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("String pool capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * @param id    Database id of the string
+     * @return      The pooled string, or null if it has to be decoded and {@link #put(int, String) put}
+     */
+    public synchronized String get(int id) {
+        lookups++;
+        String value = byId.get(id);
+        if (value != null) {
+            referencedChars += value.length();
+        }
+        return value;
+    }
+
+    /**
+     * Adds a string that {@link #get(int)} did not have.
+     * @param id    Database id of the string
+     * @param value The decoded string
+     * @return      The pooled string for the id, which callers should hold instead of {@code value}
+     */
+    public synchronized String put(int id, String value) {
+        String pooled = byId.get(id);
+        if (pooled == null) {
+            if (byId.size() >= capacity) {
+                clear();
+            }
+            byId.put(id, value);
+            decoded++;
+            storedChars += value.length();
+            pooled = value;
+        }
+        referencedChars += pooled.length();
+        return pooled;
+    }
+
+    /**
+     * Forgets every string. Called when the database the ids belong to is replaced.
+     */
+    public synchronized void clear() {
+        byId.clear();
+        storedChars = 0;
+        referencedChars = 0;
+    }
+
+    /**
+     * @return Number of strings held
+     */
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    /**
+     * @return Number of lookups by id
+     */
+    public synchronized long getLookups() {
+        return lookups;
+    }
+
+    /**
+     * @return Number of strings that had to be decoded from a result set
+     */
+    public synchronized long getDecoded() {
+        return decoded;
+    }
+
+    /**
+     * @return Characters handed out divided by characters held since the pool was last cleared, 0 if it is empty
+     */
+    public synchronized double getCompressionRatio() {
+        return storedChars == 0 ? 0 : (double) referencedChars / storedChars;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "StringPool [size=" + byId.size() + ", lookups=" + lookups + ", decoded=" + decoded
+                + ", ratio=" + String.format("%.1f", getCompressionRatio()) + "]";
+    }
+}
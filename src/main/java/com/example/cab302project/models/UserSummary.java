@@ -0,0 +1,80 @@
+package com.example.cab302project.models;
+
+import java.util.Objects;
+
+/**
+ * Lightweight, read-only view of a user holding only what list views display.
+ * Unlike {@link User} it never carries the password or bio, so listing many users stays cheap.
+ */
+public final class UserSummary {
+    /**
+     * The unique identifier of the user in the database.
+     */
+    private final int id;
+    /**
+     * The user's unique username.
+     */
+    private final String username;
+    /**
+     * The user's unique email address.
+     */
+    private final String email;
+
+    /**
+     * Constructs a summary from the columns selected by the DAO.
+     * @param id The database id of the user.
+     * @param username The username of the user.
+     * @param email The email address of the user.
+     */
+    public UserSummary(int id, String username, String email) {
+        this.id = id;
+        this.username = username;
+        this.email = email;
+    }
+
+    /**
+     * Gets the database id of the user.
+     * @return The id.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Gets the username of the user.
+     * @return The username.
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Gets the email address of the user.
+     * @return The email address.
+     */
+    public String getEmail() {
+        return email;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof UserSummary)) {
+            return false;
+        }
+        UserSummary other = (UserSummary) o;
+        return id == other.id && Objects.equals(username, other.username) && Objects.equals(email, other.email);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, username, email);
+    }
+
+    @Override
+    public String toString() {
+        return username;
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.cab302project.models;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs database mutations on a single background writer thread so the JavaFX Application Thread
+ * never waits on SQLite. Controllers submit a mutation and react to the returned {@link CompletableFuture},
+ * typically with {@code Platform.runLater}.
+ * <p>
+ * Mutations are applied one at a time in the order they were submitted. The queue is bounded at
+ * {@link #QUEUE_CAPACITY}; once it is full, submitters wait for space. A mutation submitted with a coalescing key
+ * replaces a queued, not yet started mutation with the same key (for example two bio edits in a row),
+ * and the futures of both are completed with the result of the one that actually ran.
+ */
+public class WriteBehindExecutor {
+
+    /**
+     * Maximum number of mutations waiting to be applied.
+     */
+    public static final int QUEUE_CAPACITY = 256;
+
+    /**
+     * How long {@link #flush()} waits for queued mutations before giving up.
+     */
+    private static final long FLUSH_TIMEOUT_SECONDS = 30;
+
+    private static WriteBehindExecutor instance = null;
+
+    private final Deque<Mutation> queue = new ArrayDeque<>();
+    private final Map<String, Mutation> queuedByKey = new HashMap<>();
+    private final Thread writer;
+    private long submitted = 0;
+    private long applied = 0;
+    private long coalesced = 0;
+    private boolean shutdown = false;
+
+    private WriteBehindExecutor() {
+        writer = new Thread(this::drain, "db-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * @return The shared executor, starting its writer thread on first use or after a shutdown
+     */
+    public static synchronized WriteBehindExecutor getInstance() {
+        if (instance == null || instance.isShutdown()) {
+            instance = new WriteBehindExecutor();
+        }
+        return instance;
+    }
+
+    /**
+     * Applies every queued mutation and stops the shared executor, if one was started.
+     * Called when the application exits.
+     */
+    public static synchronized void shutdownInstance() {
+        if (instance != null) {
+            instance.shutdown();
+            instance = null;
+        }
+    }
+
+    /**
+     * Queues a mutation that is always applied on its own.
+     * @param mutation  Database work to run on the writer thread
+     * @param <T>       Result type of the mutation
+     * @return          Future completed with the mutation's result, or exceptionally if it threw
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> mutation) {
+        return submit(null, mutation);
+    }
+
+    /**
+     * Queues a mutation, replacing a queued mutation with the same key that has not started yet.
+     * @param key       Identifies the row being written, for example "bio:" + user id; null never coalesces
+     * @param mutation  Database work to run on the writer thread
+     * @param <T>       Result type of the mutation
+     * @return          Future completed with the result of the mutation that ran for this key
+     * @throws IllegalStateException if the executor has been shut down
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> CompletableFuture<T> submit(String key, Callable<T> mutation) {
+        if (shutdown) {
+            throw new IllegalStateException("Write-behind executor has been shut down");
+        }
+        CompletableFuture<T> future = new CompletableFuture<>();
+
+        Mutation queued = key == null ? null : queuedByKey.get(key);
+        if (queued != null) {
+            queued.work = (Callable<Object>) mutation;
+            queued.futures.add((CompletableFuture<Object>) future);
+            coalesced++;
+            return future;
+        }
+
+        while (queue.size() >= QUEUE_CAPACITY && !shutdown) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.completeExceptionally(e);
+                return future;
+            }
+        }
+
+        if (shutdown) {
+            future.completeExceptionally(new IllegalStateException("Write-behind executor has been shut down"));
+            return future;
+        }
+
+        Mutation next = new Mutation(++submitted, key, (Callable<Object>) mutation);
+        next.futures.add((CompletableFuture<Object>) future);
+        queue.addLast(next);
+        if (key != null) {
+            queuedByKey.put(key, next);
+        }
+        notifyAll();
+        return future;
+    }
+
+    /**
+     * Blocks until every mutation submitted before this call has been applied.
+     * Must not be called from the writer thread itself.
+     * @return True if everything was applied, false on timeout or interruption
+     */
+    public boolean flush() {
+        return flush(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Returns at once with a future completed when every mutation submitted before this call has been applied,
+     * for callers such as logout on the JavaFX Application Thread that must not block. Mutations are applied in
+     * order, so this queues a no-op behind them; the futures of the earlier mutations complete first.
+     * @return Future completed with true once everything before it was applied
+     */
+    public CompletableFuture<Boolean> flushAsync() {
+        synchronized (this) {
+            if (shutdown) {
+                // Shutting down applies everything already queued
+                return CompletableFuture.completedFuture(true);
+            }
+        }
+        return submit(() -> true);
+    }
+
+    /**
+     * Blocks until every mutation submitted before this call has been applied.
+     * @param timeout   Maximum time to wait
+     * @param unit      Unit of the timeout
+     * @return          True if everything was applied, false on timeout or interruption
+     */
+    public synchronized boolean flush(long timeout, TimeUnit unit) {
+        if (Thread.currentThread() == writer) {
+            throw new IllegalStateException("flush() called from the write-behind thread");
+        }
+        long target = submitted;
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (applied < target) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                return false;
+            }
+            try {
+                wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Applies everything already queued, then stops the writer thread. Later submissions are rejected.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            if (shutdown) {
+                return;
+            }
+            shutdown = true;
+            notifyAll();
+        }
+        if (Thread.currentThread() != writer) {
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(FLUSH_TIMEOUT_SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return True once {@link #shutdown()} has been called
+     */
+    public synchronized boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * @return Number of mutations waiting to be applied
+     */
+    public synchronized int getQueuedCount() {
+        return queue.size();
+    }
+
+    /**
+     * @return Number of submissions folded into an already queued mutation
+     */
+    public synchronized long getCoalescedCount() {
+        return coalesced;
+    }
+
+    /**
+     * Writer thread loop: takes mutations in order and completes their futures.
+     */
+    private void drain() {
+        while (true) {
+            Mutation next;
+            synchronized (this) {
+                while (queue.isEmpty() && !shutdown) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        // Only shutdown stops the writer, queued mutations must still be applied
+                    }
+                }
+                if (queue.isEmpty()) {
+                    return;
+                }
+                next = queue.removeFirst();
+                if (next.key != null) {
+                    queuedByKey.remove(next.key);
+                }
+                notifyAll();
+            }
+
+            Object result = null;
+            Throwable failure = null;
+            try {
+                result = next.work.call();
+            } catch (Throwable t) {
+                failure = t;
+            }
+
+            // No future can be added once the mutation has left the queue
+            for (CompletableFuture<Object> future : next.futures) {
+                if (failure == null) {
+                    future.complete(result);
+                } else {
+                    future.completeExceptionally(failure);
+                }
+            }
+            synchronized (this) {
+                applied = next.sequence;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * A queued unit of work together with every caller waiting on it.
+     */
+    private static final class Mutation {
+        private final long sequence;
+        private final String key;
+        private Callable<Object> work;
+        private final List<CompletableFuture<Object>> futures = new ArrayList<>();
+
+        private Mutation(long sequence, String key, Callable<Object> work) {
+            this.sequence = sequence;
+            this.key = key;
+            this.work = work;
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package com.example.cab302project.services;
 
-import com.example.cab302project.models.Event;
 import com.example.cab302project.models.SqliteUserDAO;
 import com.example.cab302project.models.User;
+import com.example.cab302project.models.WriteBehindExecutor;
 import com.example.cab302project.util.Session;
 
 import java.io.BufferedReader;
@@ -13,53 +13,42 @@ import java.io.IOException;
 public class CalendarImportView {
 
     public static void importCalendarFile(File selectedFile, int userId) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(selectedFile))) {
-            String line;
-            String summary = null, dtStart = null, dtEnd = null;
-            boolean insideEvent = false;
-
-            // ✅ Get email from jlogged-in user
-            User user = Session.getLoggedInUser();
-            if (user == null) {
-                System.out.println("❌ No user logged in.");
-                return;
-            }
-            String userEmail = user.getEmail();
-
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-
-                if (line.equals("BEGIN:VEVENT")) {
-                    insideEvent = true;
-                    summary = null;
-                    dtStart = null;
-                    dtEnd = null;
-                } else if (line.startsWith("SUMMARY:") && insideEvent) {
-                    summary = line.substring(8).trim();
-                } else if (line.startsWith("DTSTART:") && insideEvent) {
-                    dtStart = line.substring(8).trim();
-                } else if (line.startsWith("DTEND:") && insideEvent) {
-                    dtEnd = line.substring(6).trim();
-                } else if (line.equals("END:VEVENT") && insideEvent) {
-                    insideEvent = false;
+        // ✅ Get email from jlogged-in user
+        User user = Session.getLoggedInUser();
+        if (user == null) {
+            System.out.println("❌ No user logged in.");
+            return;
+        }
+        importCalendarFile(selectedFile, userId, user.getEmail());
+    }
 
-                    if (summary != null && dtStart != null && dtEnd != null) {
-                        Event event = new Event(summary, dtStart, dtEnd, userEmail); // ✅ now with email
-                        saveEventToDatabase(event, userId);
-                        System.out.println("✅ Event saved: " + summary);
-                    } else {
-                        System.out.println("⚠️ Skipped incomplete event block");
-                    }
-                }
-            }
+    /**
+     * Imports a calendar file for a user without reading the session, so it can run on its own thread.
+     * @param selectedFile  Calendar file to import
+     * @param user          User the events belong to
+     * @param commits       Executor each chunk's commit is submitted to, or null to write directly
+     * @throws IOException  If the file cannot be read; chunks already saved stay saved
+     */
+    public static void importCalendarFile(File selectedFile, User user, WriteBehindExecutor commits) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(selectedFile))) {
+            report(new IcsImportPipeline(new SqliteUserDAO(), commits).run(reader, user.getId(), user.getEmail()));
+        }
+    }
 
+    private static void importCalendarFile(File selectedFile, int userId, String userEmail) {
+        try (BufferedReader reader = new BufferedReader(new FileReader(selectedFile))) {
+            // Events are parsed and saved in chunks as the file is read
+            report(new IcsImportPipeline(new SqliteUserDAO()).run(reader, userId, userEmail));
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-    private static void saveEventToDatabase(Event event, int userId) {
-        SqliteUserDAO eventDAO = new SqliteUserDAO();
-        eventDAO.insertEvent(userId, event.getUsername(), event.getName(), event.getStart_time(), event.getEnd_time());
+    private static void report(IcsImportPipeline.Result result) {
+        if (result.getSkipped() > 0) {
+            System.out.println("⚠️ Skipped events: " + result.getSkipped());
+        }
+        System.out.println("✅ Events saved: " + result.getSaved() + " of " + result.getParsed()
+                + String.format(" (%.0f events/s)", result.getEventsPerSecond()));
     }
 }
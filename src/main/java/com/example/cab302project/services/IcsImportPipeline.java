@@ -0,0 +1,444 @@
+package com.example.cab302project.services;
+
+import com.example.cab302project.models.Event;
+import com.example.cab302project.models.SqliteUserDAO;
+import com.example.cab302project.models.WriteBehindExecutor;
+import com.example.cab302project.util.IcsDateParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Streams the events of an .ics file into the database without holding the whole calendar in memory.
+ * <p>
+ * The import runs as three stages. The reader stage yields logical lines, joining the folded continuation lines
+ * calendar files use for long values. The parser stage turns each VEVENT into an {@link Event}. The writer stage
+ * runs on its own thread and saves chunks of {@link #DEFAULT_CHUNK_SIZE} events, each in one transaction through
+ * {@link SqliteUserDAO#insertEvents}. At most {@link #DEFAULT_MAX_PENDING_CHUNKS} parsed chunks wait for the writer;
+ * once they do, parsing pauses, so a huge file never piles up in memory ahead of the database.
+ * Each committed chunk is published to the event change bus by the DAO, so open views fill in as the import runs.
+ * <p>
+ * Given a {@link WriteBehindExecutor}, the writer stage hands each chunk's commit to it instead of writing directly.
+ * The import then shares the application's single writer with other edits one chunk at a time, so a bio or friend
+ * request saved during a long import waits for one chunk rather than the whole file.
+ */
+public class IcsImportPipeline {
+
+    /**
+     * Number of events saved per transaction.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1_000;
+
+    /**
+     * Number of parsed chunks allowed to wait for the writer.
+     */
+    public static final int DEFAULT_MAX_PENDING_CHUNKS = 4;
+
+    /**
+     * Tells the writer that no more chunks follow.
+     */
+    private static final List<Event> END = new ArrayList<>();
+
+    private final SqliteUserDAO dao;
+    private final WriteBehindExecutor commits;
+    private final int chunkSize;
+    private final int maxPendingChunks;
+
+    /**
+     * Creates a pipeline with the default chunk size and queue length.
+     * @param dao DAO the events are saved through
+     */
+    public IcsImportPipeline(SqliteUserDAO dao) {
+        this(dao, null, DEFAULT_CHUNK_SIZE, DEFAULT_MAX_PENDING_CHUNKS);
+    }
+
+    /**
+     * Creates a pipeline with the default chunk size and queue length that commits through a write-behind executor.
+     * @param dao       DAO the events are saved through
+     * @param commits   Executor each chunk's commit is submitted to
+     */
+    public IcsImportPipeline(SqliteUserDAO dao, WriteBehindExecutor commits) {
+        this(dao, commits, DEFAULT_CHUNK_SIZE, DEFAULT_MAX_PENDING_CHUNKS);
+    }
+
+    /**
+     * @param dao               DAO the events are saved through
+     * @param chunkSize         Number of events saved per transaction
+     * @param maxPendingChunks  Number of parsed chunks allowed to wait for the writer
+     */
+    public IcsImportPipeline(SqliteUserDAO dao, int chunkSize, int maxPendingChunks) {
+        this(dao, null, chunkSize, maxPendingChunks);
+    }
+
+    /**
+     * @param dao               DAO the events are saved through
+     * @param commits           Executor each chunk's commit is submitted to, or null to commit on the writer stage
+     * @param chunkSize         Number of events saved per transaction
+     * @param maxPendingChunks  Number of parsed chunks allowed to wait for the writer
+     */
+    public IcsImportPipeline(SqliteUserDAO dao, WriteBehindExecutor commits, int chunkSize, int maxPendingChunks) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        if (maxPendingChunks < 1) {
+            throw new IllegalArgumentException("Pending chunk limit must be positive: " + maxPendingChunks);
+        }
+        this.dao = dao;
+        this.commits = commits;
+        this.chunkSize = chunkSize;
+        this.maxPendingChunks = maxPendingChunks;
+    }
+
+    /**
+     * Imports every event of a calendar, returning once the last chunk is saved.
+     * @param source    Calendar file contents, closed by the caller
+     * @param userId    ID of the user whose events these are, or 0 to look it up by email
+     * @param userEmail Email of the user whose events these are
+     * @return          What was imported and how fast
+     * @throws IOException if the source cannot be read; chunks already saved stay saved
+     */
+    public Result run(Reader source, int userId, String userEmail) throws IOException {
+        long start = System.nanoTime();
+        BlockingQueue<List<Event>> chunks = new ArrayBlockingQueue<>(maxPendingChunks);
+        Writer writer = new Writer(chunks, userId, userEmail);
+        Thread writerThread = new Thread(writer, "ics-import-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        VEventParser parser = null;
+        try {
+            parser = new VEventParser(new LineReader(source), userEmail);
+            List<Event> chunk = new ArrayList<>(chunkSize);
+            Event event;
+            while ((event = parser.next()) != null) {
+                chunk.add(event);
+                if (chunk.size() == chunkSize) {
+                    chunks.put(chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                chunks.put(chunk);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Calendar import interrupted");
+        } finally {
+            // The writer is always stopped, even if reading failed part way through
+            putUninterruptibly(chunks, END);
+            joinUninterruptibly(writerThread);
+        }
+        return new Result(parser.parsed, writer.saved, parser.skipped + (parser.parsed - writer.saved),
+                writer.committed, System.nanoTime() - start);
+    }
+
+    private static void putUninterruptibly(BlockingQueue<List<Event>> queue, List<Event> chunk) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(chunk);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void joinUninterruptibly(Thread thread) {
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writer stage: saves each chunk in its own transaction until it takes {@link #END}.
+     */
+    private final class Writer implements Runnable {
+        private final BlockingQueue<List<Event>> chunks;
+        private final int userId;
+        private final String userEmail;
+        // Written by the writer thread and read after it is joined
+        private int saved = 0;
+        private int committed = 0;
+
+        private Writer(BlockingQueue<List<Event>> chunks, int userId, String userEmail) {
+            this.chunks = chunks;
+            this.userId = userId;
+            this.userEmail = userEmail;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                List<Event> chunk;
+                try {
+                    chunk = chunks.take();
+                } catch (InterruptedException e) {
+                    // The parser always sends END, keep draining until it arrives
+                    continue;
+                }
+                if (chunk == END) {
+                    return;
+                }
+                try {
+                    int savedBefore = saved;
+                    for (boolean inserted : save(chunk)) {
+                        if (inserted) {
+                            saved++;
+                        }
+                    }
+                    if (saved > savedBefore) {
+                        committed++;
+                    }
+                } catch (RuntimeException e) {
+                    // The chunk is counted as skipped, later chunks are still saved
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        /**
+         * Saves one chunk, through the write-behind executor when there is one, and waits for its commit.
+         * Waiting keeps the pending chunk limit meaningful, as parsed chunks never pile up in the executor.
+         */
+        private boolean[] save(List<Event> chunk) {
+            if (commits == null) {
+                return dao.insertEvents(userId, userEmail, chunk, chunkSize);
+            }
+            return commits.submit(() -> dao.insertEvents(userId, userEmail, chunk, chunkSize)).join();
+        }
+    }
+
+    /**
+     * Reader stage: yields the logical lines of a calendar file. A line starting with a space or tab continues the
+     * previous one, as calendar files fold long lines at 75 octets.
+     */
+    static final class LineReader {
+        private final BufferedReader reader;
+        private String pending;
+
+        LineReader(Reader source) throws IOException {
+            this.reader = source instanceof BufferedReader ? (BufferedReader) source : new BufferedReader(source);
+            this.pending = reader.readLine();
+        }
+
+        /**
+         * @return The next unfolded line, or null at the end of the file
+         */
+        String next() throws IOException {
+            if (pending == null) {
+                return null;
+            }
+            String line = pending;
+            pending = reader.readLine();
+            if (pending == null || !isContinuation(pending)) {
+                return line;
+            }
+            StringBuilder unfolded = new StringBuilder(line);
+            while (pending != null && isContinuation(pending)) {
+                unfolded.append(pending, 1, pending.length());
+                pending = reader.readLine();
+            }
+            return unfolded.toString();
+        }
+
+        private static boolean isContinuation(String line) {
+            return !line.isEmpty() && (line.charAt(0) == ' ' || line.charAt(0) == '\t');
+        }
+    }
+
+    /**
+     * Parser stage: turns VEVENT blocks into events. Properties of components nested in an event, such as a
+     * VALARM, are ignored. Events without a summary, start or end, or with times that cannot be parsed, are skipped.
+     */
+    static final class VEventParser {
+        private final LineReader lines;
+        private final String owner;
+        private final IcsDateParser dates = IcsDateParser.getDefault();
+        private int parsed = 0;
+        private int skipped = 0;
+
+        VEventParser(LineReader lines, String owner) {
+            this.lines = lines;
+            this.owner = owner;
+        }
+
+        /**
+         * @return The next event of the file, or null at the end of the file
+         */
+        Event next() throws IOException {
+            String line;
+            boolean insideEvent = false;
+            int nested = 0;
+            String summary = null;
+            String dtStart = null;
+            String dtEnd = null;
+            while ((line = lines.next()) != null) {
+                line = line.trim();
+                if (!insideEvent) {
+                    if (line.equals("BEGIN:VEVENT")) {
+                        insideEvent = true;
+                        nested = 0;
+                        summary = null;
+                        dtStart = null;
+                        dtEnd = null;
+                    }
+                } else if (line.startsWith("BEGIN:")) {
+                    nested++;
+                } else if (line.startsWith("END:") && nested > 0) {
+                    nested--;
+                } else if (line.equals("END:VEVENT")) {
+                    Event event = toEvent(summary, dtStart, dtEnd);
+                    if (event != null) {
+                        parsed++;
+                        return event;
+                    }
+                    skipped++;
+                    insideEvent = false;
+                } else if (nested == 0) {
+                    if (isProperty(line, "SUMMARY")) {
+                        summary = unescape(line.substring(line.indexOf(':') + 1).trim());
+                    } else if (isProperty(line, "DTSTART")) {
+                        dtStart = line;
+                    } else if (isProperty(line, "DTEND")) {
+                        dtEnd = line;
+                    }
+                }
+            }
+            if (insideEvent) {
+                // The file ended inside an event
+                skipped++;
+            }
+            return null;
+        }
+
+        private Event toEvent(String summary, String dtStart, String dtEnd) {
+            if (summary == null || dtStart == null || dtEnd == null) {
+                return null;
+            }
+            LocalDateTime start = dates.parseLocalDateTime(dtStart);
+            LocalDateTime end = dates.parseLocalDateTime(dtEnd);
+            if (start == null || end == null) {
+                return null;
+            }
+            return new Event(summary, start, end, owner);
+        }
+
+        /**
+         * @return True if the line is the named property, with or without parameters
+         */
+        private static boolean isProperty(String line, String name) {
+            if (!line.startsWith(name) || line.length() <= name.length() || line.indexOf(':') < 0) {
+                return false;
+            }
+            char next = line.charAt(name.length());
+            return next == ':' || next == ';';
+        }
+
+        /**
+         * Reverses the escaping of calendar text values. Line breaks become spaces, as event names are one line.
+         */
+        private static String unescape(String value) {
+            if (value.indexOf('\\') < 0) {
+                return value;
+            }
+            StringBuilder text = new StringBuilder(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '\\' && i + 1 < value.length()) {
+                    char escaped = value.charAt(++i);
+                    text.append(escaped == 'n' || escaped == 'N' ? ' ' : escaped);
+                } else {
+                    text.append(c);
+                }
+            }
+            return text.toString();
+        }
+    }
+
+    /**
+     * Counts and timing of one import.
+     */
+    public static final class Result {
+        private final int parsed;
+        private final int saved;
+        private final int skipped;
+        private final int chunks;
+        private final long elapsedNanos;
+
+        private Result(int parsed, int saved, int skipped, int chunks, long elapsedNanos) {
+            this.parsed = parsed;
+            this.saved = saved;
+            this.skipped = skipped;
+            this.chunks = chunks;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return Number of events read from the file
+         */
+        public int getParsed() {
+            return parsed;
+        }
+
+        /**
+         * @return Number of events saved
+         */
+        public int getSaved() {
+            return saved;
+        }
+
+        /**
+         * @return Number of events in the file that were incomplete, unparseable or rejected by the database
+         */
+        public int getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * @return Number of chunks committed
+         */
+        public int getChunks() {
+            return chunks;
+        }
+
+        /**
+         * @return Time from the start of reading to the last commit, in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return Events saved per second, 0 if nothing was saved
+         */
+        public double getEventsPerSecond() {
+            return elapsedNanos == 0 ? 0 : saved * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Import [saved=" + saved + ", skipped=" + skipped + ", chunks=" + chunks
+                    + ", seconds=" + String.format("%.2f", elapsedNanos / 1e9)
+                    + ", eventsPerSecond=" + String.format("%.0f", getEventsPerSecond()) + "]";
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.cab302project.util;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Conversions between the event time representations used by the application.
+ * Event times are wall-clock times stored as "MM/dd/yyyy HH:mm:ss" text and, for range queries,
+ * as epoch seconds. The epoch values are computed as if the wall-clock time were UTC, so they sort
+ * correctly and do not change with the time zone of the machine running the app.
+ */
+public final class EventTimes {
+
+    /**
+     * Format of event times stored in the database and shown to the AI assistant.
+     */
+    public static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm:ss");
+
+    private EventTimes() {
+    }
+
+    /**
+     * @param dateTime  Wall-clock time of an event
+     * @return          Epoch seconds used by the events table
+     */
+    public static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * @param epochSecond   Epoch seconds as stored in the events table
+     * @return              The wall-clock time they represent
+     */
+    public static LocalDateTime fromEpochSecond(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Parses a stored "MM/dd/yyyy HH:mm:ss" time into epoch seconds.
+     * @param stored    Time string from the events table
+     * @return          Epoch seconds, or null if the string is not in the expected format
+     */
+    public static Long parseEpochSecond(String stored) {
+        if (stored == null) {
+            return null;
+        }
+        try {
+            return toEpochSecond(LocalDateTime.parse(stored, FORMAT));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
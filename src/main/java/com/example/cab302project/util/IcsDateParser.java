@@ -0,0 +1,281 @@
+package com.example.cab302project.util;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parser for the date and date-time values of iCalendar properties such as DTSTART and DTEND.
+ * <p>
+ * Handles the forms calendar exports use:
+ * <ul>
+ *     <li>UTC times, {@code 20250509T080000Z}</li>
+ *     <li>Times in a named zone, {@code DTSTART;TZID=Australia/Sydney:20250509T090000}</li>
+ *     <li>Floating times without a zone, {@code 20250509T080000}, read as UTC as the importer always has</li>
+ *     <li>All-day dates, {@code DTSTART;VALUE=DATE:20250507}, which start at midnight in the display zone</li>
+ * </ul>
+ * Values are read digit by digit into epoch seconds, so a well-formed value creates no objects and throws nothing;
+ * a malformed value returns {@link #INVALID}. Zone rules are looked up once per TZID and cached, and zones with a
+ * fixed offset, such as the default display zone, are converted with plain arithmetic. Instances are immutable and
+ * safe to share between threads.
+ */
+public final class IcsDateParser {
+
+    /**
+     * Returned in place of epoch seconds for a value that could not be parsed.
+     */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    /**
+     * Zone event times are shown in, the zone the test calendars are exported from.
+     */
+    public static final ZoneId DISPLAY_ZONE = ZoneId.of("Australia/Brisbane");
+
+    private static final IcsDateParser DEFAULT = new IcsDateParser(DISPLAY_ZONE);
+    private static final long SECONDS_PER_DAY = 86_400;
+
+    /**
+     * Rules of every TZID seen so far. Unknown TZIDs map to UTC, the same as a floating time.
+     */
+    private static final ConcurrentHashMap<String, ZoneRules> ZONE_RULES = new ConcurrentHashMap<>();
+
+    private final ZoneRules displayRules;
+    /**
+     * Offset of the display zone in seconds, or {@link #INVALID} if it observes daylight saving.
+     */
+    private final long displayOffset;
+
+    /**
+     * @param displayZone Zone whose wall-clock times are stored for events
+     */
+    public IcsDateParser(ZoneId displayZone) {
+        this.displayRules = displayZone.getRules();
+        this.displayOffset = displayRules.isFixedOffset()
+                ? displayRules.getOffset(Instant.EPOCH).getTotalSeconds()
+                : INVALID;
+    }
+
+    /**
+     * @return The shared parser for {@link #DISPLAY_ZONE}
+     */
+    public static IcsDateParser getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Parses a property as written in a calendar file, with or without its name and parameters, for example
+     * {@code DTSTART;TZID=Europe/London:20250509T090000}, {@code ;VALUE=DATE:20250507} or {@code 20250509T080000Z}.
+     * @param property  Property line or value
+     * @return          The instant as epoch seconds, or {@link #INVALID}
+     */
+    public long parseInstant(String property) {
+        if (property == null) {
+            return INVALID;
+        }
+        int colon = property.lastIndexOf(':');
+        if (colon < 0) {
+            return parseInstant(property, 0, null);
+        }
+        return parseInstant(property, colon + 1, tzid(property, colon));
+    }
+
+    /**
+     * Parses a value with its TZID parameter already separated out.
+     * @param value Date or date-time value
+     * @param tzid  TZID parameter of the property, or null if it has none
+     * @return      The instant as epoch seconds, or {@link #INVALID}
+     */
+    public long parseInstant(String value, String tzid) {
+        if (value == null) {
+            return INVALID;
+        }
+        return parseInstant(value, 0, tzid);
+    }
+
+    /**
+     * Parses a property into the wall-clock time it has in the display zone, in the epoch-second form
+     * of {@link EventTimes}.
+     * @param property  Property line or value, as for {@link #parseInstant(String)}
+     * @return          Wall-clock epoch seconds, or {@link #INVALID}
+     */
+    public long parseWallClock(String property) {
+        long instant = parseInstant(property);
+        return instant == INVALID ? INVALID : toWallClock(instant);
+    }
+
+    /**
+     * Parses a property into the wall-clock time it has in the display zone.
+     * @param property  Property line or value, as for {@link #parseInstant(String)}
+     * @return          Wall-clock time, or null if the value could not be parsed
+     */
+    public LocalDateTime parseLocalDateTime(String property) {
+        long wallClock = parseWallClock(property);
+        return wallClock == INVALID ? null : EventTimes.fromEpochSecond(wallClock);
+    }
+
+    /**
+     * @param instant   Epoch seconds
+     * @return          The wall-clock time of the instant in the display zone, as epoch seconds read as UTC
+     */
+    public long toWallClock(long instant) {
+        if (displayOffset != INVALID) {
+            return instant + displayOffset;
+        }
+        return instant + displayRules.getOffset(Instant.ofEpochSecond(instant)).getTotalSeconds();
+    }
+
+    private long parseInstant(String text, int from, String tzid) {
+        int length = text.length() - from;
+        if (length == 8) {
+            // All-day dates are local to whoever reads the calendar, so they start at midnight in the display zone
+            long day = epochDay(text, from);
+            return day == INVALID ? INVALID : fromWallClock(day * SECONDS_PER_DAY);
+        }
+        if ((length != 15 && length != 16) || text.charAt(from + 8) != 'T') {
+            return INVALID;
+        }
+        boolean utc = length == 16;
+        if (utc && text.charAt(from + 15) != 'Z') {
+            return INVALID;
+        }
+        long day = epochDay(text, from);
+        int hour = digits(text, from + 9);
+        int minute = digits(text, from + 11);
+        int second = digits(text, from + 13);
+        if (day == INVALID || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 60) {
+            return INVALID;
+        }
+        // A leap second is read as the last second of its minute
+        long wallClock = day * SECONDS_PER_DAY + hour * 3600L + minute * 60L + Math.min(second, 59);
+        if (utc || tzid == null) {
+            return wallClock;
+        }
+        return toInstant(wallClock, rulesFor(tzid));
+    }
+
+    /**
+     * @return The instant the display zone's wall-clock time falls on
+     */
+    private long fromWallClock(long wallClock) {
+        if (displayOffset != INVALID) {
+            return wallClock - displayOffset;
+        }
+        return toInstant(wallClock, displayRules);
+    }
+
+    /**
+     * Resolves a wall-clock time in a zone the way {@code ZonedDateTime.of} does: a time repeated when clocks go
+     * back takes the earlier offset, and a time skipped when clocks go forward is moved later by the gap.
+     */
+    private static long toInstant(long wallClock, ZoneRules rules) {
+        if (rules.isFixedOffset()) {
+            return wallClock - rules.getOffset(Instant.EPOCH).getTotalSeconds();
+        }
+        LocalDateTime local = EventTimes.fromEpochSecond(wallClock);
+        List<ZoneOffset> offsets = rules.getValidOffsets(local);
+        if (!offsets.isEmpty()) {
+            return wallClock - offsets.get(0).getTotalSeconds();
+        }
+        ZoneOffsetTransition gap = rules.getTransition(local);
+        return wallClock + gap.getDuration().getSeconds() - gap.getOffsetAfter().getTotalSeconds();
+    }
+
+    /**
+     * @return Rules of the zone named by a TZID, UTC if Java does not know the name
+     */
+    private static ZoneRules rulesFor(String tzid) {
+        ZoneRules rules = ZONE_RULES.get(tzid);
+        if (rules == null) {
+            rules = ZONE_RULES.computeIfAbsent(tzid, IcsDateParser::loadRules);
+        }
+        return rules;
+    }
+
+    private static ZoneRules loadRules(String tzid) {
+        try {
+            return ZoneId.of(tzid).getRules();
+        } catch (DateTimeException e) {
+            // Names such as Windows zone names are not known to Java; their times are read as floating
+            System.err.println("Unknown calendar time zone, reading times as UTC: " + tzid);
+            return ZoneOffset.UTC.getRules();
+        }
+    }
+
+    /**
+     * Finds the TZID parameter among the parameters before the value, stripping the quotes some exporters add.
+     * @return The TZID, or null if there is none
+     */
+    private static String tzid(String property, int colon) {
+        int at = property.indexOf("TZID=");
+        if (at < 0 || at > colon) {
+            return null;
+        }
+        int start = at + 5;
+        int end = property.indexOf(';', start);
+        if (end < 0 || end > colon) {
+            end = colon;
+        }
+        if (end - start >= 2 && property.charAt(start) == '"' && property.charAt(end - 1) == '"') {
+            start++;
+            end--;
+        }
+        return property.substring(start, end);
+    }
+
+    /**
+     * @return Days since 1970-01-01 of the yyyyMMdd date at {@code from}, or {@link #INVALID} if it is not a date
+     */
+    private static long epochDay(String text, int from) {
+        int century = digits(text, from);
+        int yearOfCentury = digits(text, from + 2);
+        int month = digits(text, from + 4);
+        int day = digits(text, from + 6);
+        if (century < 0 || yearOfCentury < 0 || month < 1 || month > 12 || day < 1) {
+            return INVALID;
+        }
+        long year = century * 100L + yearOfCentury;
+        if (day > daysInMonth(year, month)) {
+            return INVALID;
+        }
+        // Days from civil date, counting years from March so the leap day ends the year
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+
+    private static int daysInMonth(long year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * @return The two-digit number at {@code at}, or -1 if either character is not a digit
+     */
+    private static int digits(String text, int at) {
+        int tens = text.charAt(at) - '0';
+        int units = text.charAt(at + 1) - '0';
+        if (tens < 0 || tens > 9 || units < 0 || units > 9) {
+            return -1;
+        }
+        return tens * 10 + units;
+    }
+}
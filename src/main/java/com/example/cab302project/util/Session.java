@@ -26,6 +26,16 @@ public class Session {
         return loggedInUser;
     }
 
+    /**
+     * Checks that a user is still the one logged in. Callbacks of background work started for a user run later
+     * on the JavaFX thread, possibly after logout, and should do nothing once this returns false.
+     * @param user the user the work was started for
+     * @return true if that same user is still logged in
+     */
+    public static boolean isCurrent(User user) {
+        return user != null && loggedInUser == user;
+    }
+
     /**
      * Clears the current user's session. used for logout
      */
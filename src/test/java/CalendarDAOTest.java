@@ -7,10 +7,12 @@ import org.junit.jupiter.api.Test;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.Period;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -67,11 +69,12 @@ public class CalendarDAOTest {
     }
 
     @Test
-    public void testGetAllEventsOnDay_returnsOnlyMeeting() {
+    public void testGetAllEventsOnDay_returnsWholeDay() {
         CalendarDAO dao = new CalendarDAO(TEST_DATE, Period.ofDays(1), TimeUnit.DAYS);
         List<Event> evts = dao.getAllEventsOnDay(TEST_DATE);
-        assertEquals(1, evts.size());
-        assertEquals("Meeting", evts.get(0).getName());
+        // The day is loaded from midnight, so the event before 01:00 is shown too
+        assertEquals(List.of("EarlyBird", "Meeting"), names(evts));
+        assertTrue(dao.getAllEventsOnDay(TEST_DATE.plusDays(1)).isEmpty());
     }
 
     @Test
@@ -135,6 +138,189 @@ public class CalendarDAOTest {
         assertEquals("NextDay", n.getName());
     }
 
+    @Test
+    public void testDayView_loadsEventsOverlappingPeriodEdges() {
+        User alice = userDAO.getUserByEmail(ALICE_EMAIL);
+        userDAO.insertEvent(alice.getId(), ALICE_EMAIL,
+                "IntoDay", "09/14/2021 23:00:00", "09/15/2021 02:00:00"
+        );
+        userDAO.insertEvent(alice.getId(), ALICE_EMAIL,
+                "PastDay", "09/15/2021 23:30:00", "09/16/2021 01:30:00"
+        );
+        userDAO.insertEvent(alice.getId(), ALICE_EMAIL,
+                "DayBefore", "09/14/2021 20:00:00", "09/14/2021 22:00:00"
+        );
+        userDAO.insertEvent(alice.getId(), ALICE_EMAIL,
+                "LastYear", "09/15/2020 10:00:00", "09/15/2020 11:00:00"
+        );
+
+        CalendarDAO dao = new CalendarDAO(TEST_DATE, Period.ofDays(1), TimeUnit.DAYS);
+        List<String> today = names(dao.getAllEventsOnDay(TEST_DATE));
+        // Events running over either edge of the day are loaded, not just those inside it
+        assertTrue(today.contains("IntoDay"));
+        assertTrue(today.contains("Meeting"));
+        assertTrue(today.contains("PastDay"));
+        assertFalse(today.contains("DayBefore"));
+        assertTrue(dao.getAllEventsOnDay(TEST_DATE.minusYears(1)).isEmpty());
+        assertEquals(1, dao.getEventsIntersecting(TEST_DATE.atTime(1, 0), TEST_DATE.atTime(2, 0)).size());
+    }
+
+    @Test
+    public void testEventsIntersectingHourSlots() {
+        CalendarDAO dao = new CalendarDAO(TEST_DATE, Period.ofDays(1), TimeUnit.HOURS);
+        List<Event> tenToEleven = dao.getEventsIntersecting(TEST_DATE.atTime(10, 0), TEST_DATE.atTime(11, 0));
+        assertEquals(1, tenToEleven.size());
+        assertEquals("Meeting", tenToEleven.get(0).getName());
+        // The meeting ends at 11:00, so it does not spill into the next slot
+        assertTrue(dao.getEventsIntersecting(TEST_DATE.atTime(11, 0), TEST_DATE.atTime(12, 0)).isEmpty());
+        assertEquals(1, dao.getEventsIntersecting(TEST_DATE.atTime(10, 30), TEST_DATE.atTime(10, 45)).size());
+    }
+
+    @Test
+    public void testSlotOccupancyShowsConcurrentEvents() {
+        User alice = userDAO.getUserByEmail(ALICE_EMAIL);
+        userDAO.insertEvent(alice.getId(), ALICE_EMAIL,
+                "Standup", "09/15/2021 09:30:00", "09/15/2021 10:15:00"
+        );
+        CalendarDAO dao = new CalendarDAO(TEST_DATE, Period.ofDays(1), TimeUnit.HOURS);
+        SlotOccupancy hours = dao.getSlotOccupancy(TEST_DATE.atStartOfDay(), Duration.ofHours(1), 24);
+
+        // The standup does not start on the hour, but still fills both hours it overlaps
+        assertEquals(List.of("Standup"), names(hours.eventsIn(9)));
+        assertEquals(List.of("Standup", "Meeting"), names(hours.eventsIn(10)));
+        assertEquals(0, hours.count(11));
+    }
+
+    @Test
+    public void testSlotOccupancyShowsEventsCrossingWindowEdges() {
+        User alice = userDAO.getUserByEmail(ALICE_EMAIL);
+        userDAO.insertEvent(alice.getId(), ALICE_EMAIL,
+                "LateShow", "09/14/2021 23:00:00", "09/15/2021 02:00:00"
+        );
+        userDAO.insertEvent(alice.getId(), ALICE_EMAIL,
+                "RedEye", "09/15/2021 23:30:00", "09/16/2021 06:00:00"
+        );
+        CalendarDAO dao = new CalendarDAO(TEST_DATE, Period.ofDays(1), TimeUnit.HOURS);
+        SlotOccupancy hours = dao.getSlotOccupancy(TEST_DATE.atStartOfDay(), Duration.ofHours(1), 24);
+
+        // Started the evening before, so it fills the first two hours of the day
+        assertEquals(List.of("LateShow", "EarlyBird"), names(hours.eventsIn(0)));
+        assertEquals(List.of("LateShow"), names(hours.eventsIn(1)));
+        assertEquals(0, hours.count(2));
+        // Runs past midnight, so it fills the last hour of the day
+        assertEquals(List.of("RedEye"), names(hours.eventsIn(23)));
+    }
+
+    @Test
+    public void testEventsWithNoLengthFillTheSlotTheyStartIn() {
+        User alice = userDAO.getUserByEmail(ALICE_EMAIL);
+        userDAO.insertEvent(alice.getId(), ALICE_EMAIL,
+                "Midnight", "09/15/2021 00:00:00", "09/15/2021 00:00:00"
+        );
+        userDAO.insertEvent(alice.getId(), ALICE_EMAIL,
+                "Deadline", "09/15/2021 17:00:00", "09/15/2021 17:00:00"
+        );
+        userDAO.insertEvent(alice.getId(), ALICE_EMAIL,
+                "Yesterday", "09/14/2021 22:00:00", "09/15/2021 00:00:00"
+        );
+        CalendarDAO dao = new CalendarDAO(TEST_DATE, Period.ofDays(1), TimeUnit.HOURS);
+        SlotOccupancy hours = dao.getSlotOccupancy(TEST_DATE.atStartOfDay(), Duration.ofHours(1), 24);
+
+        // Starting at the window's first instant is enough to be loaded, ending there is not
+        assertEquals(List.of("Midnight", "EarlyBird"), names(hours.eventsIn(0)));
+        assertEquals(List.of("Deadline"), names(hours.eventsIn(17)));
+        assertEquals(0, hours.count(18));
+        assertEquals("Deadline", dao.getFirstEventForInterval(TEST_DATE.atTime(17, 0), TimeUnit.HOURS).getName());
+        assertFalse(names(dao.getAllEventsOnDay(TEST_DATE)).contains("Yesterday"));
+    }
+
+    private static List<String> names(List<Event> events) {
+        List<String> names = new ArrayList<>();
+        for (Event e : events) {
+            names.add(e.getName());
+        }
+        return names;
+    }
+
+    @Test
+    public void testMultiDayEventsAreSplitAcrossDays() {
+        User alice = userDAO.getUserByEmail(ALICE_EMAIL);
+        userDAO.insertEvent(alice.getId(), ALICE_EMAIL,
+                "Overnight", "09/15/2021 22:00:00", "09/17/2021 02:00:00"
+        );
+        userDAO.insertEvent(alice.getId(), ALICE_EMAIL,
+                "UntilMidnight", "09/18/2021 20:00:00", "09/19/2021 00:00:00"
+        );
+
+        CalendarDAO weekDao = new CalendarDAO(TEST_DATE, Period.ofDays(7), TimeUnit.DAYS);
+        List<Event> first = weekDao.getAllEventsOnDay(TEST_DATE);
+        assertEquals(List.of("EarlyBird", "Meeting", "Overnight"), names(first));
+
+        List<Event> second = weekDao.getAllEventsOnDay(TEST_DATE.plusDays(1));
+        assertEquals(2, second.size());
+        assertEquals("Overnight", second.get(0).getName());
+        assertEquals("NextDay", second.get(1).getName());
+
+        assertEquals(1, weekDao.getAllEventsOnDay(TEST_DATE.plusDays(2)).size());
+        assertEquals(1, weekDao.getAllEventsOnDay(TEST_DATE.plusDays(3)).size());
+        // Ending exactly at midnight does not put the event on the next day
+        assertTrue(weekDao.getAllEventsOnDay(TEST_DATE.plusDays(4)).isEmpty());
+        assertTrue(weekDao.getAllEventsOnDay(TEST_DATE.minusDays(1)).isEmpty());
+        assertTrue(weekDao.getAllEventsOnDay(TEST_DATE.plusDays(30)).isEmpty());
+    }
+
+    @Test
+    public void testMultiDayEventsCrossingWindowEdgesAreClippedToWindow() {
+        User alice = userDAO.getUserByEmail(ALICE_EMAIL);
+        userDAO.insertEvent(alice.getId(), ALICE_EMAIL,
+                "FromLastWeek", "09/13/2021 20:00:00", "09/16/2021 03:00:00"
+        );
+        userDAO.insertEvent(alice.getId(), ALICE_EMAIL,
+                "IntoNextWeek", "09/20/2021 22:00:00", "09/24/2021 10:00:00"
+        );
+        userDAO.insertEvent(alice.getId(), ALICE_EMAIL,
+                "FromLastMonth", "08/30/2021 10:00:00", "09/02/2021 10:00:00"
+        );
+
+        CalendarDAO weekDao = new CalendarDAO(TEST_DATE, Period.ofDays(7), TimeUnit.DAYS);
+        assertTrue(names(weekDao.getAllEventsOnDay(TEST_DATE)).contains("FromLastWeek"));
+        assertEquals(List.of("FromLastWeek", "NextDay"), names(weekDao.getAllEventsOnDay(TEST_DATE.plusDays(1))));
+        assertTrue(weekDao.getAllEventsOnDay(TEST_DATE.plusDays(2)).isEmpty());
+        assertEquals(List.of("IntoNextWeek"), names(weekDao.getAllEventsOnDay(TEST_DATE.plusDays(5))));
+        assertEquals(List.of("IntoNextWeek"), names(weekDao.getAllEventsOnDay(TEST_DATE.plusDays(6))));
+        // Days before the window have no bucket, even though the event covers them
+        assertTrue(weekDao.getAllEventsOnDay(TEST_DATE.minusDays(1)).isEmpty());
+
+        CalendarDAO monthDao = new CalendarDAO(LocalDate.of(2021, 9, 1), Period.ofMonths(1), TimeUnit.DAYS);
+        assertEquals(List.of("FromLastMonth"), names(monthDao.getAllEventsOnDay(LocalDate.of(2021, 9, 1))));
+        assertEquals(List.of("FromLastMonth"), names(monthDao.getAllEventsOnDay(LocalDate.of(2021, 9, 2))));
+        assertTrue(monthDao.getAllEventsOnDay(LocalDate.of(2021, 8, 31)).isEmpty());
+    }
+
+    @Test
+    public void testRepeatedWindowIsCachedUntilEventsChange() {
+        EventCache cache = EventCache.getInstance();
+        new CalendarDAO(TEST_DATE, Period.ofDays(7), TimeUnit.HOURS);
+        long hits = cache.getHits();
+        CalendarDAO again = new CalendarDAO(TEST_DATE, Period.ofDays(7), TimeUnit.HOURS);
+        assertEquals(hits + 1, cache.getHits());
+        assertEquals(2, again.getAllEventsOnDay(TEST_DATE).size());
+
+        User alice = userDAO.getUserByEmail(ALICE_EMAIL);
+        userDAO.insertEvent(alice.getId(), ALICE_EMAIL,
+                "Lunch", "09/15/2021 12:00:00", "09/15/2021 13:00:00"
+        );
+        // The insert is patched into the cached window rather than reloading it
+        long misses = cache.getMisses();
+        CalendarDAO afterInsert = new CalendarDAO(TEST_DATE, Period.ofDays(7), TimeUnit.HOURS);
+        assertEquals(3, afterInsert.getAllEventsOnDay(TEST_DATE).size());
+        assertEquals(misses, cache.getMisses());
+        assertEquals("alice", afterInsert.getAllEventsOnDay(TEST_DATE).get(2).getUsername());
+
+        userDAO.clearEventsByEmail(ALICE_EMAIL);
+        assertTrue(new CalendarDAO(TEST_DATE, Period.ofDays(7), TimeUnit.HOURS).getAllEventsOnDay(TEST_DATE).isEmpty());
+    }
+
     @Test
     public void testZipDateAndTime_concatenatesCorrectly() {
         LocalDate d = LocalDate.of(2021, 9, 15);
@@ -0,0 +1,133 @@
+import com.example.cab302project.models.Event;
+import com.example.cab302project.models.EventCache;
+import com.example.cab302project.models.EventChange;
+import com.example.cab302project.models.EventStore;
+
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventCacheTest {
+    private static final LocalDateTime WEEK = LocalDateTime.of(2025, 3, 3, 1, 0);
+
+    private EventCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new EventCache(2);
+        loads = new AtomicInteger();
+    }
+
+    private EventStore load(String name) {
+        loads.incrementAndGet();
+        return EventStore.of(List.of(new Event(name, WEEK, WEEK.plusHours(1), "user")));
+    }
+
+    @Test
+    public void testRepeatedWindowIsServedFromMemory() {
+        EventStore first = cache.get("a@email.com", WEEK, WEEK.plusDays(7), () -> load("A"));
+        EventStore second = cache.get("a@email.com", WEEK, WEEK.plusDays(7), () -> load("A"));
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0.5, cache.getHitRate());
+
+        // A different range or user is a different window
+        cache.get("a@email.com", WEEK, WEEK.plusDays(1), () -> load("A"));
+        cache.get("b@email.com", WEEK, WEEK.plusDays(7), () -> load("B"));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedWindowIsEvicted() {
+        cache.get("a@email.com", WEEK, WEEK.plusDays(7), () -> load("A"));
+        cache.get("a@email.com", WEEK, WEEK.plusDays(1), () -> load("A"));
+        cache.get("a@email.com", WEEK, WEEK.plusDays(7), () -> load("A"));
+        cache.get("b@email.com", WEEK, WEEK.plusDays(7), () -> load("B"));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        cache.get("a@email.com", WEEK, WEEK.plusDays(7), () -> load("A"));
+        assertEquals(3, loads.get());
+        cache.get("a@email.com", WEEK, WEEK.plusDays(1), () -> load("A"));
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    public void testInvalidationOnlyDropsThatUser() {
+        cache.get("a@email.com", WEEK, WEEK.plusDays(7), () -> load("A"));
+        cache.get("b@email.com", WEEK, WEEK.plusDays(7), () -> load("B"));
+        cache.invalidateUser("a@email.com");
+
+        assertEquals(1, cache.size());
+        cache.get("b@email.com", WEEK, WEEK.plusDays(7), () -> load("B"));
+        assertEquals(2, loads.get());
+        assertEquals("A2", cache.get("a@email.com", WEEK, WEEK.plusDays(7), () -> load("A2")).get(0).getName());
+    }
+
+    @Test
+    public void testLoadOverlappingInvalidationIsNotCached() {
+        EventStore stale = cache.get("a@email.com", WEEK, WEEK.plusDays(7), () -> {
+            // An insert lands while the window is being read
+            cache.invalidateUser("a@email.com");
+            return load("Stale");
+        });
+        assertEquals("Stale", stale.get(0).getName());
+        assertEquals(0, cache.size());
+        assertEquals("Fresh", cache.get("a@email.com", WEEK, WEEK.plusDays(7), () -> load("Fresh")).get(0).getName());
+    }
+
+    @Test
+    public void testAddedEventIsPatchedIntoWindowsThatHoldIt() {
+        cache = new EventCache(4);
+        cache.get("a@email.com", WEEK, WEEK.plusDays(7), () -> load("A"));
+        cache.get("a@email.com", WEEK.plusDays(7), WEEK.plusDays(14), () -> load("Next"));
+        cache.get("b@email.com", WEEK, WEEK.plusDays(7), () -> load("B"));
+
+        Event lunch = new Event("Lunch", WEEK.plusHours(3), WEEK.plusHours(4), null);
+        cache.onEventChange(new EventChange.EventAdded("a@email.com", lunch));
+
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getPatches());
+        EventStore patched = cache.get("a@email.com", WEEK, WEEK.plusDays(7), () -> load("Reloaded"));
+        assertEquals(3, loads.get());
+        assertEquals(2, patched.size());
+        assertEquals("Lunch", patched.get(1).getName());
+        // The owner is taken from the window, as the DAO does not look it up on insert
+        assertEquals("user", patched.get(1).getUsername());
+        assertEquals(1, cache.get("a@email.com", WEEK.plusDays(7), WEEK.plusDays(14), () -> load("Next")).size());
+        assertEquals(1, cache.get("b@email.com", WEEK, WEEK.plusDays(7), () -> load("B")).size());
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void testOtherChangesDropOnlyOverlappingWindows() {
+        cache = new EventCache(4);
+        cache.get("a@email.com", WEEK, WEEK.plusDays(7), () -> load("A"));
+        cache.get("a@email.com", WEEK.plusDays(7), WEEK.plusDays(14), () -> load("Next"));
+        cache.get("b@email.com", WEEK, WEEK.plusDays(7), () -> load("B"));
+
+        cache.onEventChange(new EventChange.BulkImported("a@email.com", 10, WEEK.plusDays(8), WEEK.plusDays(9)));
+        assertEquals(2, cache.size());
+        assertFalse(cache.contains("a@email.com", WEEK.plusDays(7), WEEK.plusDays(14)));
+        assertTrue(cache.contains("a@email.com", WEEK, WEEK.plusDays(7)));
+
+        cache.onEventChange(new EventChange.EventRemoved("a@email.com", null, null));
+        assertEquals(1, cache.size());
+        cache.onEventChange(new EventChange.EventChanged(null));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testFailedLoadIsNotCached() {
+        assertNull(cache.get("a@email.com", WEEK, WEEK.plusDays(7), () -> null));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.get("a@email.com", WEEK, WEEK.plusDays(7), () -> load("A")).size());
+    }
+}
@@ -0,0 +1,68 @@
+import com.example.cab302project.models.EventChange;
+import com.example.cab302project.models.EventChangeBus;
+
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventChangeBusTest {
+    private static final LocalDateTime WEEK = LocalDateTime.of(2025, 3, 3, 0, 0);
+
+    @Test
+    public void testChangesReachEveryListener() {
+        EventChangeBus bus = new EventChangeBus();
+        List<EventChange> first = new ArrayList<>();
+        List<EventChange> second = new ArrayList<>();
+        EventChangeBus.Listener a = first::add;
+        EventChangeBus.Listener b = second::add;
+        EventChangeBus.Listener broken = change -> {
+            throw new IllegalStateException("view is gone");
+        };
+        bus.subscribe(a);
+        bus.subscribe(broken);
+        bus.subscribe(b);
+
+        EventChange change = new EventChange.EventRemoved("a@email.com", WEEK, WEEK.plusDays(1));
+        bus.publish(change);
+        // A failing listener does not stop delivery to the others
+        assertEquals(List.of(change), first);
+        assertEquals(List.of(change), second);
+
+        bus.unsubscribe(a);
+        bus.publish(new EventChange.EventChanged("a@email.com"));
+        assertEquals(1, first.size());
+        assertEquals(2, second.size());
+        assertEquals(2, bus.getPublishedCount());
+    }
+
+    @Test
+    public void testCollectedListenersAreDropped() throws InterruptedException {
+        EventChangeBus bus = new EventChangeBus();
+        EventChangeBus.Listener kept = change -> { };
+        bus.subscribe(kept);
+        // Captures a value so the JVM creates a new listener object rather than reusing a constant one
+        String message = "a listener nobody holds must not be called";
+        bus.subscribe(change -> fail(message));
+
+        for (int i = 0; i < 20 && bus.getListenerCount() > 1; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(1, bus.getListenerCount());
+        bus.publish(new EventChange.EventChanged(null));
+        assertNotNull(kept);
+    }
+
+    @Test
+    public void testChangesOnlyAffectTheirUserAndRange() {
+        EventChange removed = new EventChange.EventRemoved("a@email.com", WEEK.plusDays(2), WEEK.plusDays(3));
+        assertTrue(removed.affects("a@email.com", WEEK, WEEK.plusDays(7)));
+        assertFalse(removed.affects("b@email.com", WEEK, WEEK.plusDays(7)));
+        assertFalse(removed.affects("a@email.com", WEEK.plusDays(4), WEEK.plusDays(5)));
+        assertTrue(new EventChange.EventChanged(null).affects("b@email.com", WEEK, WEEK.plusDays(1)));
+    }
+}
@@ -0,0 +1,135 @@
+import com.example.cab302project.models.Event;
+import com.example.cab302project.models.EventIntervalIndex;
+import com.example.cab302project.models.EventStore;
+
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventIntervalIndexTest {
+    private static final LocalDateTime WEEK_START = LocalDateTime.of(2025, 3, 3, 0, 0);
+
+    private static Event event(String name, LocalDateTime start, LocalDateTime end) {
+        return new Event(name, start, end, "user");
+    }
+
+    /**
+     * Random week of events, many starting on the hour so exact-start lookups and ties are exercised.
+     */
+    private static List<Event> randomWeek(Random random, int count) {
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            LocalDateTime start = random.nextBoolean()
+                    ? WEEK_START.plusHours(random.nextInt(168))
+                    : WEEK_START.plusMinutes(random.nextInt(168 * 60));
+            events.add(event("Event " + i, start, start.plusMinutes(15 + random.nextInt(300))));
+        }
+        return events;
+    }
+
+    /**
+     * The linear scan CalendarDAO used before the index, over events in start order.
+     */
+    private static Event scanFirstStartingAt(List<Event> events, LocalDateTime time) {
+        for (Event e : events) {
+            if (time.isEqual(e.getStart_Time_LocalDateTime())) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void testLookupsMatchLinearScan() {
+        Random random = new Random(16);
+        List<Event> events = randomWeek(random, 400);
+        EventIntervalIndex index = new EventIntervalIndex(events);
+
+        List<Event> sorted = new ArrayList<>(events);
+        sorted.sort((a, b) -> a.getStart_Time_LocalDateTime().compareTo(b.getStart_Time_LocalDateTime()));
+
+        for (int hour = 0; hour < 168; hour++) {
+            LocalDateTime from = WEEK_START.plusHours(hour);
+            LocalDateTime to = from.plusHours(1);
+            assertSame(scanFirstStartingAt(sorted, from), index.firstStartingAt(from));
+
+            List<Event> overlapping = new ArrayList<>();
+            List<Event> inProgress = new ArrayList<>();
+            for (Event e : sorted) {
+                if (e.getStart_Time_LocalDateTime().isBefore(to) && e.getEnd_Time_LocalDateTime().isAfter(from)) {
+                    overlapping.add(e);
+                }
+                if (e.IsEventInProgress(from)) {
+                    inProgress.add(e);
+                }
+            }
+            assertEquals(overlapping, index.intersecting(from, to));
+            assertEquals(inProgress, index.containing(from));
+        }
+    }
+
+    @Test
+    public void testSlotBoundariesAreHalfOpen() {
+        LocalDateTime nine = WEEK_START.withHour(9);
+        Event before = event("Before", nine.minusHours(1), nine);
+        Event after = event("After", nine.plusHours(1), nine.plusHours(2));
+        Event inside = event("Inside", nine.plusMinutes(59), nine.plusHours(3));
+        EventIntervalIndex index = new EventIntervalIndex(List.of(after, inside, before));
+
+        assertEquals(List.of(inside), index.intersecting(nine, nine.plusHours(1)));
+        // In-progress checks count both ends, like Event.IsEventInProgress
+        assertEquals(List.of(before), index.containing(nine));
+        assertEquals(List.of(inside, after), index.containing(nine.plusHours(1)));
+    }
+
+    @Test
+    public void testTiesKeepLoadOrderAndUnparsedEventsAreSkipped() {
+        LocalDateTime ten = WEEK_START.withHour(10);
+        Event first = event("First", ten, ten.plusHours(1));
+        Event second = event("Second", ten, ten.plusHours(2));
+        Event broken = new Event("Broken", "not a date", "not a date", "user");
+        EventIntervalIndex index = new EventIntervalIndex(List.of(first, broken, second));
+
+        assertEquals(2, index.size());
+        assertSame(first, index.firstStartingAt(ten));
+        assertEquals(List.of(first, second), index.startingBetween(ten, ten.plusMinutes(1)));
+        assertTrue(index.startingBetween(ten.plusMinutes(1), ten.plusHours(5)).isEmpty());
+    }
+
+    @Test
+    public void testEmptyIndex() {
+        EventIntervalIndex index = new EventIntervalIndex(List.of());
+        assertNull(index.firstStartingAt(WEEK_START));
+        assertTrue(index.intersecting(WEEK_START, WEEK_START.plusDays(7)).isEmpty());
+        assertTrue(index.containing(WEEK_START).isEmpty());
+    }
+
+    @Test
+    public void testIndexOverStoreMatchesIndexOverEvents() {
+        List<Event> events = randomWeek(new Random(20), 400);
+        EventIntervalIndex overEvents = new EventIntervalIndex(events);
+        EventIntervalIndex overStore = new EventIntervalIndex(EventStore.of(events));
+
+        assertEquals(overEvents.size(), overStore.size());
+        for (int hour = 0; hour < 168; hour++) {
+            LocalDateTime from = WEEK_START.plusHours(hour);
+            LocalDateTime to = from.plusHours(1);
+            Event first = overEvents.firstStartingAt(from);
+            Event firstFromStore = overStore.firstStartingAt(from);
+            assertEquals(first == null ? null : first.getName(), firstFromStore == null ? null : firstFromStore.getName());
+            assertEquals(names(overEvents.intersecting(from, to)), names(overStore.intersecting(from, to)));
+            assertEquals(names(overEvents.containing(from)), names(overStore.containing(from)));
+            assertEquals(names(overEvents.startingBetween(from, to)), names(overStore.startingBetween(from, to)));
+        }
+    }
+
+    private static List<String> names(List<Event> events) {
+        return events.stream().map(Event::getName).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,81 @@
+import com.example.cab302project.models.*;
+import com.example.cab302project.util.Session;
+
+import org.junit.jupiter.api.*;
+
+import java.sql.DriverManager;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventPrefetcherTest {
+    private static final String EMAIL = "alice@example.com";
+    private static final LocalDate MONDAY = LocalDate.of(2021, 9, 13);
+    private static final Period WEEK = Period.ofDays(7);
+
+    private ExecutorService executor;
+    private EventPrefetcher prefetcher;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        SqliteConnection.injectTestConnection(DriverManager.getConnection("jdbc:sqlite::memory:"));
+        SqliteUserDAO userDAO = new SqliteUserDAO();
+        userDAO.addUser(new User("alice", "pw", EMAIL));
+        User alice = userDAO.getUserByEmail(EMAIL);
+        userDAO.insertEvent(alice.getId(), EMAIL, "Next week", "09/21/2021 10:00:00", "09/21/2021 11:00:00");
+        Session.setLoggedInUser(alice);
+
+        executor = Executors.newSingleThreadExecutor();
+        prefetcher = new EventPrefetcher(executor);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+        Session.clear();
+    }
+
+    @Test
+    public void testAdjacentWindowsAreServedFromCache() {
+        prefetcher.prefetchAround(EMAIL, MONDAY, WEEK);
+        assertTrue(prefetcher.flush());
+
+        EventCache cache = EventCache.getInstance();
+        long hits = cache.getHits();
+        CalendarDAO next = new CalendarDAO(MONDAY.plusWeeks(1), WEEK, TimeUnit.HOURS);
+        CalendarDAO previous = new CalendarDAO(MONDAY.minusWeeks(1), WEEK, TimeUnit.HOURS);
+        assertEquals(hits + 2, cache.getHits());
+
+        List<Event> tuesday = next.getAllEventsOnDay(MONDAY.plusDays(8));
+        assertEquals(1, tuesday.size());
+        assertEquals("Next week", tuesday.get(0).getName());
+        assertTrue(previous.getAllEventsOnDay(MONDAY.minusDays(6)).isEmpty());
+    }
+
+    @Test
+    public void testJumpCancelsQueuedPrefetches() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit(() -> release.await(5, TimeUnit.SECONDS));
+
+        prefetcher.prefetchAround(EMAIL, MONDAY, WEEK);
+        LocalDate distant = MONDAY.plusYears(2);
+        prefetcher.prefetchAround(EMAIL, distant, WEEK);
+        release.countDown();
+        assertTrue(prefetcher.flush());
+
+        assertEquals(4, prefetcher.getRequestedCount());
+        assertEquals(2, prefetcher.getCancelledCount());
+        EventCache cache = EventCache.getInstance();
+        long hits = cache.getHits();
+        new CalendarDAO(distant.plusWeeks(1), WEEK, TimeUnit.HOURS);
+        assertEquals(hits + 1, cache.getHits());
+        new CalendarDAO(MONDAY.plusWeeks(1), WEEK, TimeUnit.HOURS);
+        assertEquals(hits + 1, cache.getHits());
+    }
+}
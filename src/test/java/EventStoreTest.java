@@ -0,0 +1,96 @@
+import com.example.cab302project.models.Event;
+import com.example.cab302project.models.EventStore;
+import com.example.cab302project.util.EventTimes;
+
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventStoreTest {
+    private static final LocalDateTime FIRST = LocalDateTime.of(2025, 1, 1, 9, 0);
+
+    @Test
+    public void testRowsAreSortedByStartAndRoundTrip() {
+        Random random = new Random(20);
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            LocalDateTime start = FIRST.plusMinutes(random.nextInt(60 * 24 * 365));
+            events.add(new Event("Event " + (i % 7), start, start.plusMinutes(30), i % 2 == 0 ? "alice" : "bob"));
+        }
+        EventStore store = EventStore.of(events);
+
+        List<Event> expected = new ArrayList<>(events);
+        expected.sort((a, b) -> a.getStart_Time_LocalDateTime().compareTo(b.getStart_Time_LocalDateTime()));
+        List<Event> actual = store.toEvents();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getName(), actual.get(i).getName());
+            assertEquals(expected.get(i).getStart_Time_LocalDateTime(), actual.get(i).getStart_Time_LocalDateTime());
+            assertEquals(expected.get(i).getEnd_Time_LocalDateTime(), actual.get(i).getEnd_Time_LocalDateTime());
+            assertEquals(expected.get(i).getUsername(), actual.get(i).getUsername());
+        }
+        assertEquals(7, store.nameCount());
+        // Each distinct name is held once, however many events use it
+        for (Event e : actual) {
+            if (e.getName().equals("Event 3")) {
+                assertSame(actual.stream().filter(o -> o.getName().equals("Event 3")).findFirst().get().getName(), e.getName());
+            }
+        }
+        assertEquals(2, store.ownerCount());
+    }
+
+    @Test
+    public void testCursorWalksFromAStartTime() {
+        EventStore.Builder builder = new EventStore.Builder();
+        for (int day = 4; day >= 0; day--) {
+            long start = EventTimes.toEpochSecond(FIRST.plusDays(day));
+            builder.add("Standup", start, start + 900, "alice");
+        }
+        EventStore store = builder.build();
+
+        EventStore.Cursor cursor = store.cursorAt(FIRST.plusDays(2).minusMinutes(1));
+        List<Long> starts = new ArrayList<>();
+        while (cursor.next()) {
+            starts.add(cursor.startEpoch());
+            assertEquals(cursor.startEpoch() + 900, cursor.endEpoch());
+            assertEquals("Standup", cursor.name());
+            assertEquals(0, cursor.nameId());
+            assertEquals("alice", cursor.owner());
+        }
+        assertEquals(3, starts.size());
+        assertEquals(EventTimes.toEpochSecond(FIRST.plusDays(2)), (long) starts.get(0));
+        assertFalse(cursor.next());
+
+        cursor.seek(EventTimes.toEpochSecond(FIRST));
+        assertTrue(cursor.next());
+        assertEquals(0, cursor.row());
+        assertEquals(FIRST, cursor.toEvent().getStart_Time_LocalDateTime());
+    }
+
+    @Test
+    public void testEqualStartsKeepInsertionOrder() {
+        long start = EventTimes.toEpochSecond(FIRST);
+        EventStore store = new EventStore.Builder()
+                .add("Later", start + 60, start + 120, "alice")
+                .add("First", start, start + 60, "alice")
+                .add("Second", start, start + 30, "alice")
+                .build();
+        assertEquals("First", store.get(0).getName());
+        assertEquals("Second", store.get(1).getName());
+        assertEquals("Later", store.get(2).getName());
+        assertEquals(3, store.firstStartingAtOrAfter(start + 61));
+    }
+
+    @Test
+    public void testUnparsedEventsAreLeftOut() {
+        EventStore store = EventStore.of(List.of(new Event("Broken", "not a date", "not a date", "alice")));
+        assertEquals(0, store.size());
+        assertFalse(store.cursor().next());
+        assertEquals(0, EventStore.empty().size());
+    }
+}
@@ -109,4 +109,32 @@ public class EventTest {
         assertFalse(eventValidFormat.IsEventInProgress(beforeEvent));
         assertFalse(eventValidFormat.IsEventInProgress(afterEvent));
     }
+
+    @Test
+    public void testIcsTimesAreParsedOnceWithOffset() {
+        LocalDateTime expected = LocalDateTime.of(2025, 5, 31, 14, 0, 0);
+        assertEquals(expected, eventIcsFormat.getStart_Time_LocalDateTime());
+        // A trailing UTC marker is ignored as before
+        Event utc = new Event("Utc", "20250531T040000Z", "20250531T050000Z", "testuser");
+        assertEquals(expected, utc.getStart_Time_LocalDateTime());
+        assertEquals("05/31/2025 15:00:00", utc.getEnd_time());
+    }
+
+    @Test
+    public void testInvalidTimesAreNullAndNeverInProgress() {
+        assertNull(eventInvalidFormat.getStart_Time_LocalDateTime());
+        assertEquals(Event.NO_TIME, eventInvalidFormat.getEndEpochSecond());
+        assertFalse(eventInvalidFormat.hasTimes());
+        assertFalse(eventInvalidFormat.IsEventInProgress(LocalDateTime.of(2025, 5, 31, 14, 30, 0)));
+    }
+
+    @Test
+    public void testParsedTimesMatchStringConstructor() {
+        Event parsed = new Event("ValidEvent", LocalDateTime.of(2025, 5, 31, 14, 0, 0),
+                LocalDateTime.of(2025, 5, 31, 15, 0, 0), "testuser");
+        assertEquals(eventValidFormat.getStart_time(), parsed.getStart_time());
+        assertEquals(eventValidFormat.getEnd_time(), parsed.getEnd_time());
+        assertEquals(eventValidFormat.getStartEpochSecond(), parsed.getStartEpochSecond());
+        assertEquals(3600L, parsed.getEndEpochSecond() - parsed.getStartEpochSecond());
+    }
 }
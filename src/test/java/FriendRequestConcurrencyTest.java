@@ -0,0 +1,147 @@
+import com.example.cab302project.models.FriendRequestResult;
+import com.example.cab302project.models.FriendRequestStatus;
+import com.example.cab302project.models.SqliteConnection;
+import com.example.cab302project.models.SqliteUserDAO;
+import com.example.cab302project.models.User;
+
+import org.junit.jupiter.api.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FriendRequestConcurrencyTest {
+    private static final int THREADS = 8;
+
+    private Connection connection;
+    private SqliteUserDAO userDAO;
+    private ExecutorService pool;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        SqliteConnection.injectTestConnection(connection);
+        userDAO = new SqliteUserDAO();
+        pool = Executors.newFixedThreadPool(THREADS);
+        for (String name : new String[]{"ann", "ben", "cat"}) {
+            userDAO.addUser(new User(name, "pass", name + "@email.com"));
+        }
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        pool.shutdownNow();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Starts every task at the same moment and collects their results.
+     */
+    private <T> List<T> race(List<Callable<T>> tasks) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+        for (Callable<T> task : tasks) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            results.add(future.get(30, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+
+    private int count(String sql) throws SQLException {
+        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.getInt(1);
+        }
+    }
+
+    @Test
+    public void testConcurrentSendsCreateOneRequest() throws Exception {
+        List<Callable<FriendRequestResult>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS * 4; i++) {
+            tasks.add(() -> userDAO.sendFriendRequest("ann", "ben"));
+        }
+        List<FriendRequestResult> results = race(tasks);
+
+        assertEquals(1, results.stream().filter(FriendRequestResult::isApplied).count());
+        for (FriendRequestResult result : results) {
+            assertEquals(FriendRequestStatus.PENDING, result.getStatus());
+        }
+        assertEquals(1, count("SELECT COUNT(*) FROM friend_requests"));
+    }
+
+    @Test
+    public void testAcceptRacingDeclineHasOneWinner() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            userDAO.sendFriendRequest("ann", "ben");
+            List<Callable<FriendRequestResult>> tasks = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                tasks.add(i % 2 == 0
+                        ? () -> userDAO.acceptFriendRequest("ann", "ben")
+                        : () -> userDAO.declineFriendRequest("ann", "ben"));
+            }
+            List<FriendRequestResult> results = race(tasks);
+
+            assertEquals(1, results.stream().filter(FriendRequestResult::isApplied).count());
+            FriendRequestStatus winner = results.stream().filter(FriendRequestResult::isApplied)
+                    .findFirst().orElseThrow().getStatus();
+            for (FriendRequestResult result : results) {
+                assertEquals(winner, result.getStatus());
+            }
+            int friendships = count("SELECT COUNT(*) FROM friendships");
+            assertEquals(winner == FriendRequestStatus.ACCEPTED ? 2 : 0, friendships);
+
+            // Reset the pair for the next round
+            userDAO.deleteFriendRequest("ann", "ben");
+        }
+    }
+
+    @Test
+    public void testRandomLifecycleKeepsFriendshipsConsistent() throws Exception {
+        String[] names = {"ann", "ben", "cat"};
+        List<Callable<FriendRequestResult>> tasks = new ArrayList<>();
+        Random random = new Random(302);
+        for (int i = 0; i < 400; i++) {
+            String a = names[random.nextInt(names.length)];
+            String b = names[random.nextInt(names.length)];
+            switch (random.nextInt(5)) {
+                case 0: tasks.add(() -> userDAO.sendFriendRequest(a, b)); break;
+                case 1: tasks.add(() -> userDAO.acceptFriendRequest(a, b)); break;
+                case 2: tasks.add(() -> userDAO.declineFriendRequest(a, b)); break;
+                case 3: tasks.add(() -> userDAO.deleteFriendRequest(a, b)); break;
+                default: tasks.add(() -> userDAO.removeFriend(a, b)); break;
+            }
+        }
+        race(tasks);
+
+        // Every accepted request has both friendship rows and every friendship row has an accepted request
+        assertEquals(2 * count("SELECT COUNT(*) FROM friend_requests WHERE status = 'accepted'"),
+                count("SELECT COUNT(*) FROM friendships"));
+        assertEquals(0, count("SELECT COUNT(*) FROM friendships f WHERE NOT EXISTS ("
+                + "SELECT 1 FROM friend_requests r WHERE r.status = 'accepted' AND "
+                + "((r.sender_id = f.user_id AND r.receiver_id = f.friend_id) "
+                + "OR (r.sender_id = f.friend_id AND r.receiver_id = f.user_id)))"));
+        assertEquals(0, count("SELECT COUNT(*) FROM friend_requests WHERE sender_id = receiver_id"));
+        assertEquals(0, count("SELECT COUNT(*) FROM friend_requests a JOIN friend_requests b "
+                + "ON a.sender_id = b.receiver_id AND a.receiver_id = b.sender_id "
+                + "WHERE a.status IN ('pending', 'accepted') AND b.status IN ('pending', 'accepted')"));
+    }
+}
@@ -0,0 +1,95 @@
+import com.example.cab302project.models.Event;
+import com.example.cab302project.util.IcsDateParser;
+
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IcsDateParserTest {
+    private final IcsDateParser parser = IcsDateParser.getDefault();
+
+    private static long utc(int year, int month, int day, int hour, int minute) {
+        return LocalDateTime.of(year, month, day, hour, minute).toEpochSecond(ZoneOffset.UTC);
+    }
+
+    @Test
+    public void testUtcAndFloatingTimesAreShownInBrisbane() {
+        assertEquals(utc(2025, 5, 9, 8, 0), parser.parseInstant("20250509T080000Z"));
+        assertEquals(utc(2025, 5, 9, 8, 0), parser.parseInstant("DTSTART:20250509T080000Z"));
+        // Floating times are read as UTC, as the importer always has
+        assertEquals(utc(2025, 5, 9, 8, 0), parser.parseInstant("20250509T080000"));
+        assertEquals(LocalDateTime.of(2025, 5, 9, 18, 0), parser.parseLocalDateTime("DTEND:20250509T080000Z"));
+        // Crossing midnight into the next day
+        assertEquals(LocalDateTime.of(2025, 5, 9, 9, 0), parser.parseLocalDateTime("20250508T230000Z"));
+    }
+
+    @Test
+    public void testTzidTimesAreConvertedThroughTheirZone() {
+        // Sydney is on daylight saving time in January, 11 hours ahead of UTC
+        assertEquals(utc(2025, 1, 9, 22, 0), parser.parseInstant("DTSTART;TZID=Australia/Sydney:20250110T090000"));
+        assertEquals(LocalDateTime.of(2025, 1, 10, 8, 0),
+                parser.parseLocalDateTime("DTSTART;TZID=\"Australia/Sydney\":20250110T090000"));
+        assertEquals(utc(2025, 7, 9, 23, 0), parser.parseInstant("20250710T090000", "Australia/Sydney"));
+        // Other parameters may come before or after the TZID
+        assertEquals(utc(2025, 7, 10, 8, 0),
+                parser.parseInstant("DTSTART;X-FOO=bar;TZID=Europe/London;X-BAR=baz:20250710T090000"));
+        // Zones Java does not know are read as floating
+        assertEquals(utc(2025, 7, 10, 9, 0), parser.parseInstant("DTSTART;TZID=Nowhere Standard Time:20250710T090000"));
+    }
+
+    @Test
+    public void testDaylightSavingGapsAndOverlapsResolveLikeZonedDateTime() {
+        ZoneId sydney = ZoneId.of("Australia/Sydney");
+        // 02:30 does not exist on 2025-10-05 and 02:30 happens twice on 2025-04-06
+        for (LocalDateTime local : new LocalDateTime[]{
+                LocalDateTime.of(2025, 10, 5, 2, 30), LocalDateTime.of(2025, 4, 6, 2, 30)}) {
+            String value = String.format("%04d%02d%02dT%02d%02d00", local.getYear(), local.getMonthValue(),
+                    local.getDayOfMonth(), local.getHour(), local.getMinute());
+            assertEquals(local.atZone(sydney).toEpochSecond(), parser.parseInstant(value, "Australia/Sydney"), value);
+        }
+    }
+
+    @Test
+    public void testAllDayDatesStartAtLocalMidnight() {
+        assertEquals(LocalDateTime.of(2025, 5, 7, 0, 0), parser.parseLocalDateTime("DTSTART;VALUE=DATE:20250507"));
+        assertEquals(LocalDateTime.of(2024, 2, 29, 0, 0), parser.parseLocalDateTime("20240229"));
+    }
+
+    @Test
+    public void testMalformedValuesAreInvalid() {
+        for (String value : new String[]{null, "", "2025", "20250230", "20230229", "20251301", "20250509T250000Z",
+                "20250509T086000", "20250509 080000", "20250509T080000X", "2025O509T080000", "DTSTART:"}) {
+            assertEquals(IcsDateParser.INVALID, parser.parseInstant(value), String.valueOf(value));
+        }
+        assertNull(parser.parseLocalDateTime("invalid-date-start"));
+    }
+
+    @Test
+    public void testDatesMatchJavaTimeAcrossCenturies() {
+        Random random = new Random(23);
+        for (int i = 0; i < 10_000; i++) {
+            LocalDate date = LocalDate.ofEpochDay(random.nextInt(400 * 366) - 200 * 366);
+            if (date.getYear() < 0 || date.getYear() > 9999) {
+                continue;
+            }
+            String value = String.format("%04d%02d%02dT123456Z", date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+            assertEquals(date.atTime(12, 34, 56).toEpochSecond(ZoneOffset.UTC), parser.parseInstant(value), value);
+        }
+    }
+
+    @Test
+    public void testImportedEventsUseTheParser() {
+        Event tzid = new Event("Lecture", "DTSTART;TZID=Australia/Sydney:20250110T090000",
+                "DTEND;TZID=Australia/Sydney:20250110T100000", "testuser");
+        assertEquals("01/10/2025 08:00:00", tzid.getStart_time());
+        assertEquals("01/10/2025 09:00:00", tzid.getEnd_time());
+        Event allDay = new Event("Holiday", "DTSTART;VALUE=DATE:20250507", "DTEND;VALUE=DATE:20250508", "testuser");
+        assertEquals(LocalDateTime.of(2025, 5, 8, 0, 0), allDay.getEnd_Time_LocalDateTime());
+    }
+}
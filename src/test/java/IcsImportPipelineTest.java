@@ -0,0 +1,137 @@
+import com.example.cab302project.models.Event;
+import com.example.cab302project.models.EventChange;
+import com.example.cab302project.models.EventChangeBus;
+import com.example.cab302project.models.SqliteConnection;
+import com.example.cab302project.models.SqliteUserDAO;
+import com.example.cab302project.models.User;
+import com.example.cab302project.models.WriteBehindExecutor;
+import com.example.cab302project.services.IcsImportPipeline;
+
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IcsImportPipelineTest {
+    private static final String EMAIL = "ics@email.com";
+
+    private SqliteUserDAO userDAO;
+    private int userId;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        SqliteConnection.injectTestConnection(DriverManager.getConnection("jdbc:sqlite::memory:"));
+        userDAO = new SqliteUserDAO();
+        userDAO.addUser(new User("ics", "pass", EMAIL));
+        userId = userDAO.getUserByEmail(EMAIL).getId();
+    }
+
+    private static String vevent(String... properties) {
+        return "BEGIN:VEVENT\r\n" + String.join("\r\n", properties) + "\r\nEND:VEVENT\r\n";
+    }
+
+    private static String calendar(String... events) {
+        return "BEGIN:VCALENDAR\r\nVERSION:2.0\r\n"
+                // Time zone definitions have DTSTART lines of their own that are not events
+                + "BEGIN:VTIMEZONE\r\nTZID:Australia/Sydney\r\nBEGIN:STANDARD\r\nDTSTART:19700405T030000\r\n"
+                + "END:STANDARD\r\nEND:VTIMEZONE\r\n"
+                + String.join("", events) + "END:VCALENDAR\r\n";
+    }
+
+    @Test
+    public void testEventFormsAreParsed() throws IOException {
+        String ics = calendar(
+                vevent("SUMMARY:Lecture", "DTSTART:20250509T000000Z", "DTEND:20250509T010000Z"),
+                // A folded summary with escaped characters, and a reminder whose properties are not the event's
+                vevent("SUMMARY;LANGUAGE=en:Team\\, planning\\; ", " quarterly", "DTSTART;TZID=Australia/Sydney:20250509T120000",
+                        "DTEND;TZID=Australia/Sydney:20250509T130000", "BEGIN:VALARM", "DTSTART:20250101T000000Z",
+                        "SUMMARY:Reminder", "END:VALARM"),
+                vevent("SUMMARY:Holiday", "DTSTART;VALUE=DATE:20250510", "DTEND;VALUE=DATE:20250511"),
+                vevent("SUMMARY:No end", "DTSTART:20250509T000000Z"),
+                vevent("SUMMARY:Bad time", "DTSTART:yesterday", "DTEND:today"));
+
+        IcsImportPipeline.Result result = new IcsImportPipeline(userDAO).run(new StringReader(ics), userId, EMAIL);
+        assertEquals(3, result.getParsed());
+        assertEquals(3, result.getSaved());
+        assertEquals(2, result.getSkipped());
+        assertEquals(1, result.getChunks());
+
+        List<Event> friday = userDAO.getUserEventsByEmailAndDate(EMAIL, LocalDate.of(2025, 5, 9));
+        assertEquals(2, friday.size());
+        assertEquals("Lecture", friday.get(0).getName());
+        assertEquals(LocalDateTime.of(2025, 5, 9, 10, 0), friday.get(0).getStart_Time_LocalDateTime());
+        assertEquals("Team, planning; quarterly", friday.get(1).getName());
+        assertEquals(LocalDateTime.of(2025, 5, 9, 12, 0), friday.get(1).getStart_Time_LocalDateTime());
+        assertEquals(LocalDateTime.of(2025, 5, 10, 0, 0),
+                userDAO.getUserEventsByEmailAndDate(EMAIL, LocalDate.of(2025, 5, 10)).get(0).getStart_Time_LocalDateTime());
+    }
+
+    @Test
+    public void testEventsAreCommittedInChunks() throws IOException {
+        List<String> events = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            events.add(vevent("SUMMARY:Event " + i, String.format("DTSTART:202505%02dT000000Z", i + 1),
+                    String.format("DTEND:202505%02dT010000Z", i + 1)));
+        }
+        List<EventChange> changes = new ArrayList<>();
+        EventChangeBus.Listener listener = changes::add;
+        EventChangeBus.getInstance().subscribe(listener);
+        try {
+            IcsImportPipeline.Result result = new IcsImportPipeline(userDAO, 10, 1)
+                    .run(new StringReader(calendar(events.toArray(new String[0]))), userId, EMAIL);
+            assertEquals(25, result.getSaved());
+            assertEquals(3, result.getChunks());
+            assertTrue(result.getEventsPerSecond() > 0);
+        } finally {
+            EventChangeBus.getInstance().unsubscribe(listener);
+        }
+
+        // Each chunk is its own transaction, announced as it commits
+        assertEquals(3, changes.size());
+        EventChange.BulkImported last = (EventChange.BulkImported) changes.get(2);
+        assertEquals(5, last.getCount());
+        assertEquals(LocalDateTime.of(2025, 5, 21, 10, 0), last.getFrom());
+        assertEquals(1, userDAO.getUserEventsByEmailAndDate(EMAIL, LocalDate.of(2025, 5, 25)).size());
+    }
+
+    @Test
+    public void testEditsQueuedDuringImportRunBetweenChunks() throws IOException {
+        List<String> events = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            events.add(vevent("SUMMARY:Event " + i, String.format("DTSTART:202505%02dT000000Z", i + 1),
+                    String.format("DTEND:202505%02dT010000Z", i + 1)));
+        }
+        WriteBehindExecutor writes = WriteBehindExecutor.getInstance();
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        EventChangeBus.Listener listener = change -> {
+            if (change instanceof EventChange.BulkImported) {
+                order.add("chunk");
+                if (order.size() == 1) {
+                    // Saved by the user while the import is still running
+                    writes.submit(() -> order.add("edit"));
+                }
+            }
+        };
+        EventChangeBus.getInstance().subscribe(listener);
+        try {
+            IcsImportPipeline.Result result = new IcsImportPipeline(userDAO, writes, 10, 1)
+                    .run(new StringReader(calendar(events.toArray(new String[0]))), userId, EMAIL);
+            assertEquals(25, result.getSaved());
+        } finally {
+            EventChangeBus.getInstance().unsubscribe(listener);
+            WriteBehindExecutor.shutdownInstance();
+        }
+
+        // The edit waits for one chunk, not for the whole import
+        assertEquals(List.of("chunk", "edit", "chunk", "chunk"), order);
+    }
+}
@@ -0,0 +1,272 @@
+import com.example.cab302project.models.ProfileImageStore;
+import com.example.cab302project.models.SchemaMigrator;
+import com.example.cab302project.util.EventTimes;
+
+import org.junit.jupiter.api.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SchemaMigratorTest {
+    private Connection connection;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    /**
+     * Creates the events table as it was before the epoch columns existed and fills it with rows.
+     */
+    private void createLegacyEvents(int rows) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE events (id INTEGER PRIMARY KEY AUTOINCREMENT, user_id INTEGER NOT NULL, "
+                    + "user_email TEXT NOT NULL, name TEXT NOT NULL, start_time TEXT NOT NULL, end_time TEXT NOT NULL)");
+        }
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "INSERT INTO events (user_id, user_email, name, start_time, end_time) VALUES (1, 'a@email.com', ?, ?, ?)")) {
+            for (int i = 0; i < rows; i++) {
+                LocalDateTime start = LocalDateTime.of(2025, 1, 1, 9, 0).plusDays(i);
+                stmt.setString(1, "Event " + i);
+                stmt.setString(2, start.format(EventTimes.FORMAT));
+                stmt.setString(3, start.plusHours(1).format(EventTimes.FORMAT));
+                stmt.executeUpdate();
+            }
+        }
+    }
+
+    @Test
+    public void testFreshDatabaseReachesCurrentVersion() throws SQLException {
+        SchemaMigrator.migrate(connection);
+        assertEquals(SchemaMigrator.CURRENT_VERSION, SchemaMigrator.getVersion(connection));
+    }
+
+    @Test
+    public void testExistingEventsAreBackfilledInChunks() throws SQLException {
+        createLegacyEvents(7);
+        SchemaMigrator.migrate(connection, 3);
+
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT start_time, start_epoch, end_epoch FROM events")) {
+            int rows = 0;
+            while (rs.next()) {
+                rows++;
+                long start = rs.getLong("start_epoch");
+                assertEquals(rs.getString("start_time"), EventTimes.fromEpochSecond(start).format(EventTimes.FORMAT));
+                assertEquals(start + 3600, rs.getLong("end_epoch"));
+            }
+            assertEquals(7, rows);
+        }
+    }
+
+    @Test
+    public void testRangeIndexIsCreated() throws SQLException {
+        SchemaMigrator.migrate(connection);
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("EXPLAIN QUERY PLAN SELECT title_id FROM events "
+                     + "WHERE user_id = 1 AND start_epoch >= 0 AND start_epoch < 100")) {
+            assertTrue(rs.next());
+            assertTrue(rs.getString("detail").contains("idx_events_user_time"));
+        }
+    }
+
+    @Test
+    public void testUnparseableTimesAreLeftNull() throws SQLException {
+        createLegacyEvents(1);
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("INSERT INTO events (user_id, user_email, name, start_time, end_time) "
+                    + "VALUES (1, 'a@email.com', 'Broken', 'not a date', 'not a date')");
+        }
+        SchemaMigrator.migrate(connection);
+
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT start_epoch FROM events e "
+                     + "JOIN event_titles t ON t.id = e.title_id WHERE t.title = 'Broken'")) {
+            assertTrue(rs.next());
+            rs.getLong("start_epoch");
+            assertTrue(rs.wasNull());
+        }
+    }
+
+    @Test
+    public void testProfileImagesMoveOutOfUsersTable() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE users (id INTEGER PRIMARY KEY AUTOINCREMENT, username TEXT NOT NULL UNIQUE, "
+                    + "password TEXT NOT NULL, email TEXT NOT NULL UNIQUE, bio TEXT DEFAULT '', profile_image BLOB)");
+        }
+        byte[] image = {10, 20, 30};
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "INSERT INTO users (username, password, email, profile_image) VALUES (?, 'pw', ?, ?)")) {
+            for (String name : new String[]{"a", "b"}) {
+                stmt.setString(1, name);
+                stmt.setString(2, name + "@email.com");
+                stmt.setBytes(3, image);
+                stmt.executeUpdate();
+            }
+        }
+        SchemaMigrator.migrate(connection);
+
+        try (Statement stmt = connection.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*), MIN(hash), MIN(data) FROM profile_images")) {
+                assertEquals(1, rs.getInt(1));
+                assertEquals(ProfileImageStore.hash(image), rs.getString(2));
+                assertArrayEquals(image, rs.getBytes(3));
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM users WHERE profile_image_hash IS NOT NULL")) {
+                assertEquals(2, rs.getInt(1));
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM pragma_table_info('users') WHERE name = 'profile_image'")) {
+                assertEquals(0, rs.getInt(1));
+            }
+        }
+    }
+
+    @Test
+    public void testEventsAndRequestsAreRekeyedByUserId() throws SQLException {
+        createLegacyEvents(2);
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE users (id INTEGER PRIMARY KEY AUTOINCREMENT, username TEXT NOT NULL UNIQUE, "
+                    + "password TEXT NOT NULL, email TEXT NOT NULL UNIQUE, bio TEXT DEFAULT '', profile_image BLOB)");
+            stmt.execute("CREATE TABLE friend_requests (sender_email TEXT NOT NULL, receiver_email TEXT NOT NULL, "
+                    + "status TEXT NOT NULL, PRIMARY KEY (sender_email, receiver_email))");
+            stmt.execute("INSERT INTO users (id, username, password, email) VALUES (7, 'a', 'pw', 'a@email.com')");
+            stmt.execute("INSERT INTO users (id, username, password, email) VALUES (8, 'b', 'pw', 'b@email.com')");
+            stmt.execute("UPDATE events SET user_id = 0");
+            stmt.execute("INSERT INTO friend_requests VALUES ('a@email.com', 'b@email.com', 'accepted')");
+            stmt.execute("INSERT INTO friend_requests VALUES ('b@email.com', 'gone@email.com', 'pending')");
+        }
+        SchemaMigrator.migrate(connection);
+
+        try (Statement stmt = connection.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM events WHERE user_id = 7")) {
+                assertEquals(2, rs.getInt(1));
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM pragma_table_info('events') WHERE name = 'user_email'")) {
+                assertEquals(0, rs.getInt(1));
+            }
+            // Requests involving a user that no longer exists cannot be keyed and are dropped
+            try (ResultSet rs = stmt.executeQuery("SELECT sender_id, receiver_id, status FROM friend_requests")) {
+                assertTrue(rs.next());
+                assertEquals(7, rs.getInt("sender_id"));
+                assertEquals(8, rs.getInt("receiver_id"));
+                assertEquals("accepted", rs.getString("status"));
+                assertFalse(rs.next());
+            }
+            // The accepted request is materialised in both directions
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM friendships "
+                    + "WHERE (user_id = 7 AND friend_id = 8) OR (user_id = 8 AND friend_id = 7)")) {
+                assertEquals(2, rs.getInt(1));
+            }
+        }
+    }
+
+    @Test
+    public void testEventNamesMoveToTitleDictionary() throws SQLException {
+        createLegacyEvents(3);
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("INSERT INTO events (user_id, user_email, name, start_time, end_time) "
+                    + "SELECT user_id, user_email, name, start_time, end_time FROM events");
+        }
+        SchemaMigrator.migrate(connection);
+
+        try (Statement stmt = connection.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM event_titles")) {
+                assertEquals(3, rs.getInt(1));
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM pragma_table_info('events') WHERE name = 'name'")) {
+                assertEquals(0, rs.getInt(1));
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM event_names WHERE name = 'Event 1'")) {
+                assertEquals(2, rs.getInt(1));
+            }
+            // The search index was rebuilt from the titles
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM events_fts WHERE events_fts MATCH 'event'")) {
+                assertEquals(6, rs.getInt(1));
+            }
+        }
+    }
+
+    @Test
+    public void testFriendListIsAnIndexRangeScan() throws SQLException {
+        SchemaMigrator.migrate(connection);
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("EXPLAIN QUERY PLAN SELECT u.username FROM friendships f "
+                     + "JOIN users u ON u.id = f.friend_id WHERE f.user_id = 1")) {
+            assertTrue(rs.next());
+            assertTrue(rs.getString("detail").contains("SEARCH f USING PRIMARY KEY"));
+        }
+    }
+
+    @Test
+    public void testUsernamePrefixSearchUsesIndex() throws SQLException {
+        SchemaMigrator.migrate(connection);
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("EXPLAIN QUERY PLAN SELECT id FROM users "
+                     + "WHERE username >= 'sam' COLLATE NOCASE AND username < 'san' COLLATE NOCASE "
+                     + "ORDER BY username COLLATE NOCASE, id LIMIT 20")) {
+            StringBuilder plan = new StringBuilder();
+            while (rs.next()) {
+                plan.append(rs.getString("detail")).append('\n');
+            }
+            assertTrue(plan.toString().contains("idx_users_username_nocase"));
+            assertFalse(plan.toString().contains("TEMP B-TREE"));
+        }
+    }
+
+    @Test
+    public void testLongestEventIsTrackedPerUser() throws SQLException {
+        SchemaMigrator.migrate(connection);
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("INSERT INTO users (id, username, password, email) VALUES (1, 'a', 'pw', 'a@email.com')");
+            stmt.execute("INSERT INTO event_titles (id, title) VALUES (1, 'Event')");
+            stmt.execute("INSERT INTO events (user_id, title_id, start_time, end_time, start_epoch, end_epoch) "
+                    + "VALUES (1, 1, '', '', 0, 3600)");
+            try (ResultSet rs = stmt.executeQuery("SELECT longest_event_seconds FROM users WHERE id = 1")) {
+                assertEquals(3600, rs.getLong(1));
+            }
+            stmt.execute("INSERT INTO events (user_id, title_id, start_time, end_time, start_epoch, end_epoch) "
+                    + "VALUES (1, 1, '', '', 0, 60)");
+            try (ResultSet rs = stmt.executeQuery("SELECT longest_event_seconds FROM users WHERE id = 1")) {
+                assertEquals(3600, rs.getLong(1), "A shorter event should not lower the bound");
+            }
+
+            // Events saved before the column existed are measured by the migration
+            stmt.execute("UPDATE users SET longest_event_seconds = 0");
+            stmt.execute("PRAGMA user_version = 8");
+        }
+        SchemaMigrator.migrate(connection);
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT longest_event_seconds FROM users WHERE id = 1")) {
+            assertEquals(3600, rs.getLong(1));
+        }
+    }
+
+    @Test
+    public void testWindowOverlapQueryIsAnIndexRangeScan() throws SQLException {
+        SchemaMigrator.migrate(connection);
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("EXPLAIN QUERY PLAN SELECT e.title_id FROM events e "
+                     + "JOIN users u ON e.user_id = u.id WHERE u.email = 'a@email.com' "
+                     + "AND e.start_epoch >= 100 - u.longest_event_seconds AND e.start_epoch < 200 "
+                     + "AND e.end_epoch > 100")) {
+            StringBuilder plan = new StringBuilder();
+            while (rs.next()) {
+                plan.append(rs.getString("detail")).append('\n');
+            }
+            assertTrue(plan.toString().contains("idx_events_user_time (user_id=? AND start_epoch>? AND start_epoch<?)"),
+                    plan.toString());
+        }
+    }
+}
@@ -0,0 +1,122 @@
+import com.example.cab302project.models.Event;
+import com.example.cab302project.models.EventIntervalIndex;
+import com.example.cab302project.models.EventStore;
+import com.example.cab302project.models.SlotOccupancy;
+
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SlotOccupancyTest {
+    private static final LocalDateTime DAY_START = LocalDateTime.of(2025, 3, 3, 0, 0);
+
+    private static Event event(String name, LocalDateTime start, LocalDateTime end) {
+        return new Event(name, start, end, "user");
+    }
+
+    @Test
+    public void testEventsAppearInEveryHourTheyOverlap() {
+        List<Event> events = List.of(
+                event("Lecture", DAY_START.plusHours(9).plusMinutes(30), DAY_START.plusHours(11)),
+                event("Call", DAY_START.plusHours(10), DAY_START.plusHours(10).plusMinutes(15)),
+                event("Lunch", DAY_START.plusHours(12), DAY_START.plusHours(13))
+        );
+        SlotOccupancy hours = new SlotOccupancy(events, DAY_START, Duration.ofHours(1), 24);
+
+        assertEquals(24, hours.slotCount());
+        assertEquals(List.of(events.get(0)), hours.eventsIn(9));
+        assertEquals(List.of(events.get(0), events.get(1)), hours.eventsIn(10));
+        // Ending exactly at 11:00 keeps the lecture out of the 11:00 slot
+        assertEquals(0, hours.count(11));
+        assertEquals(List.of(events.get(2)), hours.eventsIn(12));
+        assertEquals(0, hours.count(13));
+        assertEquals(2, hours.maxCount());
+        assertEquals(DAY_START.plusHours(10), hours.slotStart(10));
+    }
+
+    @Test
+    public void testEventsOutsideTheGridAreClipped() {
+        List<Event> events = List.of(
+                event("Before", DAY_START.minusHours(3), DAY_START.minusHours(1)),
+                event("Overnight", DAY_START.minusHours(2), DAY_START.plusHours(2)),
+                event("After", DAY_START.plusHours(30), DAY_START.plusHours(31))
+        );
+        SlotOccupancy hours = new SlotOccupancy(events, DAY_START, Duration.ofHours(1), 24);
+        assertEquals(List.of(events.get(1)), hours.eventsIn(0));
+        assertEquals(List.of(events.get(1)), hours.eventsIn(1));
+        for (int slot = 2; slot < 24; slot++) {
+            assertTrue(hours.eventsIn(slot).isEmpty());
+        }
+    }
+
+    @Test
+    public void testEventWithNoLengthIsInTheSlotItStartsIn() {
+        List<Event> events = List.of(
+                event("Meeting", DAY_START.plusHours(9), DAY_START.plusHours(11)),
+                event("Deadline", DAY_START.plusHours(10).plusMinutes(30), DAY_START.plusHours(10).plusMinutes(30)),
+                event("Reminder", DAY_START.plusHours(12), DAY_START.plusHours(12))
+        );
+        SlotOccupancy hours = new SlotOccupancy(events, DAY_START, Duration.ofHours(1), 24);
+
+        assertEquals(List.of(events.get(0)), hours.eventsIn(9));
+        assertEquals(List.of(events.get(0), events.get(1)), hours.eventsIn(10));
+        assertEquals(0, hours.count(11));
+        // Starting exactly on the slot boundary puts it in the later slot only
+        assertEquals(List.of(events.get(2)), hours.eventsIn(12));
+        assertEquals(0, hours.count(13));
+
+        EventIntervalIndex index = new EventIntervalIndex(events);
+        assertEquals(List.of(events.get(0), events.get(1)),
+                index.intersecting(DAY_START.plusHours(10), DAY_START.plusHours(11)));
+        assertEquals(List.of(events.get(2)), index.intersecting(DAY_START.plusHours(12), DAY_START.plusHours(13)));
+        assertTrue(index.intersecting(DAY_START.plusHours(11), DAY_START.plusHours(12)).isEmpty());
+    }
+
+    @Test
+    public void testSweepMatchesIntervalIndex() {
+        Random random = new Random(22);
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            LocalDateTime start = DAY_START.plusMinutes(random.nextInt(7 * 24 * 60));
+            events.add(event("Event " + i, start, start.plusMinutes(random.nextInt(600))));
+        }
+        events.sort(Comparator.comparing(Event::getStart_Time_LocalDateTime));
+        EventIntervalIndex index = new EventIntervalIndex(events);
+
+        Duration slotLength = Duration.ofMinutes(30);
+        SlotOccupancy slots = new SlotOccupancy(events, DAY_START, slotLength, 7 * 48);
+        for (int slot = 0; slot < slots.slotCount(); slot++) {
+            LocalDateTime from = slots.slotStart(slot);
+            assertEquals(index.intersecting(from, from.plus(slotLength)), slots.eventsIn(slot), "slot " + slot);
+        }
+    }
+
+    @Test
+    public void testGridFromStoreMatchesGridFromEvents() {
+        Random random = new Random(20);
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            LocalDateTime start = DAY_START.plusMinutes(random.nextInt(7 * 24 * 60) - 120);
+            events.add(event("Event " + i, start, start.plusMinutes(random.nextInt(600))));
+        }
+        events.sort(Comparator.comparing(Event::getStart_Time_LocalDateTime));
+
+        SlotOccupancy fromEvents = new SlotOccupancy(events, DAY_START, Duration.ofHours(1), 7 * 24);
+        SlotOccupancy fromStore = new SlotOccupancy(EventStore.of(events), DAY_START, Duration.ofHours(1), 7 * 24);
+        for (int slot = 0; slot < fromEvents.slotCount(); slot++) {
+            assertEquals(names(fromEvents.eventsIn(slot)), names(fromStore.eventsIn(slot)), "slot " + slot);
+        }
+    }
+
+    private static List<String> names(List<Event> events) {
+        return events.stream().map(Event::getName).collect(Collectors.toList());
+    }
+}
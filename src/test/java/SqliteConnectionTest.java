@@ -1,16 +1,161 @@
 import com.example.cab302project.models.SqliteConnection;
 import com.example.cab302project.services.Authentication;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
 import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 public class SqliteConnectionTest {
     private Authentication Sqlconnection;
+
+    @AfterEach
+    public void tearDown() {
+        SqliteConnection.useDatabase(SqliteConnection.DEFAULT_URL);
+    }
+
     @Test
     public void testConnectionIsNotNull() { //Test Connection is not Null
         Connection conn = SqliteConnection.getInstance();
         assertNotNull(conn, "Connection should not be null");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testInjectedConnectionIsSharedWithReaders() throws SQLException {
+        Connection conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+        SqliteConnection.injectTestConnection(conn);
+
+        assertSame(conn, SqliteConnection.getInstance());
+        try (SqliteConnection.ReadLease lease = SqliteConnection.borrowReader()) {
+            assertSame(conn, lease.connection(), "Readers should use the injected connection");
+        }
+        assertFalse(conn.isClosed(), "Returning the lease must not close the injected connection");
+    }
+
+    @Test
+    public void testReadersAreReadOnlyAndSeparateFromWriter() throws Exception {
+        File db = File.createTempFile("pool-test", ".db");
+        db.deleteOnExit();
+        SqliteConnection.useDatabase("jdbc:sqlite:" + db.getAbsolutePath());
+
+        Connection writer = SqliteConnection.getInstance();
+        try (Statement stmt = writer.createStatement()) {
+            stmt.execute("CREATE TABLE t (x INTEGER)");
+            stmt.execute("INSERT INTO t VALUES (1)");
+        }
+
+        try (SqliteConnection.ReadLease lease = SqliteConnection.borrowReader()) {
+            assertNotSame(writer, lease.connection());
+            try (Statement stmt = lease.connection().createStatement()) {
+                assertTrue(stmt.executeQuery("SELECT x FROM t").next(), "Reader should see committed rows");
+                assertThrows(SQLException.class, () -> stmt.execute("INSERT INTO t VALUES (2)"));
+            }
+        }
+    }
+
+    @Test
+    public void testReturnedReaderIsReused() throws Exception {
+        File db = File.createTempFile("pool-test", ".db");
+        db.deleteOnExit();
+        SqliteConnection.useDatabase("jdbc:sqlite:" + db.getAbsolutePath());
+
+        Connection first;
+        try (SqliteConnection.ReadLease lease = SqliteConnection.borrowReader()) {
+            first = lease.connection();
+        }
+        try (SqliteConnection.ReadLease lease = SqliteConnection.borrowReader()) {
+            assertSame(first, lease.connection(), "An idle reader should be handed out again");
+        }
+    }
+
+    @Test
+    public void testConcurrentBorrowersGetDistinctReaders() throws Exception {
+        File db = File.createTempFile("pool-test", ".db");
+        db.deleteOnExit();
+        SqliteConnection.useDatabase("jdbc:sqlite:" + db.getAbsolutePath());
+
+        try (SqliteConnection.ReadLease a = SqliteConnection.borrowReader();
+             SqliteConnection.ReadLease b = SqliteConnection.borrowReader()) {
+            assertNotSame(a.connection(), b.connection());
+        }
+    }
+
+    @Test
+    public void testReaderWaitedForAcrossResetIsReturnedToNewPool() throws Exception {
+        File oldDb = File.createTempFile("pool-test", ".db");
+        oldDb.deleteOnExit();
+        SqliteConnection.useDatabase("jdbc:sqlite:" + oldDb.getAbsolutePath());
+        SqliteConnection.ReadLease[] borrowed = borrowAll();
+
+        // The pool is full, so this borrower waits until a reader is returned
+        Connection[] handedOver = new Connection[1];
+        Thread waiter = new Thread(() -> {
+            try (SqliteConnection.ReadLease lease = SqliteConnection.borrowReader()) {
+                handedOver[0] = lease.connection();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        });
+        waiter.start();
+        Thread.sleep(200);
+
+        File newDb = File.createTempFile("pool-test", ".db");
+        newDb.deleteOnExit();
+        SqliteConnection.useDatabase("jdbc:sqlite:" + newDb.getAbsolutePath());
+        for (SqliteConnection.ReadLease lease : borrowed) {
+            lease.close();
+        }
+        waiter.join(5000);
+
+        assertNotNull(handedOver[0], "The waiting borrower should get a reader of the new pool");
+        assertFalse(handedOver[0].isClosed(), "A reader of the current pool must go back to the pool, not be closed");
+        // Every slot of the new pool is still usable
+        for (SqliteConnection.ReadLease lease : borrowAll()) {
+            lease.close();
+        }
+    }
+
+    @Test
+    public void testDiscardedReaderWakesWaitingBorrower() throws Exception {
+        File db = File.createTempFile("pool-test", ".db");
+        db.deleteOnExit();
+        SqliteConnection.useDatabase("jdbc:sqlite:" + db.getAbsolutePath());
+        SqliteConnection.ReadLease[] borrowed = borrowAll();
+
+        long[] waitedMillis = {-1};
+        Thread waiter = new Thread(() -> {
+            long start = System.nanoTime();
+            try (SqliteConnection.ReadLease lease = SqliteConnection.borrowReader()) {
+                waitedMillis[0] = (System.nanoTime() - start) / 1_000_000;
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        });
+        waiter.start();
+        Thread.sleep(200);
+
+        // A reader closed by its borrower frees a slot rather than going back to the pool
+        borrowed[0].connection().close();
+        borrowed[0].close();
+        waiter.join(5000);
+
+        assertTrue(waitedMillis[0] >= 0 && waitedMillis[0] < 2000,
+                "The waiter should open a reader in the freed slot, waited " + waitedMillis[0] + " ms");
+        for (int i = 1; i < borrowed.length; i++) {
+            borrowed[i].close();
+        }
+    }
+
+    private static SqliteConnection.ReadLease[] borrowAll() throws SQLException {
+        SqliteConnection.ReadLease[] borrowed = new SqliteConnection.ReadLease[SqliteConnection.READER_POOL_SIZE];
+        for (int i = 0; i < borrowed.length; i++) {
+            borrowed[i] = SqliteConnection.borrowReader();
+        }
+        return borrowed;
+    }
+}
@@ -1,12 +1,25 @@
+import com.example.cab302project.models.Event;
+import com.example.cab302project.models.EventSearchHit;
+import com.example.cab302project.models.FriendRequestResult;
+import com.example.cab302project.models.FriendRequestStatus;
 import com.example.cab302project.models.SqliteUserDAO;
 import com.example.cab302project.models.User;
+import com.example.cab302project.models.UserSummary;
 import com.example.cab302project.models.SqliteConnection;
 
 import org.junit.jupiter.api.*;
 
+import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -82,8 +95,8 @@ public class SqliteUserDAOTest {
         userDAO.addUser(user1);
         userDAO.addUser(user2);
 
-        assertTrue(userDAO.sendFriendRequest("eva", "frank"));
-        assertTrue(userDAO.acceptFriendRequest("eva", "frank"));
+        assertTrue(userDAO.sendFriendRequest("eva", "frank").isApplied());
+        assertTrue(userDAO.acceptFriendRequest("eva", "frank").isApplied());
 
         assertEquals(1, userDAO.getFriends("eva").size());
         assertEquals("frank", userDAO.getFriends("eva").get(0).getUsername());
@@ -96,8 +109,8 @@ public class SqliteUserDAOTest {
         userDAO.addUser(sender);
         userDAO.addUser(receiver);
 
-        assertTrue(userDAO.sendFriendRequest("george", "hannah"));
-        assertTrue(userDAO.declineFriendRequest("george", "hannah"));
+        assertTrue(userDAO.sendFriendRequest("george", "hannah").isApplied());
+        assertTrue(userDAO.declineFriendRequest("george", "hannah").isApplied());
         assertEquals(0, userDAO.getFriends("hannah").size());
     }
 
@@ -133,4 +146,351 @@ public class SqliteUserDAOTest {
         userDAO.deleteUser("leo");
         assertNull(userDAO.getUserByUsername("leo"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetUserEventsByEmailAndDateUsesWholeDay() {
+        userDAO.addUser(new User("mia", "pass", "mia@email.com"));
+        userDAO.insertEvent(0, "mia@email.com", "Late", "05/02/2025 23:59:59", "05/03/2025 00:30:00");
+        userDAO.insertEvent(0, "mia@email.com", "Midnight", "05/03/2025 00:00:00", "05/03/2025 01:00:00");
+        userDAO.insertEvent(0, "mia@email.com", "Evening", "05/03/2025 22:00:00", "05/03/2025 23:00:00");
+        userDAO.insertEvent(0, "mia@email.com", "Next", "05/04/2025 00:00:00", "05/04/2025 01:00:00");
+
+        List<Event> events = userDAO.getUserEventsByEmailAndDate("mia@email.com", LocalDate.of(2025, 5, 3));
+        assertEquals(2, events.size());
+        assertEquals("Midnight", events.get(0).getName());
+        assertEquals("Evening", events.get(1).getName());
+    }
+
+    @Test
+    public void testGetUserEventsStartingBetweenIsPerUser() {
+        userDAO.addUser(new User("noah", "pass", "noah@email.com"));
+        userDAO.addUser(new User("olive", "pass", "olive@email.com"));
+        userDAO.insertEvent(0, "noah@email.com", "Noah", "06/10/2025 09:00:00", "06/10/2025 10:00:00");
+        userDAO.insertEvent(0, "olive@email.com", "Olive", "06/10/2025 09:00:00", "06/10/2025 10:00:00");
+
+        List<Event> events = userDAO.getUserEventsStartingBetween("noah@email.com",
+                LocalDateTime.of(2025, 6, 9, 0, 0), LocalDateTime.of(2025, 6, 16, 0, 0));
+        assertEquals(1, events.size());
+        assertEquals("Noah", events.get(0).getName());
+    }
+
+    @Test
+    public void testInsertEventsReportsEachRow() {
+        userDAO.addUser(new User("quinn", "pass", "quinn@email.com"));
+        List<Event> events = List.of(
+                new Event("First", "07/01/2025 09:00:00", "07/01/2025 10:00:00", "quinn@email.com"),
+                new Event("Broken", "not a date", "07/01/2025 10:00:00", "quinn@email.com"),
+                new Event("Second", "07/01/2025 11:00:00", "07/01/2025 12:00:00", "quinn@email.com"),
+                new Event("Third", "07/01/2025 13:00:00", "07/01/2025 14:00:00", "quinn@email.com")
+        );
+
+        boolean[] inserted = userDAO.insertEvents(0, "quinn@email.com", events, 2);
+        assertArrayEquals(new boolean[]{true, false, true, true}, inserted);
+        assertEquals(3, userDAO.getUserEventsByEmailAndDate("quinn@email.com", LocalDate.of(2025, 7, 1)).size());
+    }
+
+    @Test
+    public void testInsertEventsRollsBackOnFailure() throws SQLException {
+        userDAO.addUser(new User("ruby", "pass", "ruby@email.com"));
+        try (Statement stmt = SqliteConnection.getInstance().createStatement()) {
+            stmt.execute("CREATE TRIGGER reject_boom BEFORE INSERT ON events "
+                    + "WHEN NEW.title_id = (SELECT id FROM event_titles WHERE title = 'Boom') "
+                    + "BEGIN SELECT RAISE(ABORT, 'rejected'); END");
+        }
+        List<Event> events = List.of(
+                new Event("Fine", "07/02/2025 09:00:00", "07/02/2025 10:00:00", "ruby@email.com"),
+                new Event("Boom", "07/02/2025 11:00:00", "07/02/2025 12:00:00", "ruby@email.com")
+        );
+
+        boolean[] inserted = userDAO.insertEvents(0, "ruby@email.com", events, 1);
+        assertArrayEquals(new boolean[]{false, false}, inserted);
+        assertTrue(userDAO.getUserEventsByEmailAndDate("ruby@email.com", LocalDate.of(2025, 7, 2)).isEmpty());
+        assertTrue(SqliteConnection.getInstance().getAutoCommit());
+    }
+
+    @Test
+    public void testProfileImageRoundTrip() throws Exception {
+        userDAO.addUser(new User("sam", "pass", "sam@email.com"));
+        byte[] image = {1, 2, 3, 4, 5};
+        assertTrue(userDAO.updateProfileImage("sam@email.com", image));
+
+        assertArrayEquals(image, userDAO.getProfileImage("sam@email.com"));
+        try (InputStream stream = userDAO.openProfileImage("sam@email.com")) {
+            assertArrayEquals(image, stream.readAllBytes());
+        }
+        assertNull(userDAO.openProfileImage("nobody@email.com"));
+    }
+
+    @Test
+    public void testProfileImagesAreStoredOncePerContent() throws SQLException {
+        userDAO.addUser(new User("tia", "pass", "tia@email.com"));
+        userDAO.addUser(new User("uma", "pass", "uma@email.com"));
+        byte[] shared = {9, 8, 7};
+        userDAO.updateProfileImage("tia@email.com", shared);
+        userDAO.updateProfileImage("uma@email.com", shared);
+        assertEquals(1, countProfileImages());
+
+        // Replacing one user's image keeps the shared copy, replacing both drops it
+        userDAO.updateProfileImage("tia@email.com", new byte[]{1});
+        assertEquals(2, countProfileImages());
+        userDAO.updateProfileImage("uma@email.com", null);
+        assertEquals(1, countProfileImages());
+        assertNull(userDAO.getProfileImage("uma@email.com"));
+    }
+
+    private int countProfileImages() throws SQLException {
+        try (Statement stmt = SqliteConnection.getInstance().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM profile_images")) {
+            return rs.getInt(1);
+        }
+    }
+
+    @Test
+    public void testUserSummariesCarryIdUsernameAndEmail() {
+        userDAO.addUser(new User("vic", "pass", "vic@email.com"));
+        userDAO.addUser(new User("amy", "pass", "amy@email.com"));
+
+        List<UserSummary> all = userDAO.getAllUserSummaries();
+        assertEquals(2, all.size());
+        assertEquals("amy", all.get(0).getUsername());
+        assertEquals("vic@email.com", all.get(1).getEmail());
+        assertTrue(all.get(0).getId() > 0);
+
+        UserSummary vic = userDAO.getUserSummaryByEmail("vic@email.com");
+        assertEquals(vic, userDAO.getUserSummaryByUsername("vic"));
+        assertNull(userDAO.getUserSummaryByUsername("nobody"));
+    }
+
+    @Test
+    public void testFriendAndRequestSummaries() {
+        userDAO.addUser(new User("wes", "pass", "wes@email.com"));
+        userDAO.addUser(new User("xia", "pass", "xia@email.com"));
+        userDAO.addUser(new User("yan", "pass", "yan@email.com"));
+        userDAO.sendFriendRequest("wes", "xia");
+        userDAO.sendFriendRequest("yan", "wes");
+
+        assertEquals(List.of("xia"), usernames(userDAO.getOutgoingRequestSummaries("wes")));
+        assertEquals(List.of("yan"), usernames(userDAO.getIncomingRequestSummaries("wes")));
+        assertTrue(userDAO.getFriendSummaries("wes").isEmpty());
+
+        userDAO.acceptFriendRequest("wes", "xia");
+        assertEquals(List.of("xia"), usernames(userDAO.getFriendSummaries("wes")));
+        assertEquals(List.of("wes"), usernames(userDAO.getFriendSummaries("xia")));
+        assertTrue(userDAO.getOutgoingRequestSummaries("wes").isEmpty());
+    }
+
+    @Test
+    public void testEmailChangeKeepsEventsAndFriends() {
+        userDAO.addUser(new User("zed", "pass", "zed@email.com"));
+        userDAO.addUser(new User("amy", "pass", "amy@email.com"));
+        userDAO.sendFriendRequest("zed", "amy");
+        userDAO.acceptFriendRequest("zed", "amy");
+        userDAO.insertEvent(0, "zed@email.com", "Standup", "05/06/2025 09:00:00", "05/06/2025 09:15:00");
+
+        assertTrue(userDAO.updateEmail("zed@email.com", "zed.new@email.com"));
+
+        assertTrue(userDAO.getUserByEmail("zed.new@email.com").getId() > 0);
+        assertEquals(1, userDAO.getUserEventsByEmailAndDate("zed.new@email.com", LocalDate.of(2025, 5, 6)).size());
+        assertEquals(List.of("zed"), usernames(userDAO.getFriendSummaries("amy")));
+    }
+
+    @Test
+    public void testUpdatesByIdFollowAnEmailChange() {
+        userDAO.addUser(new User("vic", "pass", "vic@email.com"));
+        int id = userDAO.getUserByEmail("vic@email.com").getId();
+
+        assertTrue(userDAO.updateEmail(id, "vic.new@email.com"));
+        // Queued before the email change was written, still aimed at the same row
+        assertTrue(userDAO.updateBio(id, "New bio"));
+        assertTrue(userDAO.updatePassword(id, "newpass"));
+        assertTrue(userDAO.updateProfileImage(id, new byte[]{7, 8}));
+
+        User updated = userDAO.getUserByEmail("vic.new@email.com");
+        assertEquals("New bio", updated.getBio());
+        assertTrue(userDAO.validateUser("vic.new@email.com", "newpass"));
+        assertArrayEquals(new byte[]{7, 8}, userDAO.getProfileImage("vic.new@email.com"));
+        assertFalse(userDAO.updateBio(id + 1000, "Nobody"));
+    }
+
+    @Test
+    public void testDeleteFriendRequest() {
+        userDAO.addUser(new User("bea", "pass", "bea@email.com"));
+        userDAO.addUser(new User("cal", "pass", "cal@email.com"));
+        userDAO.sendFriendRequest("bea", "cal");
+
+        assertFalse(userDAO.deleteFriendRequest("cal", "bea").isApplied());
+        assertTrue(userDAO.deleteFriendRequest("bea", "cal").isApplied());
+        assertTrue(userDAO.getOutgoingRequestSummaries("bea").isEmpty());
+    }
+
+    @Test
+    public void testFriendshipFollowsRequestLifecycle() throws SQLException {
+        userDAO.addUser(new User("dan", "pass", "dan@email.com"));
+        userDAO.addUser(new User("eli", "pass", "eli@email.com"));
+        userDAO.addUser(new User("fay", "pass", "fay@email.com"));
+        userDAO.sendFriendRequest("dan", "eli");
+        userDAO.sendFriendRequest("fay", "dan");
+        assertTrue(userDAO.getFriends("dan").isEmpty());
+
+        assertTrue(userDAO.acceptFriendRequest("dan", "eli").isApplied());
+        assertTrue(userDAO.acceptFriendRequest("fay", "dan").isApplied());
+        assertFalse(userDAO.acceptFriendRequest("dan", "eli").isApplied());
+        assertEquals(2, userDAO.getFriends("dan").size());
+        assertEquals("dan", userDAO.getFriends("eli").get(0).getUsername());
+
+        // Either side can end the friendship, whoever sent the request
+        assertTrue(userDAO.removeFriend("eli", "dan").isApplied());
+        assertFalse(userDAO.removeFriend("eli", "dan").isApplied());
+        assertTrue(userDAO.getFriends("eli").isEmpty());
+        assertEquals(List.of("fay"), usernames(userDAO.getFriendSummaries("dan")));
+
+        assertTrue(userDAO.deleteFriendRequest("fay", "dan").isApplied());
+        assertTrue(userDAO.getFriends("fay").isEmpty());
+        assertTrue(userDAO.getFriends("dan").isEmpty());
+    }
+
+    @Test
+    public void testSearchEventsRanksPrefixMatchesForOneUser() {
+        userDAO.addUser(new User("gus", "pass", "gus@email.com"));
+        userDAO.addUser(new User("hal", "pass", "hal@email.com"));
+        int gus = userDAO.getUserByUsername("gus").getId();
+        userDAO.insertEvent(gus, "gus@email.com", "Dentist appointment", "05/06/2025 09:00:00", "05/06/2025 10:00:00");
+        userDAO.insertEvent(gus, "gus@email.com", "Dentist", "05/13/2025 09:00:00", "05/13/2025 10:00:00");
+        userDAO.insertEvent(gus, "gus@email.com", "Team lunch", "05/07/2025 12:00:00", "05/07/2025 13:00:00");
+        userDAO.insertEvent(0, "hal@email.com", "Dentist", "05/06/2025 09:00:00", "05/06/2025 10:00:00");
+
+        List<EventSearchHit> hits = userDAO.searchEvents(gus, "dent", 10);
+        assertEquals(2, hits.size());
+        // The shorter name is the closer match
+        assertEquals("Dentist", hits.get(0).getEvent().getName());
+        assertTrue(hits.get(0).getRank() <= hits.get(1).getRank());
+        assertEquals("[Dentist] appointment", hits.get(1).getSnippet());
+
+        assertEquals(1, userDAO.searchEvents(gus, "dent app", 10).size());
+        assertEquals(1, userDAO.searchEvents(gus, "dent", 1).size());
+        assertTrue(userDAO.searchEvents(gus, "   ", 10).isEmpty());
+        // FTS5 operators typed by the user are searched as text instead of failing
+        assertTrue(userDAO.searchEvents(gus, "lunch\" OR NEAR(", 10).isEmpty());
+    }
+
+    @Test
+    public void testSearchEventsRanksOlderMatchesToo() {
+        userDAO.addUser(new User("jon", "pass", "jon@email.com"));
+        int jon = userDAO.getUserByUsername("jon").getId();
+        userDAO.insertEvent(jon, "jon@email.com", "Dentist", "01/06/2025 09:00:00", "01/06/2025 10:00:00");
+        List<Event> later = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            LocalDateTime start = LocalDateTime.of(2025, 2, 1, 9, 0).plusDays(i);
+            later.add(new Event("Dentist check up and clean " + i, start, start.plusHours(1), "jon"));
+        }
+        userDAO.insertEvents(jon, "jon@email.com", later);
+
+        // The oldest event is the best match and must not be crowded out by the hundreds added after it
+        List<EventSearchHit> hits = userDAO.searchEvents(jon, "dentist", 5);
+        assertEquals(5, hits.size());
+        assertEquals("Dentist", hits.get(0).getEvent().getName());
+    }
+
+    @Test
+    public void testRepeatedTitlesAreStoredOnce() throws SQLException {
+        userDAO.addUser(new User("kit", "pass", "kit@email.com"));
+        int kit = userDAO.getUserByUsername("kit").getId();
+        List<Event> events = List.of(
+                new Event("Gym", "05/07/2025 07:00:00", "05/07/2025 08:00:00", "kit"),
+                new Event("Lunch", "05/07/2025 12:00:00", "05/07/2025 13:00:00", "kit"),
+                new Event("Gym", "05/07/2025 17:00:00", "05/07/2025 18:00:00", "kit")
+        );
+        userDAO.insertEvents(kit, "kit@email.com", events);
+        userDAO.insertEvent(kit, "kit@email.com", "Gym", "05/07/2025 20:00:00", "05/07/2025 21:00:00");
+
+        try (Statement stmt = SqliteConnection.getInstance().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM event_titles")) {
+            assertEquals(2, rs.getInt(1));
+        }
+        // Four events reference 3 + 5 + 3 + 3 characters, the dictionary stores 3 + 5
+        assertEquals(14.0 / 8, userDAO.getEventTitleCompressionRatio(), 1e-9);
+
+        List<Event> loaded = userDAO.getUserEventsByEmailAndDate("kit@email.com", LocalDate.of(2025, 5, 7));
+        assertEquals(List.of("Gym", "Lunch", "Gym", "Gym"),
+                loaded.stream().map(Event::getName).collect(Collectors.toList()));
+        assertSame(loaded.get(0).getName(), loaded.get(2).getName());
+
+        // Titles nobody uses any more are removed with the events
+        userDAO.clearEventsByEmail("kit@email.com");
+        try (Statement stmt = SqliteConnection.getInstance().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM event_titles")) {
+            assertEquals(0, rs.getInt(1));
+        }
+    }
+
+    @Test
+    public void testSearchIndexFollowsEventChanges() {
+        userDAO.addUser(new User("ivy", "pass", "ivy@email.com"));
+        int ivy = userDAO.getUserByUsername("ivy").getId();
+        userDAO.insertEvent(ivy, "ivy@email.com", "Physio", "05/06/2025 09:00:00", "05/06/2025 10:00:00");
+        assertEquals(1, userDAO.searchEvents(ivy, "physio", 10).size());
+
+        // Renaming an event moves it to another title
+        userDAO.executeQuery("INSERT INTO event_titles (title) VALUES ('Gym session')");
+        userDAO.executeQuery("UPDATE events SET title_id = (SELECT id FROM event_titles WHERE title = 'Gym session') "
+                + "WHERE title_id = (SELECT id FROM event_titles WHERE title = 'Physio')");
+        assertTrue(userDAO.searchEvents(ivy, "physio", 10).isEmpty());
+        assertEquals(1, userDAO.searchEvents(ivy, "gym", 10).size());
+
+        userDAO.clearEventsByEmail("ivy@email.com");
+        assertTrue(userDAO.searchEvents(ivy, "gym", 10).isEmpty());
+    }
+
+    @Test
+    public void testSearchUsersByPrefixPagesIgnoringCase() {
+        for (String name : new String[]{"Sam", "samuel", "SAMIR", "sammy", "sandra", "zoe"}) {
+            userDAO.addUser(new User(name, "pass", name.toLowerCase() + "@email.com"));
+        }
+        int me = userDAO.getUserByUsername("sammy").getId();
+
+        List<UserSummary> first = userDAO.searchUsersByPrefix("sam", null, me, 2);
+        assertEquals(List.of("Sam", "SAMIR"), usernames(first));
+        List<UserSummary> second = userDAO.searchUsersByPrefix("sam", first.get(1), me, 2);
+        assertEquals(List.of("samuel"), usernames(second));
+
+        assertEquals(List.of("sandra"), usernames(userDAO.searchUsersByPrefix("SAN", null, 0, 10)));
+        assertTrue(userDAO.searchUsersByPrefix("x", null, 0, 10).isEmpty());
+        assertTrue(userDAO.searchUsersByPrefix(" ", null, 0, 10).isEmpty());
+    }
+
+    @Test
+    public void testFriendRequestOperationsReportResultingState() {
+        userDAO.addUser(new User("kim", "pass", "kim@email.com"));
+        userDAO.addUser(new User("lou", "pass", "lou@email.com"));
+
+        FriendRequestResult sent = userDAO.sendFriendRequest("kim", "lou");
+        assertTrue(sent.isApplied());
+        assertEquals(FriendRequestStatus.PENDING, sent.getStatus());
+        FriendRequestResult again = userDAO.sendFriendRequest("kim", "lou");
+        assertFalse(again.isApplied());
+        assertEquals(FriendRequestStatus.PENDING, again.getStatus());
+        assertFalse(userDAO.sendFriendRequest("lou", "kim").isApplied());
+
+        assertEquals(FriendRequestStatus.DECLINED, userDAO.declineFriendRequest("kim", "lou").getStatus());
+        FriendRequestResult lateAccept = userDAO.acceptFriendRequest("kim", "lou");
+        assertFalse(lateAccept.isApplied());
+        assertEquals(FriendRequestStatus.DECLINED, lateAccept.getStatus());
+
+        // A declined request can be sent again
+        assertTrue(userDAO.sendFriendRequest("kim", "lou").isApplied());
+        assertEquals(FriendRequestStatus.ACCEPTED, userDAO.acceptFriendRequest("kim", "lou").getStatus());
+        FriendRequestResult reverse = userDAO.sendFriendRequest("lou", "kim");
+        assertFalse(reverse.isApplied());
+        assertEquals(FriendRequestStatus.ACCEPTED, reverse.getStatus());
+
+        assertEquals(FriendRequestStatus.NONE, userDAO.removeFriend("lou", "kim").getStatus());
+        FriendRequestResult unknown = userDAO.sendFriendRequest("kim", "nobody");
+        assertFalse(unknown.isApplied());
+        assertEquals(FriendRequestStatus.NONE, unknown.getStatus());
+        assertFalse(userDAO.sendFriendRequest("kim", "kim").isApplied());
+    }
+
+    private static List<String> usernames(List<UserSummary> summaries) {
+        return summaries.stream().map(UserSummary::getUsername).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,82 @@
+import com.example.cab302project.models.SqliteConnection;
+import com.example.cab302project.models.SqliteUserDAO;
+import com.example.cab302project.models.StatementCache;
+import com.example.cab302project.models.User;
+
+import org.junit.jupiter.api.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatementCacheTest {
+    private Connection connection;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        StatementCache.discard(connection);
+        connection.close();
+    }
+
+    @Test
+    public void testReturnedStatementIsReused() throws SQLException {
+        StatementCache cache = new StatementCache(connection, 4);
+        PreparedStatement first;
+        try (StatementCache.CachedStatement cached = cache.prepare("SELECT 1")) {
+            first = cached.statement();
+        }
+        try (StatementCache.CachedStatement cached = cache.prepare("SELECT 1")) {
+            assertSame(first, cached.statement());
+        }
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testStatementInUseIsNotShared() throws SQLException {
+        StatementCache cache = new StatementCache(connection, 4);
+        try (StatementCache.CachedStatement a = cache.prepare("SELECT 1");
+             StatementCache.CachedStatement b = cache.prepare("SELECT 1")) {
+            assertNotSame(a.statement(), b.statement());
+        }
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedStatementIsEvicted() throws SQLException {
+        StatementCache cache = new StatementCache(connection, 2);
+        PreparedStatement evicted;
+        try (StatementCache.CachedStatement cached = cache.prepare("SELECT 1")) {
+            evicted = cached.statement();
+        }
+        cache.prepare("SELECT 2").close();
+        cache.prepare("SELECT 3").close();
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertTrue(evicted.isClosed());
+    }
+
+    @Test
+    public void testDaoQueriesHitTheCache() throws SQLException {
+        SqliteConnection.injectTestConnection(connection);
+        SqliteUserDAO userDAO = new SqliteUserDAO();
+        userDAO.addUser(new User("pia", "pass", "pia@email.com"));
+
+        StatementCache cache = StatementCache.forConnection(connection);
+        long misses = cache.getMisses();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(userDAO.validateUser("pia@email.com", "pass"));
+        }
+        assertEquals(misses + 1, cache.getMisses());
+        assertTrue(cache.getHits() >= 4);
+    }
+}
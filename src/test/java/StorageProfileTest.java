@@ -0,0 +1,72 @@
+import com.example.cab302project.models.StorageProfile;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StorageProfileTest {
+
+    @Test
+    public void testNamedProfilesResolve() {
+        assertSame(StorageProfile.DURABLE, StorageProfile.named("durable"));
+        assertSame(StorageProfile.THROUGHPUT, StorageProfile.named(" Throughput "));
+        assertSame(StorageProfile.LEGACY, StorageProfile.named("LEGACY"));
+        assertThrows(IllegalArgumentException.class, () -> StorageProfile.named("fastest"));
+    }
+
+    @Test
+    public void testDefaultsToDurableProfile() {
+        assertSame(StorageProfile.DURABLE, StorageProfile.fromProperties(new Properties()));
+    }
+
+    @Test
+    public void testOverridesApplyOnTopOfNamedProfile() {
+        Properties settings = new Properties();
+        settings.setProperty("storage.profile", "throughput");
+        settings.setProperty("storage.cache_size", "-1024");
+        settings.setProperty("storage.synchronous", "full");
+
+        StorageProfile profile = StorageProfile.fromProperties(settings);
+        assertEquals("WAL", profile.getJournalMode());
+        assertEquals("FULL", profile.getSynchronous());
+        assertEquals(-1024, profile.getCacheSize());
+        assertEquals(StorageProfile.THROUGHPUT.getMmapSize(), profile.getMmapSize());
+    }
+
+    @Test
+    public void testInvalidValuesAreRejected() {
+        Properties settings = new Properties();
+        settings.setProperty("storage.journal_mode", "WAL; DROP TABLE users");
+        assertThrows(IllegalArgumentException.class, () -> StorageProfile.fromProperties(settings));
+
+        Properties notANumber = new Properties();
+        notANumber.setProperty("storage.mmap_size", "lots");
+        assertThrows(IllegalArgumentException.class, () -> StorageProfile.fromProperties(notANumber));
+    }
+
+    @Test
+    public void testApplyToSetsPragmas() throws Exception {
+        File db = File.createTempFile("profile-test", ".db");
+        db.deleteOnExit();
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + db.getAbsolutePath())) {
+            StorageProfile.THROUGHPUT.applyTo(conn, true);
+            assertEquals("wal", pragma(conn, "journal_mode"));
+            assertEquals("1", pragma(conn, "synchronous")); // NORMAL
+            assertEquals("2", pragma(conn, "temp_store"));  // MEMORY
+            assertEquals("-65536", pragma(conn, "cache_size"));
+        }
+    }
+
+    private static String pragma(Connection conn, String name) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("PRAGMA " + name)) {
+            return rs.next() ? rs.getString(1) : null;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+import com.example.cab302project.models.StringPool;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StringPoolTest {
+
+    @Test
+    public void testEachIdIsDecodedOnce() {
+        StringPool pool = new StringPool();
+        assertNull(pool.get(1));
+        String lecture = pool.put(1, new String("Lecture"));
+        for (int i = 0; i < 9; i++) {
+            assertSame(lecture, pool.get(1));
+        }
+        // A racing reader that decoded the title too is handed the pooled copy
+        assertSame(lecture, pool.put(1, new String("Lecture")));
+
+        assertEquals(1, pool.getDecoded());
+        assertEquals(10, pool.getLookups());
+        assertEquals(11.0, pool.getCompressionRatio(), 1e-9);
+    }
+
+    @Test
+    public void testPoolStartsOverAtCapacity() {
+        StringPool pool = new StringPool(2);
+        pool.put(1, "Gym");
+        pool.put(2, "Lunch");
+        pool.put(3, "Lecture");
+        assertEquals(1, pool.size());
+        assertNull(pool.get(1));
+        assertEquals("Lecture", pool.get(3));
+    }
+}
@@ -0,0 +1,109 @@
+import com.example.cab302project.models.WriteBehindExecutor;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteBehindExecutorTest {
+    private WriteBehindExecutor writes;
+
+    @BeforeEach
+    public void setUp() {
+        writes = WriteBehindExecutor.getInstance();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        WriteBehindExecutor.shutdownInstance();
+    }
+
+    /**
+     * Occupies the writer thread until the returned latch is released, so later submissions stay queued.
+     */
+    private CountDownLatch blockWriter() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        writes.submit(() -> {
+            started.countDown();
+            return release.await(5, TimeUnit.SECONDS);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return release;
+    }
+
+    @Test
+    public void testMutationsRunInSubmissionOrder() {
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 20; i++) {
+            int value = i;
+            writes.submit(() -> order.add(value));
+        }
+        assertTrue(writes.flush());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, (int) order.get(i));
+        }
+    }
+
+    @Test
+    public void testQueuedMutationsWithSameKeyAreCoalesced() throws Exception {
+        CountDownLatch release = blockWriter();
+        List<String> applied = Collections.synchronizedList(new ArrayList<>());
+        CompletableFuture<String> first = writes.submit("bio:a@email.com", () -> { applied.add("first"); return "first"; });
+        CompletableFuture<String> second = writes.submit("bio:a@email.com", () -> { applied.add("second"); return "second"; });
+        CompletableFuture<String> other = writes.submit("bio:b@email.com", () -> { applied.add("other"); return "other"; });
+        release.countDown();
+
+        assertTrue(writes.flush());
+        assertEquals(List.of("second", "other"), applied);
+        assertEquals("second", first.get());
+        assertEquals("second", second.get());
+        assertEquals("other", other.get());
+        assertEquals(1, writes.getCoalescedCount());
+    }
+
+    @Test
+    public void testFlushAsyncCompletesAfterEarlierMutationsWithoutBlocking() throws Exception {
+        CountDownLatch release = blockWriter();
+        CompletableFuture<Integer> queued = writes.submit(() -> 1);
+        CompletableFuture<Boolean> flushed = writes.flushAsync();
+        // The caller is not held up while the writer is busy
+        assertFalse(flushed.isDone());
+
+        release.countDown();
+        assertTrue(flushed.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.isDone());
+    }
+
+    @Test
+    public void testFailureCompletesFutureExceptionally() {
+        CompletableFuture<Boolean> failed = writes.submit(() -> {
+            throw new IllegalStateException("write failed");
+        });
+        assertTrue(writes.flush());
+        ExecutionException e = assertThrows(ExecutionException.class, failed::get);
+        assertTrue(e.getCause() instanceof IllegalStateException);
+
+        // The writer keeps going after a failed mutation
+        assertTrue(writes.submit(() -> true).join());
+    }
+
+    @Test
+    public void testShutdownAppliesQueuedMutations() throws Exception {
+        CountDownLatch release = blockWriter();
+        CompletableFuture<Integer> queued = writes.submit(() -> 42);
+        release.countDown();
+
+        writes.shutdown();
+        assertTrue(queued.isDone());
+        assertEquals(42, (int) queued.get());
+        assertThrows(IllegalStateException.class, () -> writes.submit(() -> 1));
+    }
+}
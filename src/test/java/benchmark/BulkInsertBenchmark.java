@@ -0,0 +1,95 @@
+package benchmark;
+
+import com.example.cab302project.models.Event;
+import com.example.cab302project.models.SqliteConnection;
+import com.example.cab302project.models.SqliteUserDAO;
+import com.example.cab302project.models.StorageProfile;
+import com.example.cab302project.models.User;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares importing events one {@code insertEvent} call at a time against a single {@code insertEvents} call.
+ * <p>
+ * Not a unit test: run the main method with the test classpath. Pass event counts as arguments,
+ * default 10000 and 100000. Each run uses a fresh database file opened with the configured storage profile.
+ */
+public class BulkInsertBenchmark {
+
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm:ss");
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 1, 1);
+    private static final int EVENTS_PER_DAY = 8;
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = args.length > 0 ? new int[args.length] : new int[]{10_000, 100_000};
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+        StorageProfile profile = StorageProfile.load();
+        System.out.println("Storage profile: " + profile);
+
+        System.out.printf("%-10s %-14s %12s %12s%n", "events", "path", "seconds", "events/s");
+        for (int size : sizes) {
+            List<Event> events = generate(size);
+            report(size, "insertEvent", runSingle(profile, events));
+            report(size, "insertEvents", runBulk(profile, events));
+        }
+        SqliteConnection.useDatabase(SqliteConnection.DEFAULT_URL);
+    }
+
+    private static List<Event> generate(int count) {
+        List<Event> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime start = FIRST_DAY.plusDays(i / EVENTS_PER_DAY).atTime(8 + i % EVENTS_PER_DAY, 0);
+            events.add(new Event("Event " + i, start.format(FORMAT), start.plusMinutes(45).format(FORMAT), "bench"));
+        }
+        return events;
+    }
+
+    private static double runSingle(StorageProfile profile, List<Event> events) throws IOException {
+        User user = freshDatabase(profile);
+        SqliteUserDAO dao = new SqliteUserDAO();
+        long start = System.nanoTime();
+        for (Event event : events) {
+            dao.insertEvent(user.getId(), user.getEmail(), event.getName(), event.getStart_time(), event.getEnd_time());
+        }
+        return seconds(start);
+    }
+
+    private static double runBulk(StorageProfile profile, List<Event> events) throws IOException {
+        User user = freshDatabase(profile);
+        SqliteUserDAO dao = new SqliteUserDAO();
+        long start = System.nanoTime();
+        boolean[] inserted = dao.insertEvents(user.getId(), user.getEmail(), events);
+        double elapsed = seconds(start);
+        for (boolean ok : inserted) {
+            if (!ok) {
+                throw new IllegalStateException("Bulk insert skipped an event");
+            }
+        }
+        return elapsed;
+    }
+
+    private static User freshDatabase(StorageProfile profile) throws IOException {
+        File db = File.createTempFile("bulk-insert-bench", ".db");
+        db.deleteOnExit();
+        SqliteConnection.useDatabase("jdbc:sqlite:" + db.getAbsolutePath(), profile);
+        SqliteUserDAO dao = new SqliteUserDAO();
+        dao.addUser(new User("bench", "bench", "bench@example.com"));
+        return dao.getUserByEmail("bench@example.com");
+    }
+
+    private static void report(int size, String path, double seconds) {
+        System.out.printf("%-10d %-14s %12.2f %12.0f%n", size, path, seconds, size / seconds);
+    }
+
+    private static double seconds(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000_000.0;
+    }
+}
@@ -0,0 +1,145 @@
+package benchmark;
+
+import com.example.cab302project.models.Event;
+
+import java.lang.management.ManagementFactory;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Compares the bytes allocated and time taken by the calendar's hot path, checking whether events are in progress
+ * and reading their start times, with the old string-backed event against the parsed {@link Event}.
+ * <p>
+ * Not a unit test: run the main method with the test classpath. JMH is not part of the build, so allocation is
+ * measured with the per-thread counter of {@code com.sun.management.ThreadMXBean} after a warm-up round.
+ * Pass the event count as the first argument, default 10000.
+ */
+public class EventAllocationBenchmark {
+
+    private static final int ROUNDS = 5;
+    private static final int CHECKS_PER_EVENT = 24;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        DateTimeFormatter format = DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm:ss");
+        List<String[]> rows = new ArrayList<>(size);
+        LocalDateTime first = LocalDateTime.of(2025, 1, 1, 8, 0);
+        for (int i = 0; i < size; i++) {
+            LocalDateTime start = first.plusHours(i);
+            rows.add(new String[]{"Event " + i, start.format(format), start.plusMinutes(45).format(format)});
+        }
+
+        System.out.printf("%-8s %14s %14s %10s%n", "event", "bytes/event", "ns/event", "matches");
+        for (int round = 0; round <= ROUNDS; round++) {
+            // Round 0 warms up both paths and is not reported
+            Result legacy = measure(threads, () -> runLegacy(rows, first));
+            Result parsed = measure(threads, () -> runParsed(rows, first));
+            if (round > 0) {
+                legacy.print("legacy", size);
+                parsed.print("parsed", size);
+            }
+        }
+    }
+
+    private static long runLegacy(List<String[]> rows, LocalDateTime first) {
+        long matches = 0;
+        for (String[] row : rows) {
+            LegacyEvent event = new LegacyEvent(row[0], row[1], row[2]);
+            for (int h = 0; h < CHECKS_PER_EVENT; h++) {
+                if (event.isEventInProgress(first.plusMinutes(h * 97L))) {
+                    matches++;
+                }
+            }
+            matches += event.getStartTime().length();
+        }
+        return matches;
+    }
+
+    private static long runParsed(List<String[]> rows, LocalDateTime first) {
+        long matches = 0;
+        for (String[] row : rows) {
+            Event event = new Event(row[0], row[1], row[2], "bench");
+            for (int h = 0; h < CHECKS_PER_EVENT; h++) {
+                if (event.IsEventInProgress(first.plusMinutes(h * 97L))) {
+                    matches++;
+                }
+            }
+            matches += event.getStart_time().length();
+        }
+        return matches;
+    }
+
+    private static Result measure(com.sun.management.ThreadMXBean threads, java.util.function.LongSupplier work) {
+        long thread = Thread.currentThread().getId();
+        long bytesBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        long matches = work.getAsLong();
+        long nanos = System.nanoTime() - start;
+        return new Result(threads.getThreadAllocatedBytes(thread) - bytesBefore, nanos, matches);
+    }
+
+    private static final class Result {
+        private final long bytes;
+        private final long nanos;
+        private final long matches;
+
+        private Result(long bytes, long nanos, long matches) {
+            this.bytes = bytes;
+            this.nanos = nanos;
+            this.matches = matches;
+        }
+
+        private void print(String label, int size) {
+            System.out.printf("%-8s %14d %14d %10d%n", label, bytes / size, nanos / size, matches);
+        }
+    }
+
+    /**
+     * The event representation this benchmark replaced: times kept as strings, a formatter per instance,
+     * and every accessor parsing again.
+     */
+    private static final class LegacyEvent {
+        private final String name;
+        private final String startTime;
+        private final String endTime;
+        private final DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm:ss");
+
+        private LegacyEvent(String name, String startTime, String endTime) {
+            this.name = name;
+            this.startTime = startTime;
+            this.endTime = endTime;
+        }
+
+        private String getStartTime() {
+            try {
+                SimpleDateFormat inputFormat = new SimpleDateFormat("MM/dd/yyyy HH:mm:ss");
+                Date date = inputFormat.parse(startTime);
+                return new SimpleDateFormat("MM/dd/yyyy HH:mm:ss").format(date);
+            } catch (ParseException e) {
+                return "Invalid Date";
+            }
+        }
+
+        private LocalDateTime start() {
+            return LocalDateTime.parse(startTime, dateFormat);
+        }
+
+        private LocalDateTime end() {
+            return LocalDateTime.parse(endTime, dateFormat);
+        }
+
+        private boolean isEventInProgress(LocalDateTime currentTime) {
+            return (currentTime.isAfter(start())
+                    && currentTime.isBefore(end()) || currentTime.isEqual(end()))
+                    || currentTime.isEqual(start());
+        }
+    }
+}
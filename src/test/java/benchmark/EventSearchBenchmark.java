@@ -0,0 +1,77 @@
+package benchmark;
+
+import com.example.cab302project.models.Event;
+import com.example.cab302project.models.EventSearchHit;
+import com.example.cab302project.models.SqliteConnection;
+import com.example.cab302project.models.SqliteUserDAO;
+import com.example.cab302project.models.StorageProfile;
+import com.example.cab302project.models.User;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures {@code searchEvents} latency over a large imported calendar.
+ * <p>
+ * Not a unit test: run the main method with the test classpath. Pass the event count as the first argument,
+ * default 200000. Event names are drawn from a small vocabulary so common words match many rows.
+ */
+public class EventSearchBenchmark {
+
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm:ss");
+    private static final LocalDate FIRST_DAY = LocalDate.of(2020, 1, 1);
+    private static final String[] WORDS = {
+            "dentist", "lecture", "tutorial", "meeting", "lunch", "gym", "physio", "review", "standup", "exam",
+            "project", "assignment", "coffee", "dinner", "workshop", "seminar", "flight", "interview", "call", "study"
+    };
+    private static final String[] QUERIES = {"dentist", "lec", "project review", "exam study", "zzz", "work"};
+    private static final int RUNS = 200;
+
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        StorageProfile profile = StorageProfile.load();
+        System.out.println("Storage profile: " + profile);
+
+        File db = File.createTempFile("event-search-bench", ".db");
+        db.deleteOnExit();
+        SqliteConnection.useDatabase("jdbc:sqlite:" + db.getAbsolutePath(), profile);
+        SqliteUserDAO dao = new SqliteUserDAO();
+        dao.addUser(new User("bench", "bench", "bench@example.com"));
+        User user = dao.getUserByEmail("bench@example.com");
+        dao.insertEvents(user.getId(), user.getEmail(), generate(size));
+        System.out.println("Indexed " + size + " events");
+
+        System.out.printf("%-16s %8s %12s %12s%n", "query", "hits", "median ms", "p95 ms");
+        for (String query : QUERIES) {
+            // Warm up the statement cache and page cache before timing
+            dao.searchEvents(user.getId(), query, 20);
+            double[] millis = new double[RUNS];
+            List<EventSearchHit> hits = null;
+            for (int i = 0; i < RUNS; i++) {
+                long start = System.nanoTime();
+                hits = dao.searchEvents(user.getId(), query, 20);
+                millis[i] = (System.nanoTime() - start) / 1_000_000.0;
+            }
+            Arrays.sort(millis);
+            System.out.printf("%-16s %8d %12.3f %12.3f%n", query, hits.size(),
+                    millis[RUNS / 2], millis[(int) (RUNS * 0.95)]);
+        }
+        SqliteConnection.useDatabase(SqliteConnection.DEFAULT_URL);
+    }
+
+    private static List<Event> generate(int count) {
+        List<Event> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime start = FIRST_DAY.plusDays(i / 8).atTime(8 + i % 8, 0);
+            String name = WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length] + " " + i;
+            events.add(new Event(name, start.format(FORMAT), start.plusMinutes(45).format(FORMAT), "bench"));
+        }
+        return events;
+    }
+}
@@ -0,0 +1,167 @@
+package benchmark;
+
+import com.example.cab302project.models.Event;
+import com.example.cab302project.models.EventStore;
+import com.example.cab302project.util.EventTimes;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares holding a large calendar as a {@code List<Event>} with holding it as an {@link EventStore}:
+ * retained heap, and the time to find and read the events of a one-week window.
+ * <p>
+ * Not a unit test: run the main method with the test classpath, a heap of at least 1 GB and {@code -XX:+UseSerialGC},
+ * which keeps the heap figures stable. JMH is not part of the build, so heap is the used heap after {@code System.gc()}
+ * with only the structure alive, and latency is the median of repeated random lookups after a warm-up. Pass event counts as arguments, default 100000 and 1000000.
+ */
+public class EventStoreBenchmark {
+
+    private static final int DISTINCT_NAMES = 2_000;
+    private static final int LOOKUPS = 2_000;
+    /**
+     * The full scan reads every event per lookup, so it is timed on fewer lookups to keep the run short.
+     */
+    private static final int SCAN_LOOKUPS = 50;
+    private static final LocalDateTime FIRST = LocalDateTime.of(2015, 1, 1, 8, 0);
+
+    public static void main(String[] args) {
+        int[] sizes = args.length > 0 ? new int[args.length] : new int[]{100_000, 1_000_000};
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+        System.out.printf("%-10s %-12s %14s %14s %12s%n", "events", "structure", "heap bytes", "bytes/event", "lookup µs");
+        for (int size : sizes) {
+            run(size);
+        }
+    }
+
+    private static void run(int size) {
+        // Events are spread over ten years, with names repeating as recurring events do
+        Random random = new Random(size);
+        long[] starts = new long[size];
+        int[] names = new int[size];
+        long first = EventTimes.toEpochSecond(FIRST);
+        long span = 10L * 365 * 24 * 3600;
+        for (int i = 0; i < size; i++) {
+            starts[i] = first + (long) (random.nextDouble() * span);
+            names[i] = random.nextInt(DISTINCT_NAMES);
+        }
+        java.util.Arrays.sort(starts);
+
+        // The store is built first so garbage from building the list cannot be counted against it
+        long before = usedHeap();
+        EventStore.Builder builder = new EventStore.Builder(size);
+        for (int i = 0; i < size; i++) {
+            builder.add(new String("Event " + names[i]), starts[i], starts[i] + 3600, new String("alice"));
+        }
+        EventStore store = builder.build();
+        builder = null;
+        long storeBytes = usedHeap() - before;
+
+        before = usedHeap();
+        List<Event> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            // Every row read from the database brings its own name and username strings
+            list.add(new Event(new String("Event " + names[i]), EventTimes.fromEpochSecond(starts[i]),
+                    EventTimes.fromEpochSecond(starts[i] + 3600), new String("alice")));
+        }
+        long listBytes = usedHeap() - before;
+
+        long[] queries = new long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            queries[i] = first + (long) (random.nextDouble() * span);
+        }
+        long week = 7L * 24 * 3600;
+
+        // Warm up both paths, then time them
+        for (int round = 0; round < 2; round++) {
+            double listMicros = medianMicros(java.util.Arrays.copyOf(queries, SCAN_LOOKUPS), q -> scanList(list, q, q + week));
+            double searchMicros = medianMicros(queries, q -> searchList(list, q, q + week));
+            double storeMicros = medianMicros(queries, q -> walkStore(store, q, q + week));
+            if (round == 1) {
+                System.out.printf("%-10d %-12s %14d %14d %12.1f%n", size, "list scan", listBytes, listBytes / size, listMicros);
+                System.out.printf("%-10d %-12s %14s %14s %12.1f%n", size, "list search", "", "", searchMicros);
+                System.out.printf("%-10d %-12s %14d %14d %12.1f%n", size, "store", storeBytes, storeBytes / size, storeMicros);
+            }
+        }
+        // Keep both structures reachable until every measurement is done
+        if (list.size() + store.size() == 0) {
+            System.out.println();
+        }
+    }
+
+    /**
+     * The old CalendarDAO approach: check every event.
+     */
+    private static long scanList(List<Event> list, long from, long to) {
+        long total = 0;
+        LocalDateTime start = EventTimes.fromEpochSecond(from);
+        LocalDateTime end = EventTimes.fromEpochSecond(to);
+        for (Event e : list) {
+            LocalDateTime s = e.getStart_Time_LocalDateTime();
+            if (!s.isBefore(start) && s.isBefore(end)) {
+                total += e.getName().length();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Binary search over the sorted list, the best a list of objects can do.
+     */
+    private static long searchList(List<Event> list, long from, long to) {
+        LocalDateTime start = EventTimes.fromEpochSecond(from);
+        LocalDateTime end = EventTimes.fromEpochSecond(to);
+        int lo = 0;
+        int hi = list.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (list.get(mid).getStart_Time_LocalDateTime().isBefore(start)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        long total = 0;
+        for (int i = lo; i < list.size() && list.get(i).getStart_Time_LocalDateTime().isBefore(end); i++) {
+            total += list.get(i).getName().length();
+        }
+        return total;
+    }
+
+    private static long walkStore(EventStore store, long from, long to) {
+        long total = 0;
+        EventStore.Cursor cursor = store.cursor();
+        cursor.seek(from);
+        while (cursor.next() && cursor.startEpoch() < to) {
+            total += cursor.name().length();
+        }
+        return total;
+    }
+
+    private static double medianMicros(long[] queries, java.util.function.LongUnaryOperator lookup) {
+        long[] nanos = new long[queries.length];
+        long sink = 0;
+        for (int i = 0; i < queries.length; i++) {
+            long start = System.nanoTime();
+            sink += lookup.applyAsLong(queries[i]);
+            nanos[i] = System.nanoTime() - start;
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+        java.util.Arrays.sort(nanos);
+        return nanos[nanos.length / 2] / 1000.0;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
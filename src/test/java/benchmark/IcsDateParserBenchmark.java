@@ -0,0 +1,142 @@
+package benchmark;
+
+import com.example.cab302project.util.IcsDateParser;
+
+import java.lang.management.ManagementFactory;
+import java.text.ParseException;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+/**
+ * Compares the bytes allocated and time taken to parse ICS timestamps with {@link IcsDateParser} against the two
+ * approaches it replaced: a new {@code SimpleDateFormat} per value with a fixed ten hour shift, and a shared
+ * {@code DateTimeFormatter} with the same shift.
+ * <p>
+ * Not a unit test: run the main method with the test classpath. JMH is not part of the build, so allocation is
+ * measured with the per-thread counter of {@code com.sun.management.ThreadMXBean} after a warm-up round.
+ * The values are a mix of UTC, floating and TZID times, as exported calendars contain.
+ * Pass the timestamp count as the first argument, default 2000000.
+ */
+public class IcsDateParserBenchmark {
+
+    private static final int ROUNDS = 3;
+    private static final DateTimeFormatter ICS_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final String[] ZONES = {"Australia/Brisbane", "Australia/Sydney", "Europe/London"};
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        Random random = new Random(size);
+        LocalDateTime first = LocalDateTime.of(2015, 1, 1, 0, 0);
+        String[] values = new String[size];
+        String[] properties = new String[size];
+        for (int i = 0; i < size; i++) {
+            LocalDateTime time = first.plusMinutes(random.nextInt(10 * 365 * 24 * 4) * 15L);
+            String value = time.format(ICS_FORMAT);
+            switch (i % 3) {
+                case 0:
+                    values[i] = value + "Z";
+                    properties[i] = "DTSTART:" + value + "Z";
+                    break;
+                case 1:
+                    values[i] = value;
+                    properties[i] = "DTSTART:" + value;
+                    break;
+                default:
+                    // The replaced parsers ignored TZID, so they are given the bare value
+                    values[i] = value;
+                    properties[i] = "DTSTART;TZID=" + ZONES[i % ZONES.length] + ":" + value;
+                    break;
+            }
+        }
+
+        System.out.printf("%-18s %12s %12s%n", "parser", "bytes/value", "ns/value");
+        IcsDateParser parser = IcsDateParser.getDefault();
+        for (int round = 0; round <= ROUNDS; round++) {
+            // Round 0 warms up every path and is not reported
+            Result simple = measure(threads, () -> parseSimpleDateFormat(values));
+            Result formatter = measure(threads, () -> parseFormatter(values));
+            Result ics = measure(threads, () -> {
+                long sum = 0;
+                for (String property : properties) {
+                    sum += parser.parseWallClock(property);
+                }
+                return sum;
+            });
+            if (round > 0) {
+                simple.print("SimpleDateFormat", size);
+                formatter.print("DateTimeFormatter", size);
+                ics.print("IcsDateParser", size);
+            }
+        }
+    }
+
+    /**
+     * The original Event.parseIcsDate: a formatter per call, exception-driven fallback and a fixed ten hour shift.
+     */
+    private static long parseSimpleDateFormat(String[] values) {
+        long sum = 0;
+        for (String value : values) {
+            try {
+                SimpleDateFormat format = new SimpleDateFormat("yyyyMMdd'T'HHmmss");
+                format.setTimeZone(TimeZone.getTimeZone("UTC"));
+                Date date = format.parse(value);
+                sum += date.getTime() / 1000 + 10 * 3600;
+            } catch (ParseException e) {
+                sum--;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * The shared formatter Event used before this parser, still with the fixed ten hour shift.
+     */
+    private static long parseFormatter(String[] values) {
+        long sum = 0;
+        for (String value : values) {
+            try {
+                LocalDateTime time = LocalDateTime.from(ICS_FORMAT.parse(value, new ParsePosition(0)));
+                sum += time.plusHours(10).toEpochSecond(ZoneOffset.UTC);
+            } catch (DateTimeParseException e) {
+                sum--;
+            }
+        }
+        return sum;
+    }
+
+    private static Result measure(com.sun.management.ThreadMXBean threads, java.util.function.LongSupplier work) {
+        long thread = Thread.currentThread().getId();
+        long bytesBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        long sink = work.getAsLong();
+        long nanos = System.nanoTime() - start;
+        return new Result(threads.getThreadAllocatedBytes(thread) - bytesBefore, nanos, sink);
+    }
+
+    private static final class Result {
+        private final long bytes;
+        private final long nanos;
+        private final long sink;
+
+        private Result(long bytes, long nanos, long sink) {
+            this.bytes = bytes;
+            this.nanos = nanos;
+            this.sink = sink;
+        }
+
+        private void print(String label, int size) {
+            System.out.printf("%-18s %12d %12.1f%s%n", label, bytes / size, (double) nanos / size,
+                    sink == 42 ? " " : "");
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package benchmark;
+
+import com.example.cab302project.models.SqliteConnection;
+import com.example.cab302project.models.SqliteUserDAO;
+import com.example.cab302project.models.StorageProfile;
+import com.example.cab302project.models.User;
+import com.example.cab302project.services.IcsImportPipeline;
+import com.example.cab302project.util.IcsDateParser;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Imports a generated .ics file through {@link IcsImportPipeline} at several chunk sizes, and through the old
+ * approach of one SqliteUserDAO and one autocommitted insert per event.
+ * <p>
+ * Not a unit test: run the main method with the test classpath. Pass the event count as the first argument,
+ * default 50000. The per-event path is slow, so it only imports the first {@link #PER_EVENT_SAMPLE} events and its
+ * rate is reported from those. Each run uses a fresh database file opened with the configured storage profile.
+ */
+public class IcsImportBenchmark {
+
+    private static final DateTimeFormatter ICS = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final DateTimeFormatter STORED = DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm:ss");
+    private static final LocalDateTime FIRST = LocalDateTime.of(2020, 1, 1, 0, 0);
+    private static final int PER_EVENT_SAMPLE = 2_000;
+    private static final int[] CHUNK_SIZES = {100, 1_000, 10_000};
+
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        StorageProfile profile = StorageProfile.load();
+        System.out.println("Storage profile: " + profile);
+        File ics = generate(size);
+
+        System.out.printf("%-22s %10s %12s %12s%n", "path", "events", "seconds", "events/s");
+        for (int chunkSize : CHUNK_SIZES) {
+            User user = freshDatabase(profile);
+            try (BufferedReader reader = new BufferedReader(new FileReader(ics))) {
+                IcsImportPipeline.Result result = new IcsImportPipeline(new SqliteUserDAO(), chunkSize,
+                        IcsImportPipeline.DEFAULT_MAX_PENDING_CHUNKS).run(reader, user.getId(), user.getEmail());
+                System.out.printf("%-22s %10d %12.2f %12.0f%n", "pipeline chunk " + chunkSize, result.getSaved(),
+                        result.getElapsedNanos() / 1e9, result.getEventsPerSecond());
+            }
+        }
+
+        User user = freshDatabase(profile);
+        int sample = Math.min(size, PER_EVENT_SAMPLE);
+        long start = System.nanoTime();
+        for (int i = 0; i < sample; i++) {
+            LocalDateTime eventStart = start(i);
+            // The old importer created a DAO, and with it the schema checks, for every event
+            new SqliteUserDAO().insertEvent(user.getId(), user.getEmail(), "Event " + i % 500,
+                    eventStart.format(STORED), eventStart.plusMinutes(45).format(STORED));
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-22s %10d %12.2f %12.0f%n", "per-event insert", sample, seconds, sample / seconds);
+        SqliteConnection.useDatabase(SqliteConnection.DEFAULT_URL);
+    }
+
+    private static LocalDateTime start(int i) {
+        return FIRST.plusMinutes(i * 90L);
+    }
+
+    /**
+     * Writes a calendar of {@code size} events, in the display zone's UTC form as Google Calendar exports them.
+     */
+    private static File generate(int size) throws IOException {
+        File file = File.createTempFile("ics-import-bench", ".ics");
+        file.deleteOnExit();
+        long offset = IcsDateParser.getDefault().toWallClock(0);
+        try (PrintWriter out = new PrintWriter(file)) {
+            out.print("BEGIN:VCALENDAR\r\nVERSION:2.0\r\n");
+            for (int i = 0; i < size; i++) {
+                LocalDateTime utc = start(i).minusSeconds(offset);
+                out.print("BEGIN:VEVENT\r\n");
+                out.print("DTSTART:" + utc.format(ICS) + "\r\n");
+                out.print("DTEND:" + utc.plusMinutes(45).format(ICS) + "\r\n");
+                out.print("UID:" + i + "@bench\r\n");
+                out.print("SUMMARY:Event " + i % 500 + "\r\n");
+                out.print("END:VEVENT\r\n");
+            }
+            out.print("END:VCALENDAR\r\n");
+        }
+        return file;
+    }
+
+    private static User freshDatabase(StorageProfile profile) throws IOException {
+        File db = File.createTempFile("ics-import-bench", ".db");
+        db.deleteOnExit();
+        SqliteConnection.useDatabase("jdbc:sqlite:" + db.getAbsolutePath(), profile);
+        SqliteUserDAO dao = new SqliteUserDAO();
+        dao.addUser(new User("bench", "bench", "bench@example.com"));
+        return dao.getUserByEmail("bench@example.com");
+    }
+}
@@ -0,0 +1,64 @@
+package benchmark;
+
+import com.example.cab302project.models.SqliteConnection;
+import com.example.cab302project.models.SqliteUserDAO;
+import com.example.cab302project.models.StorageProfile;
+import com.example.cab302project.models.User;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Compares event import and per-day lookup throughput across the built-in storage profiles.
+ * <p>
+ * Not a unit test: run the main method from the IDE (or with the test classpath) and pass the number of
+ * events to import as the first argument, default 5000. Each profile gets its own fresh database file.
+ */
+public class StorageProfileBenchmark {
+
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm:ss");
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 1, 1);
+    private static final int EVENTS_PER_DAY = 8;
+    private static final int LOOKUPS = 2000;
+
+    public static void main(String[] args) throws IOException {
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        StorageProfile[] profiles = {StorageProfile.LEGACY, StorageProfile.DURABLE, StorageProfile.THROUGHPUT};
+
+        System.out.printf("%-12s %14s %16s%n", "profile", "import ev/s", "day lookups/s");
+        for (StorageProfile profile : profiles) {
+            File db = File.createTempFile("storage-bench-" + profile.getName(), ".db");
+            db.deleteOnExit();
+            SqliteConnection.useDatabase("jdbc:sqlite:" + db.getAbsolutePath(), profile);
+
+            SqliteUserDAO dao = new SqliteUserDAO();
+            dao.addUser(new User("bench", "bench", "bench@example.com"));
+            User user = dao.getUserByEmail("bench@example.com");
+
+            long start = System.nanoTime();
+            for (int i = 0; i < events; i++) {
+                LocalDateTime eventStart = FIRST_DAY.plusDays(i / EVENTS_PER_DAY).atTime(8 + i % EVENTS_PER_DAY, 0);
+                dao.insertEvent(user.getId(), user.getEmail(), "Event " + i,
+                        eventStart.format(FORMAT), eventStart.plusMinutes(45).format(FORMAT));
+            }
+            double importRate = events / seconds(start);
+
+            int days = Math.max(1, events / EVENTS_PER_DAY);
+            start = System.nanoTime();
+            for (int i = 0; i < LOOKUPS; i++) {
+                dao.getUserEventsByEmailAndDate(user.getEmail(), FIRST_DAY.plusDays(i % days));
+            }
+            double lookupRate = LOOKUPS / seconds(start);
+
+            System.out.printf("%-12s %14.0f %16.0f%n", profile.getName(), importRate, lookupRate);
+        }
+        SqliteConnection.useDatabase(SqliteConnection.DEFAULT_URL);
+    }
+
+    private static double seconds(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000_000.0;
+    }
+}